@@ -32,12 +32,14 @@ import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.DelimiterBasedFrameDecoder;
 import io.netty.handler.codec.Delimiters;
 import io.netty.handler.codec.string.StringDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.jboss.shrinkwrap.api.ConfigurationBuilder;
 import org.jboss.shrinkwrap.api.Domain;
 import org.jboss.shrinkwrap.api.GenericArchive;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.wildfly.swarm.arquillian.daemon.TestRunner;
 import org.wildfly.swarm.arquillian.daemon.protocol.WireProtocol;
+import org.wildfly.swarm.container.util.ThreadPools;
 
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
@@ -50,8 +52,6 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -114,12 +114,13 @@ public class Server {
         }
 
         // Set up Netty Boostrap
-        final EventLoopGroup parentGroup = new NioEventLoopGroup();
-        final EventLoopGroup childGroup = new NioEventLoopGroup();
-        this.eventLoopGroups.add(parentGroup);
-        this.eventLoopGroups.add(childGroup);
+        // One small group both accepts and serves; the daemon only ever has a client or two
+        final EventLoopGroup group = new NioEventLoopGroup(
+                Integer.getInteger(EVENT_LOOP_THREADS_PROPERTY, 2),
+                new DefaultThreadFactory("swarm-arquillian-daemon", true));
+        this.eventLoopGroups.add(group);
         final ServerBootstrap bootstrap = new ServerBootstrap()
-                .group(parentGroup, childGroup)
+                .group(group)
                 .channel(NioServerSocketChannel.class)
                 .localAddress(this.getBindAddress())
                 .childHandler(new ChannelInitializer<SocketChannel>() {
@@ -148,8 +149,6 @@ public class Server {
 
         // Running
         running = true;
-        // Create the shutdown service
-        this.shutdownService = Executors.newSingleThreadExecutor();
 
         if (log.isLoggable(Level.INFO)) {
             log.info("Server started on " + boundAddress.getHostName() + ":" + boundAddress.getPort());
@@ -191,10 +190,6 @@ public class Server {
         this.eventLoopGroups.forEach(EventLoopGroup::shutdownGracefully);
         this.eventLoopGroups.clear();
 
-        // Kill the shutdown service
-        shutdownService.shutdownNow();
-        shutdownService = null;
-
         // Not running
         running = false;
 
@@ -240,7 +235,8 @@ public class Server {
      */
     protected final void stopAsync() {
 
-        shutdownService.submit(() -> {
+        // looked up each time, as the shared pool may have been replaced since the server started
+        ThreadPools.getInstance().scheduler(SHUTDOWN_POOL, 1).submit(() -> {
             Server.this.stop();
             return null;
         });
@@ -355,12 +351,14 @@ public class Server {
     private static final String NAME_CHANNEL_HANDLER_STRING_DECODER = "StringDecoder";
     private static final String NAME_CHANNEL_HANDLER_FRAME_DECODER = "FrameDecoder";
     private static final String NAME_CHANNEL_HANDLER_COMMAND = "CommandHandler";
+    /** Netty owns the event loop threads, so they are sized here rather than by ThreadPools. */
+    private static final String EVENT_LOOP_THREADS_PROPERTY = "swarm.arquillian.daemon.threads";
+    private static final String SHUTDOWN_POOL = "arquillian-daemon-shutdown";
 
     private final List<EventLoopGroup> eventLoopGroups = new ArrayList<>();
     private final InetSocketAddress bindAddress;
     private final ConcurrentMap<String, GenericArchive> deployedArchives;
     private final Domain shrinkwrapDomain;
-    private ExecutorService shutdownService;
     private boolean running;
     private ClassLoader classLoader;
 }
@@ -23,10 +23,13 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.Paths;
 import java.security.CodeSource;
 import java.util.Collections;
 import java.util.jar.JarFile;
 
+import org.wildfly.swarm.bootstrap.util.UberJar;
+
 /**
  * Resources for the environment the application is being executed in.
  *
@@ -45,7 +48,7 @@ public class Environment {
      * @return the file system to use for the environment
      */
     public static FileSystem getFileSystem() {
-        return Holder.FILE_SYSTEM;
+        return FileSystemHolder.FILE_SYSTEM;
     }
 
     /**
@@ -62,26 +65,75 @@ public class Environment {
      */
     public static ResourceLoader getModuleResourceLoader(final String rootPath, final String loaderPath, final String loaderName) {
         if (Holder.JAR_FILE != null) {
-            return new JarFileResourceLoader(loaderName, Holder.JAR_FILE, Holder.FILE_SYSTEM.getPath(rootPath, loaderPath).toString());
+            return new JarFileResourceLoader(loaderName, Holder.JAR_FILE, join(rootPath, loaderPath));
         }
         return ResourceLoaders.createFileResourceLoader(loaderPath, new File(rootPath));
     }
 
     /**
-     * Lazy holder
+     * Joins paths the way a zip file system would, without having to open one.
      */
-    private static final class Holder {
-        static final FileSystem FILE_SYSTEM;
+    static String join(String first, String more) {
+        StringBuilder path = new StringBuilder(first.length() + more.length() + 1);
+        String joined = more.isEmpty() ? first : first + "/" + more;
+        for (int i = 0; i < joined.length(); ++i) {
+            char c = joined.charAt(i);
+            if (c == '/' && path.length() > 0 && path.charAt(path.length() - 1) == '/') {
+                continue;
+            }
+            path.append(c);
+        }
+        if (path.length() > 1 && path.charAt(path.length() - 1) == '/') {
+            path.setLength(path.length() - 1);
+        }
+        return path.toString();
+    }
 
+    private static URL location() {
+        final ClassLoader cl = Environment.class.getClassLoader();
+        final URL pathUrl = cl.getResource(Environment.class.getName().replace('.', '/') + ".class");
+        if (pathUrl == null) {
+            throw new RuntimeException("Could not discover the file system needed for the environment");
+        }
+        return pathUrl;
+    }
+
+    /**
+     * Lazy holder for the shared uber-jar.
+     */
+    private static final class Holder {
         static final JarFile JAR_FILE;
 
+        static {
+            final URL pathUrl = location();
+            if (pathUrl.getProtocol().startsWith("jar")) {
+                try {
+                    // Get the code source to determine the jar location
+                    final CodeSource codeSource = Environment.class.getProtectionDomain().getCodeSource();
+                    if (codeSource == null) {
+                        throw new RuntimeException("The code source could not be determine.");
+                    }
+                    final UberJar jar = UberJar.of(Paths.get(codeSource.getLocation().toURI()));
+                    JAR_FILE = jar != null ? jar.getJarFile() : new JarFile(new File(codeSource.getLocation().toURI()));
+                } catch (URISyntaxException | IOException e) {
+                    throw new RuntimeException("Could not open " + pathUrl, e);
+                }
+            } else {
+                JAR_FILE = null;
+            }
+        }
+    }
+
+    /**
+     * Lazy holder for the file system, only built if asked for.
+     */
+    private static final class FileSystemHolder {
+        static final FileSystem FILE_SYSTEM;
+
         static {
             // Determine the filesystem
             final ClassLoader cl = Environment.class.getClassLoader();
-            final URL pathUrl = cl.getResource(Environment.class.getName().replace('.', '/') + ".class");
-            if (pathUrl == null) {
-                throw new RuntimeException("Could not discover the file system needed for the environment");
-            }
+            final URL pathUrl = location();
             final URI pathUri;
             try {
                 pathUri = pathUrl.toURI();
@@ -102,17 +154,10 @@ public class Environment {
                             }
                         }
                     }));
-                    // Get the code source to determine the jar location
-                    final CodeSource codeSource = Environment.class.getProtectionDomain().getCodeSource();
-                    if (codeSource == null) {
-                        throw new RuntimeException("The code source could not be determine.");
-                    }
-                    JAR_FILE = new JarFile(new File(codeSource.getLocation().toURI()));
-                } catch (URISyntaxException | IOException e) {
+                } catch (IOException e) {
                     throw new RuntimeException("Could not create FileSystem for " + pathUrl, e);
                 }
             } else {
-                JAR_FILE = null;
                 FILE_SYSTEM = FileSystems.getDefault();
             }
         }
@@ -22,15 +22,21 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.jboss.modules.xml.MXParser;
 import org.jboss.modules.xml.XmlPullParser;
 import org.jboss.modules.xml.XmlPullParserException;
+import org.wildfly.swarm.bootstrap.util.ExtractionCache;
 import org.wildfly.swarm.bootstrap.util.Layout;
 
 import static org.jboss.modules.ModuleXmlParser.endOfDocument;
@@ -51,7 +57,7 @@ public class MavenArtifactUtil {
 
     private static final Object settingLoaderMutex = new Object();
 
-    private static final Object artifactLock = new Object();
+    private static final ConcurrentMap<String, FutureTask<File>> artifacts = new ConcurrentHashMap<>();
 
     private static MavenSettings mavenSettings;
 
@@ -298,6 +304,55 @@ public class MavenArtifactUtil {
         if (qualifier.startsWith("${") && qualifier.endsWith("}")) {
             qualifier = qualifier.substring(2, qualifier.length() - 1);
         }
+
+        // lookups of different artifacts proceed in parallel, while concurrent
+        // lookups of the same artifact share a single resolution (and download)
+        final String resolvedQualifier = qualifier;
+        final String key = qualifier + ":" + packaging;
+
+        FutureTask<File> task = artifacts.get(key);
+        boolean memoized = true;
+        if (task == null) {
+            FutureTask<File> newTask = new FutureTask<>(() -> doResolveArtifact(resolvedQualifier, packaging));
+            task = artifacts.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                task.run();
+                memoized = false;
+            }
+        }
+
+        try {
+            File file = task.get();
+            if (file == null) {
+                // not found; let a later lookup try again
+                artifacts.remove(key, task);
+            } else if (memoized && !file.exists()) {
+                // removed since it was resolved, such as pruned from the extraction cache
+                artifacts.remove(key, task);
+                return resolveArtifact(resolvedQualifier, packaging);
+            }
+            return file;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving " + qualifier, e);
+        } catch (ExecutionException e) {
+            artifacts.remove(key, task);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static File doResolveArtifact(String qualifier, String packaging) throws IOException {
         String[] split = qualifier.split(":");
         if (split.length < 3) {
             throw new IllegalArgumentException("Illegal artifact " + qualifier);
@@ -313,60 +368,57 @@ public class MavenArtifactUtil {
         final MavenSettings settings = getSettings();
         final Path localRepository = settings.getLocalRepository();
 
-        // serialize artifact lookup because we want to prevent parallel download
-        synchronized (artifactLock) {
-            String artifactRelativePath = "m2repo/" + relativeArtifactPath('/', groupId, artifactId, version);
-            String jarPath = artifactRelativePath + classifier + "." + packaging;
+        String artifactRelativePath = "m2repo/" + relativeArtifactPath('/', groupId, artifactId, version);
+        String jarPath = artifactRelativePath + classifier + "." + packaging;
 
-            InputStream stream = MavenArtifactUtil.class.getClassLoader().getResourceAsStream(jarPath);
-            if (stream != null) {
-                return copyTempJar(artifactId + "-" + version, stream, packaging);
-            }
+        Path extracted = ExtractionCache.getInstance().extract(MavenArtifactUtil.class.getClassLoader(), jarPath);
+        if (extracted != null) {
+            return extracted.toFile();
+        }
 
-            /*
-            try {
-                if (Layout.getInstance().isUberJar() ) {
-                    System.err.println( "UBERJAR, not searching further for : " + qualifier + ":" + packaging );
-                    return null;
-                }
-            } catch (URISyntaxException e) {
-                e.printStackTrace();
+        /*
+        try {
+            if (Layout.getInstance().isUberJar() ) {
+                System.err.println( "UBERJAR, not searching further for : " + qualifier + ":" + packaging );
+                return null;
             }
-            */
+        } catch (URISyntaxException e) {
+            e.printStackTrace();
+        }
+        */
 
-            artifactRelativePath = relativeArtifactPath(groupId, artifactId, version);
-            jarPath = artifactRelativePath + classifier + "." + packaging;
+        artifactRelativePath = relativeArtifactPath(groupId, artifactId, version);
+        jarPath = artifactRelativePath + classifier + "." + packaging;
 
-            Path fp = java.nio.file.Paths.get(localRepository.toString(), jarPath);
-            if (Files.exists(fp)) {
-                return fp.toFile();
-            }
+        Path fp = java.nio.file.Paths.get(localRepository.toString(), jarPath);
+        if (Files.exists(fp)) {
+            return fp.toFile();
+        }
 
-            List<String> remoteRepos = mavenSettings.getRemoteRepositories();
-            if (remoteRepos.isEmpty()) {
-                return null;
-            }
+        List<String> remoteRepos = mavenSettings.getRemoteRepositories();
+        if (remoteRepos.isEmpty()) {
+            return null;
+        }
 
-            final File jarFile = new File(localRepository.toFile(), jarPath);
-            final File pomFile = new File(localRepository.toFile(), artifactRelativePath + ".pom");
-            for (String remoteRepository : remoteRepos) {
-                try {
-                    String remotePomPath = remoteRepository + artifactRelativePath + ".pom";
-                    String remoteJarPath = remoteRepository + artifactRelativePath + classifier + "." + packaging;
-                    downloadFile(qualifier + ":pom", remotePomPath, pomFile);
-                    downloadFile(qualifier + ":" + packaging, remoteJarPath, jarFile);
-                    if (jarFile.exists()) { //download successful
-                        return jarFile;
-                    }
-                } catch (IOException e) {
-                    Module.log.trace(e, "Could not download '%s' from '%s' repository", artifactRelativePath, remoteRepository);
-                    //
+        final File jarFile = new File(localRepository.toFile(), jarPath);
+        final File pomFile = new File(localRepository.toFile(), artifactRelativePath + ".pom");
+        for (String remoteRepository : remoteRepos) {
+            try {
+                String remotePomPath = remoteRepository + artifactRelativePath + ".pom";
+                String remoteJarPath = remoteRepository + artifactRelativePath + classifier + "." + packaging;
+                downloadFile(qualifier + ":pom", remotePomPath, pomFile);
+                downloadFile(qualifier + ":" + packaging, remoteJarPath, jarFile);
+                if (jarFile.exists()) { //download successful
+                    return jarFile;
                 }
+            } catch (IOException e) {
+                Module.log.trace(e, "Could not download '%s' from '%s' repository", artifactRelativePath, remoteRepository);
+                //
             }
-            //could not find it in remote
-            Module.log.trace("Could not find in any remote repository");
-            return null;
         }
+        //could not find it in remote
+        Module.log.trace("Could not find in any remote repository");
+        return null;
     }
 
     public static String relativeArtifactPath(String groupId, String artifactId, String version) {
@@ -388,7 +440,7 @@ public class MavenArtifactUtil {
             File temp = File.createTempFile(artifact, "." + packaging);
             temp.deleteOnExit();
             try (FileOutputStream out = new FileOutputStream(temp)) {
-                byte[] buf = new byte[1024];
+                byte[] buf = new byte[64 * 1024];
                 int len = -1;
 
                 while ((len = in.read(buf)) >= 0) {
@@ -409,14 +461,21 @@ public class MavenArtifactUtil {
         InputStream bis = connection.getInputStream();
         try {
             dest.getParentFile().mkdirs();
-            FileOutputStream fos = new FileOutputStream(dest);
+            if (message) {
+                System.out.println("Downloading " + artifact);
+            }
+            // several artifacts share one pom, and other processes share the repository:
+            // download next to the destination and move it into place in one step
+            Path partial = Files.createTempFile(dest.getParentFile().toPath(), dest.getName(), ".part");
             try {
-                if (message) {
-                    System.out.println("Downloading " + artifact);
+                Files.copy(bis, partial, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.move(partial, dest.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(partial, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
-                Files.copy(bis, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
             } finally {
-                StreamUtil.safeClose(fos);
+                Files.deleteIfExists(partial);
             }
         } finally {
             StreamUtil.safeClose(bis);
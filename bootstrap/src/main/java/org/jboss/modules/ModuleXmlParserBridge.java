@@ -15,8 +15,17 @@
  */
 package org.jboss.modules;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.AllPermission;
+import java.security.Permissions;
+import java.util.Map;
+
+import org.jboss.modules.filter.MultiplePathFilterBuilder;
+import org.jboss.modules.filter.PathFilter;
+import org.jboss.modules.filter.PathFilters;
+import org.wildfly.swarm.bootstrap.util.CompiledModuleDescriptor;
 
 /**
  * @author Bob McWhirter
@@ -39,7 +48,89 @@ public class ModuleXmlParserBridge {
 
     }
 
+    /**
+     * Build a module from a compiled descriptor, yielding the same specification
+     * {@link ModuleXmlParser} would for the <code>module.xml</code> it was compiled from.
+     */
+    public static ModuleSpec buildModuleSpec(final ResourceRootFactoryBridge factory,
+                                             final String rootPath,
+                                             final CompiledModuleDescriptor descriptor,
+                                             final String moduleInfoFile,
+                                             final ModuleLoader moduleLoader,
+                                             final ModuleIdentifier moduleIdentifier) throws ModuleLoadException {
+        final ModuleSpec.Builder specBuilder = ModuleSpec.build(moduleIdentifier);
+
+        if (descriptor.getMainClass() != null) {
+            specBuilder.setMainClass(descriptor.getMainClass());
+        }
+
+        for (Map.Entry<String, String> each : descriptor.getProperties().entrySet()) {
+            specBuilder.addProperty(each.getKey(), each.getValue());
+        }
+
+        for (CompiledModuleDescriptor.Resource each : descriptor.getResources()) {
+            final ResourceLoader loader;
+            try {
+                if (each.isArtifact()) {
+                    loader = createMavenArtifactLoader(each.getArtifact());
+                    if (loader == null) {
+                        throw new ModuleLoadException(String.format("Error loading module from %s: failed to resolve artifact '%s'", moduleInfoFile, each.getArtifact()));
+                    }
+                } else {
+                    loader = factory.createResourceLoader(rootPath, each.getPath(), each.getName());
+                }
+            } catch (IOException e) {
+                throw new ModuleLoadException("Error loading module from " + moduleInfoFile, e);
+            }
+            specBuilder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(loader));
+        }
+
+        final File nativeLibDir = new File(rootPath + "/lib");
+        if (nativeLibDir.exists()) {
+            specBuilder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(new NativeLibraryResourceLoader(nativeLibDir), PathFilters.rejectAll()));
+        }
+
+        specBuilder.addDependency(DependencySpec.createLocalDependencySpec(PathFilters.acceptAll(), PathFilters.acceptAll()));
+
+        for (CompiledModuleDescriptor.Dependency each : descriptor.getDependencies()) {
+            if (each.isSystem()) {
+                final PathFilter exportFilter = each.isExport() ? PathFilters.acceptAll() : PathFilters.rejectAll();
+                specBuilder.addDependency(DependencySpec.createSystemDependencySpec(PathFilters.acceptAll(), exportFilter, each.getPaths()));
+                continue;
+            }
+
+            final MultiplePathFilterBuilder exportBuilder = PathFilters.multiplePathFilterBuilder(each.isExport());
+            if (each.getServices() == CompiledModuleDescriptor.Services.EXPORT) {
+                exportBuilder.addFilter(PathFilters.getMetaInfServicesFilter(), true);
+            }
+            if (each.isExport()) {
+                exportBuilder.addFilter(PathFilters.getMetaInfSubdirectoriesFilter(), false);
+                exportBuilder.addFilter(PathFilters.getMetaInfFilter(), false);
+            }
+            final PathFilter importFilter = each.getServices() == CompiledModuleDescriptor.Services.NONE
+                    ? PathFilters.getDefaultImportFilter()
+                    : PathFilters.getDefaultImportFilterWithServices();
+
+            specBuilder.addDependency(DependencySpec.createModuleDependencySpec(
+                    importFilter,
+                    exportBuilder.create(),
+                    moduleLoader,
+                    ModuleIdentifier.create(each.getName(), each.getSlot()),
+                    each.isOptional()));
+        }
+
+        final Permissions permissions = new Permissions();
+        permissions.add(new AllPermission());
+        specBuilder.setPermissionCollection(permissions);
+
+        return specBuilder.create();
+    }
+
     public static ResourceLoader createMavenArtifactLoader(final String name) throws IOException {
+        final ResourceLoader nested = NestedJarResourceLoader.forArtifact(name);
+        if (nested != null) {
+            return nested;
+        }
         return ModuleXmlParser.createMavenArtifactLoader(name);
     }
 
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.modules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.Manifest;
+
+import org.wildfly.swarm.bootstrap.url.swarmnested.Handler;
+import org.wildfly.swarm.bootstrap.util.Layout;
+import org.wildfly.swarm.bootstrap.util.UberJar;
+import org.wildfly.swarm.bootstrap.util.ZipDirectory;
+
+/**
+ * Resource loader for a jar stored (uncompressed) inside the uber-jar.
+ *
+ * <p>The outer jar is memory-mapped once and each nested jar's central directory
+ * is read in place, so classes and resources are served without first copying
+ * the nested jar to disk. Resource URLs use the <code>swarmnested:</code> protocol
+ * {@link Handler} registers for the whole JVM.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class NestedJarResourceLoader extends AbstractResourceLoader {
+
+    public static final String NESTED_LOADER_PROPERTY = "swarm.nested.loader";
+
+    private final String rootName;
+
+    private final URL rootUrl;
+
+    private final CodeSource codeSource;
+
+    private final ZipDirectory directory;
+
+    private volatile Manifest manifest;
+
+    private volatile Set<String> paths;
+
+    NestedJarResourceLoader(String rootName, URL rootUrl, ZipDirectory directory) {
+        this.rootName = rootName;
+        this.rootUrl = rootUrl;
+        this.codeSource = new CodeSource(rootUrl, (CodeSigner[]) null);
+        this.directory = directory;
+    }
+
+    /**
+     * Create a loader for an entry of the running uber-jar.
+     *
+     * @param entryName The path of the nested jar, such as <code>m2repo/org/foo/foo/1.0/foo-1.0.jar</code>.
+     * @return The loader, or <code>null</code> if not running from an uber-jar or the entry
+     * is missing or compressed, in which case callers should extract it instead.
+     */
+    public static ResourceLoader forEntry(String entryName) {
+        if ("false".equals(System.getProperty(NESTED_LOADER_PROPERTY))) {
+            return null;
+        }
+        try {
+            Layout layout = Layout.getInstance();
+            if (!layout.isUberJar()) {
+                return null;
+            }
+            return create(layout.getRoot(), entryName);
+        } catch (Exception e) {
+            Module.log.trace(e, "Unable to read %s in place, falling back to extraction", entryName);
+            return null;
+        }
+    }
+
+    /**
+     * Create a loader for an artifact bundled under <code>m2repo/</code> in the running uber-jar.
+     *
+     * @param qualifier The artifact, as <code>groupId:artifactId:version[:classifier]</code>.
+     * @return The loader, or <code>null</code> as for {@link #forEntry(String)}.
+     */
+    public static ResourceLoader forArtifact(String qualifier) {
+        String[] split = qualifier.split(":");
+        if (split.length < 3) {
+            return null;
+        }
+        String classifier = split.length >= 4 ? "-" + split[3] : "";
+        return forEntry("m2repo/" + MavenArtifactUtil.relativeArtifactHttpPath(split[0], split[1], split[2]) + classifier + ".jar");
+    }
+
+    public static ResourceLoader create(Path outerJar, String entryName) throws IOException {
+        UberJar jar = UberJar.of(outerJar);
+        if (jar == null) {
+            return null;
+        }
+        ZipDirectory outer = jar.getDirectory();
+
+        ZipDirectory.Entry entry = outer.getEntry(entryName);
+        if (entry == null || !entry.isStored()) {
+            return null;
+        }
+
+        ZipDirectory nested = ZipDirectory.read(outer.getData(entry));
+
+        String rootName = entryName;
+        int slashLoc = rootName.lastIndexOf('/');
+        if (slashLoc >= 0) {
+            rootName = rootName.substring(slashLoc + 1);
+        }
+
+        URL rootUrl = new URL("jar:" + outerJar.toUri().toURL().toExternalForm() + "!/" + entryName);
+        Handler.install();
+        Handler.register(rootUrl.toExternalForm(), nested);
+        return new NestedJarResourceLoader(rootName, rootUrl, nested);
+    }
+
+    @Override
+    public String getRootName() {
+        return this.rootName;
+    }
+
+    @Override
+    public ClassSpec getClassSpec(String fileName) throws IOException {
+        ZipDirectory.Entry entry = this.directory.getEntry(fileName);
+        if (entry == null) {
+            return null;
+        }
+        ClassSpec spec = new ClassSpec();
+        spec.setCodeSource(this.codeSource);
+        spec.setBytes(this.directory.read(entry));
+        return spec;
+    }
+
+    @Override
+    public PackageSpec getPackageSpec(String name) throws IOException {
+        return getPackageSpec(name, getManifest(), this.rootUrl);
+    }
+
+    @Override
+    public Resource getResource(String name) {
+        String path = PathUtils.canonicalize(PathUtils.relativize(name));
+        ZipDirectory.Entry entry = this.directory.getEntry(path);
+        if (entry == null) {
+            return null;
+        }
+        return new NestedResource(entry);
+    }
+
+    @Override
+    public String getLibrary(String name) {
+        return null;
+    }
+
+    @Override
+    public Collection<String> getPaths() {
+        Set<String> paths = this.paths;
+        if (paths == null) {
+            paths = new HashSet<>();
+            paths.add("");
+            for (ZipDirectory.Entry each : this.directory.getEntries()) {
+                String name = each.getName();
+                if (each.isDirectory()) {
+                    name = name.substring(0, name.length() - 1);
+                    paths.add(name);
+                } else {
+                    int slashLoc = name.lastIndexOf('/');
+                    if (slashLoc > 0) {
+                        paths.add(name.substring(0, slashLoc));
+                    }
+                }
+            }
+            this.paths = paths;
+        }
+        return paths;
+    }
+
+    private Manifest getManifest() throws IOException {
+        if (this.manifest == null) {
+            ZipDirectory.Entry entry = this.directory.getEntry("META-INF/MANIFEST.MF");
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream in = this.directory.openStream(entry)) {
+                this.manifest = new Manifest(in);
+            }
+        }
+        return this.manifest;
+    }
+
+    public String toString() {
+        return "NestedJarResourceLoader: " + this.rootUrl;
+    }
+
+    private class NestedResource implements Resource {
+
+        private final ZipDirectory.Entry entry;
+
+        NestedResource(ZipDirectory.Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public String getName() {
+            return this.entry.getName();
+        }
+
+        @Override
+        public URL getURL() {
+            try {
+                return Handler.toURL(rootUrl.toExternalForm(), this.entry.getName());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return directory.openStream(this.entry);
+        }
+
+        @Override
+        public long getSize() {
+            return this.entry.getSize();
+        }
+    }
+}
@@ -25,6 +25,9 @@ import org.jboss.modules.Module;
 import org.jboss.modules.ModuleIdentifier;
 import org.jboss.modules.ModuleLoadException;
 import org.wildfly.swarm.bootstrap.modules.BootModuleLoader;
+import org.wildfly.swarm.bootstrap.modules.ClassLoadRecorder;
+import org.wildfly.swarm.bootstrap.modules.ClassPreloader;
+import org.wildfly.swarm.bootstrap.util.BootTimeline;
 import org.wildfly.swarm.bootstrap.util.Layout;
 import org.wildfly.swarm.bootstrap.util.UberJarManifest;
 
@@ -47,7 +50,13 @@ public class Main {
 
     public void run() throws Throwable {
         setupBootModuleLoader();
-        invoke(getMainClass());
+        ClassLoadRecorder.installIfRequested();
+        ClassPreloader.startIfAvailable();
+        Class<?> mainClass;
+        try (BootTimeline.Phase phase = BootTimeline.begin("bootstrap: load main class")) {
+            mainClass = getMainClass();
+        }
+        invoke(mainClass);
     }
 
     public void setupBootModuleLoader() {
@@ -16,9 +16,10 @@
 package org.wildfly.swarm.bootstrap.m2;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
+
+import org.wildfly.swarm.bootstrap.util.ExtractionCache;
 
 /**
  * @author Bob McWhirter
@@ -33,30 +34,10 @@ public class JarRepositoryResolver extends RepositoryResolver {
         path.append(SEPARATOR);
         path.append(gavToPath(gav));
 
-        InputStream in = this.getClass().getClassLoader().getResourceAsStream(path.toString());
-        if (in == null) {
+        Path extracted = ExtractionCache.getInstance().extract(this.getClass().getClassLoader(), path.toString());
+        if (extracted == null) {
             return null;
         }
-
-        try {
-            File tmp = File.createTempFile(gav.replace(':', '~'), ".jar");
-            tmp.deleteOnExit();
-
-            FileOutputStream out = new FileOutputStream(tmp);
-
-            try {
-                byte[] buf = new byte[1024];
-                int len = -1;
-
-                while ((len = in.read(buf)) >= 0) {
-                    out.write(buf, 0, len);
-                }
-            } finally {
-                out.close();
-            }
-            return tmp;
-        } finally {
-            in.close();
-        }
+        return extracted.toFile();
     }
 }
@@ -31,6 +31,7 @@ import org.jboss.modules.ModuleLoader;
 import org.jboss.modules.ModuleSpec;
 import org.jboss.modules.filter.ClassFilters;
 import org.jboss.modules.filter.PathFilters;
+import org.wildfly.swarm.bootstrap.util.ApplicationPackageIndex;
 import org.wildfly.swarm.bootstrap.util.Layout;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmApplicationConf;
 
@@ -112,7 +113,22 @@ public class ApplicationModuleFinder extends AbstractSingleModuleFinder {
         InputStream appConf = getClass().getClassLoader().getResourceAsStream(WildFlySwarmApplicationConf.CLASSPATH_LOCATION);
         if (appConf != null) {
             WildFlySwarmApplicationConf conf = new WildFlySwarmApplicationConf(appConf);
-            conf.apply( builder );
+            conf.apply( builder, loadPackageIndex() );
+        }
+    }
+
+    protected ApplicationPackageIndex loadPackageIndex() {
+        if ("false".equals(System.getProperty(ApplicationPackageIndex.PACKAGES_PROPERTY))) {
+            return null;
+        }
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(ApplicationPackageIndex.CLASSPATH_LOCATION)) {
+            if (in == null) {
+                return null;
+            }
+            return new ApplicationPackageIndex(in);
+        } catch (IOException e) {
+            System.err.println("[WARN] unable to read application package index: " + e.getMessage());
+            return null;
         }
     }
 }
@@ -17,8 +17,12 @@ package org.wildfly.swarm.bootstrap.modules;
 
 import java.io.IOException;
 
+import org.jboss.modules.Module;
 import org.jboss.modules.ModuleFinder;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoadException;
 import org.jboss.modules.ModuleLoader;
+import org.wildfly.swarm.bootstrap.util.BootTimeline;
 
 /**
  * @author Bob McWhirter
@@ -33,4 +37,14 @@ public class BootModuleLoader extends ModuleLoader {
                 new ApplicationModuleFinder(),
         });
     }
+
+    @Override
+    protected Module preloadModule(ModuleIdentifier identifier) throws ModuleLoadException {
+        if (findLoadedModuleLocal(identifier) != null) {
+            return super.preloadModule(identifier);
+        }
+        try (BootTimeline.Phase phase = BootTimeline.begin("load module " + identifier)) {
+            return super.preloadModule(identifier);
+        }
+    }
 }
@@ -15,15 +15,12 @@
  */
 package org.wildfly.swarm.bootstrap.modules;
 
-import org.jboss.modules.Environment;
 import org.jboss.modules.ModuleFinder;
 import org.jboss.modules.ModuleIdentifier;
 import org.jboss.modules.ModuleLoadException;
 import org.jboss.modules.ModuleLoader;
 import org.jboss.modules.ModuleSpec;
-import org.jboss.modules.ModuleXmlParserBridge;
-import org.jboss.modules.ResourceLoader;
-import org.wildfly.swarm.bootstrap.util.Layout;
+import org.wildfly.swarm.bootstrap.util.ModuleIndex;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +35,14 @@ public class BootstrapClasspathModuleFinder implements ModuleFinder {
     public ModuleSpec findModule(ModuleIdentifier identifier, ModuleLoader delegateLoader) throws ModuleLoadException {
         final String path = "modules/" + identifier.getName().replace('.', '/') + "/" + identifier.getSlot() + "/module.xml";
 
+        ModuleIndex index = ModuleIndex.getInstance();
+        if (index != null) {
+            ModuleIndex.Entry entry = index.getEntry(identifier.getName(), identifier.getSlot());
+            if (entry == null || entry.getSource() != ModuleIndex.Source.ROOT) {
+                return null;
+            }
+        }
+
         ClassLoader cl = BootstrapClasspathModuleFinder.class.getClassLoader();
         InputStream in = cl.getResourceAsStream(path);
 
@@ -47,12 +52,7 @@ public class BootstrapClasspathModuleFinder implements ModuleFinder {
 
         ModuleSpec moduleSpec = null;
         try {
-            moduleSpec = ModuleXmlParserBridge.parseModuleXml(new ModuleXmlParserBridge.ResourceRootFactoryBridge() {
-                @Override
-                public ResourceLoader createResourceLoader(final String rootPath, final String loaderPath, final String loaderName) throws IOException {
-                    return Environment.getModuleResourceLoader(rootPath, loaderPath, loaderName);
-                }
-            }, "/", in, path.toString(), delegateLoader, identifier);
+            moduleSpec = ClasspathModuleFinder.loadModuleSpec(in, path, delegateLoader, identifier);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.modules.Module;
+import org.wildfly.swarm.bootstrap.util.PreloadList;
+
+/**
+ * Records the classes each module defines during a training run, for {@link ClassPreloader}.
+ *
+ * <p>Enabled with <code>swarm.preload.record=&lt;file&gt;</code>. Recording stops a moment
+ * (<code>swarm.preload.record.settle</code>, 2000ms by default) after the first HTTP
+ * connection is read, so it covers boot and the first request; or when the JVM exits,
+ * whichever comes first. Set <code>swarm.preload.record.until</code> to the name of another
+ * class whose definition should stop the recording instead. Pass the file to the build as
+ * the preload list to embed it in the uber-jar.</p>
+ *
+ * <p>The module logger already installed keeps receiving every call while recording, and is
+ * put back once recording stops.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ClassLoadRecorder extends DelegatingModuleLogger {
+
+    public static final String RECORD_PROPERTY = "swarm.preload.record";
+
+    public static final String UNTIL_PROPERTY = "swarm.preload.record.until";
+
+    public static final String SETTLE_PROPERTY = "swarm.preload.record.settle";
+
+    /** Created when the first HTTP connection is read from. */
+    private static final String DEFAULT_UNTIL = "io.undertow.server.protocol.http.HttpReadListener";
+
+    private final PreloadList list = new PreloadList();
+
+    private final Path file;
+
+    private final String until;
+
+    private final long settle;
+
+    private final AtomicBoolean stopping = new AtomicBoolean();
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    ClassLoadRecorder(Path file, String until, long settle) {
+        this.file = file;
+        this.until = until;
+        this.settle = settle;
+    }
+
+    /**
+     * Start recording, if requested.
+     */
+    public static void installIfRequested() {
+        String file = System.getProperty(RECORD_PROPERTY);
+        if (file == null || file.isEmpty() || "false".equals(file)) {
+            return;
+        }
+        if ("true".equals(file)) {
+            file = "wildfly-swarm-preload.txt";
+        }
+
+        ClassLoadRecorder recorder = new ClassLoadRecorder(
+                Paths.get(file),
+                System.getProperty(UNTIL_PROPERTY, DEFAULT_UNTIL),
+                Long.getLong(SETTLE_PROPERTY, 2000));
+
+        recorder.install();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(recorder::stop, "swarm-preload-recorder-shutdown"));
+    }
+
+    @Override
+    void classDefined(String className, Module module) {
+        record(module.getIdentifier().toString(), className);
+    }
+
+    void record(String identifier, String className) {
+        if (this.stopped.get()) {
+            return;
+        }
+        if (!identifier.startsWith("deployment.")) {
+            // deployments are not loaded by the boot module loader, so cannot be preloaded
+            this.list.add(identifier, className);
+        }
+
+        if (className.equals(this.until) && this.stopping.compareAndSet(false, true)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    Thread.sleep(this.settle);
+                } catch (InterruptedException e) {
+                    // stop now
+                }
+                stop();
+            }, "swarm-preload-recorder");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    void stop() {
+        if (!this.stopped.compareAndSet(false, true)) {
+            return;
+        }
+        uninstall();
+
+        try {
+            Path parent = this.file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream out = Files.newOutputStream(this.file)) {
+                this.list.write(out);
+            }
+            System.err.println("[INFO] recorded " + this.list.size() + " classes to preload in " + this.file.toAbsolutePath());
+        } catch (IOException e) {
+            System.err.println("[WARN] unable to write preload list " + this.file + ": " + e.getMessage());
+        }
+    }
+
+    PreloadList getList() {
+        return this.list;
+    }
+}
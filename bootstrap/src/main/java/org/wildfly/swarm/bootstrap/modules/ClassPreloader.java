@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoader;
+import org.wildfly.swarm.bootstrap.util.PreloadList;
+
+/**
+ * Loads the classes of an embedded preload list on background threads, while the
+ * container boots on the main thread.
+ *
+ * <p>The list is recorded by {@link ClassLoadRecorder} and embedded in the uber-jar at
+ * {@link PreloadList#CLASSPATH_LOCATION}. Classes are loaded without being initialized, and
+ * anything that fails to load is skipped. Set <code>swarm.preload=false</code> to turn it off,
+ * <code>swarm.preload.&lt;module&gt;=false</code> to skip one module, and
+ * <code>swarm.preload.threads</code> to change the number of threads (two by default).</p>
+ *
+ * <p>With a lean boot (<code>swarm.boot.lean=true</code>) the list may name modules of
+ * fractions that will not be booted, so a module's classes are only preloaded once the boot
+ * itself has loaded the module.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ClassPreloader {
+
+    public static final String PRELOAD_PROPERTY = "swarm.preload";
+
+    public static final String THREADS_PROPERTY = "swarm.preload.threads";
+
+    /** As <code>RuntimeServer.LEAN_PROPERTY</code>, which the bootstrap cannot see. */
+    static final String LEAN_PROPERTY = "swarm.boot.lean";
+
+    private final PreloadList list;
+
+    private final Executor executor;
+
+    private final Set<String> started = ConcurrentHashMap.newKeySet();
+
+    private final DelegatingModuleLogger moduleLogger = new DelegatingModuleLogger() {
+        @Override
+        void moduleDefined(ModuleIdentifier identifier, ModuleLoader moduleLoader) {
+            ClassPreloader.this.preloadAsync(identifier.toString());
+        }
+    };
+
+    ClassPreloader(PreloadList list, Executor executor) {
+        this.list = list;
+        this.executor = executor;
+    }
+
+    /**
+     * Start preloading in the background, if the uber-jar carries a preload list.
+     */
+    public static void startIfAvailable() {
+        if ("false".equals(System.getProperty(PRELOAD_PROPERTY))) {
+            return;
+        }
+        if (System.getProperty(ClassLoadRecorder.RECORD_PROPERTY) != null) {
+            // a training run must see every class load
+            return;
+        }
+
+        PreloadList list;
+        try (InputStream in = ClassPreloader.class.getClassLoader().getResourceAsStream(PreloadList.CLASSPATH_LOCATION)) {
+            if (in == null) {
+                return;
+            }
+            list = new PreloadList(in);
+        } catch (IOException e) {
+            System.err.println("[WARN] unable to read preload list: " + e.getMessage());
+            return;
+        }
+
+        new ClassPreloader(list, executor(Integer.getInteger(THREADS_PROPERTY, 2)))
+                .start("true".equals(System.getProperty(LEAN_PROPERTY)));
+    }
+
+    private static Executor executor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "swarm-preload-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @param lean Wait for the boot to load each module, rather than loading them all.
+     */
+    void start(boolean lean) {
+        if (lean) {
+            this.moduleLogger.install();
+            return;
+        }
+        for (String each : this.list.getModules()) {
+            preloadAsync(each);
+        }
+    }
+
+    void preloadAsync(String moduleIdentifier) {
+        if (this.list.getClasses(moduleIdentifier).isEmpty()) {
+            return;
+        }
+        String name = ModuleIdentifier.fromString(moduleIdentifier).getName();
+        if ("false".equals(System.getProperty(PRELOAD_PROPERTY + "." + name))) {
+            return;
+        }
+        if (!this.started.add(moduleIdentifier)) {
+            return;
+        }
+        if (this.started.size() == this.list.getModules().size()) {
+            // nothing left to wait for
+            this.moduleLogger.uninstall();
+        }
+        this.executor.execute(() -> preload(moduleIdentifier));
+    }
+
+    int preload(String moduleIdentifier) {
+        ClassLoader loader;
+        try {
+            Module module = Module.getBootModuleLoader().loadModule(ModuleIdentifier.fromString(moduleIdentifier));
+            loader = module.getClassLoader();
+        } catch (Throwable t) {
+            return 0;
+        }
+
+        int loaded = 0;
+        List<String> classes = this.list.getClasses(moduleIdentifier);
+        for (String each : classes) {
+            try {
+                Class.forName(each, false, loader);
+                ++loaded;
+            } catch (Throwable t) {
+                // recorded in another configuration; nothing to gain
+            }
+        }
+        return loaded;
+    }
+}
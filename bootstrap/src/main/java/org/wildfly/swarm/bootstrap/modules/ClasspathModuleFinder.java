@@ -15,6 +15,8 @@
  */
 package org.wildfly.swarm.bootstrap.modules;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
@@ -27,7 +29,9 @@ import org.jboss.modules.ModuleLoader;
 import org.jboss.modules.ModuleSpec;
 import org.jboss.modules.ModuleXmlParserBridge;
 import org.jboss.modules.ResourceLoader;
+import org.wildfly.swarm.bootstrap.util.CompiledModuleDescriptor;
 import org.wildfly.swarm.bootstrap.util.Layout;
+import org.wildfly.swarm.bootstrap.util.ModuleIndex;
 
 /**
  * @author Bob McWhirter
@@ -39,11 +43,28 @@ public class ClasspathModuleFinder implements ModuleFinder {
         final String path = "modules/" + identifier.getName().replace('.', '/') + "/" + identifier.getSlot() + "/module.xml";
 
         try {
-            ClassLoader cl = Layout.getInstance().getBootstrapClassLoader();
-            InputStream in = cl.getResourceAsStream(path);
+            InputStream in = null;
 
-            if (in == null && cl != ClasspathModuleFinder.class.getClassLoader()) {
-                in = ClasspathModuleFinder.class.getClassLoader().getResourceAsStream(path);
+            ModuleIndex index = ModuleIndex.getInstance();
+            if (index != null) {
+                ModuleIndex.Entry entry = index.getEntry(identifier.getName(), identifier.getSlot());
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.getSource() == ModuleIndex.Source.BOOTSTRAP) {
+                    in = Layout.getInstance().getBootstrapClassLoader().getResourceAsStream(path);
+                } else {
+                    in = ClasspathModuleFinder.class.getClassLoader().getResourceAsStream(path);
+                }
+            }
+
+            if (in == null) {
+                ClassLoader cl = Layout.getInstance().getBootstrapClassLoader();
+                in = cl.getResourceAsStream(path);
+
+                if (in == null && cl != ClasspathModuleFinder.class.getClassLoader()) {
+                    in = ClasspathModuleFinder.class.getClassLoader().getResourceAsStream(path);
+                }
             }
 
             if (in == null) {
@@ -52,12 +73,7 @@ public class ClasspathModuleFinder implements ModuleFinder {
 
             ModuleSpec moduleSpec = null;
             try {
-                moduleSpec = ModuleXmlParserBridge.parseModuleXml(new ModuleXmlParserBridge.ResourceRootFactoryBridge() {
-                    @Override
-                    public ResourceLoader createResourceLoader(final String rootPath, final String loaderPath, final String loaderName) throws IOException {
-                        return Environment.getModuleResourceLoader(rootPath, loaderPath, loaderName);
-                    }
-                }, "/", in, path.toString(), delegateLoader, identifier);
+                moduleSpec = loadModuleSpec(in, path, delegateLoader, identifier);
 
             } catch (IOException e) {
                 throw new ModuleLoadException(e);
@@ -76,4 +92,61 @@ public class ClasspathModuleFinder implements ModuleFinder {
         }
 
     }
+
+    /**
+     * Build a module from its <code>module.xml</code>, using the descriptor compiled
+     * into the uber-jar when there is one matching it.
+     */
+    static ModuleSpec loadModuleSpec(InputStream in, String path, ModuleLoader delegateLoader, ModuleIdentifier identifier) throws ModuleLoadException, IOException {
+        ModuleXmlParserBridge.ResourceRootFactoryBridge factory = new ModuleXmlParserBridge.ResourceRootFactoryBridge() {
+            @Override
+            public ResourceLoader createResourceLoader(final String rootPath, final String loaderPath, final String loaderName) throws IOException {
+                return Environment.getModuleResourceLoader(rootPath, loaderPath, loaderName);
+            }
+        };
+
+        CompiledModuleDescriptor descriptor = loadDescriptor(identifier);
+        if (descriptor != null) {
+            byte[] xml = readFully(in);
+            if (descriptor.getCrc() == CompiledModuleDescriptor.crc(xml)) {
+                return ModuleXmlParserBridge.buildModuleSpec(factory, "/", descriptor, path, delegateLoader, identifier);
+            }
+            in = new ByteArrayInputStream(xml);
+        }
+
+        return ModuleXmlParserBridge.parseModuleXml(factory, "/", in, path, delegateLoader, identifier);
+    }
+
+    private static CompiledModuleDescriptor loadDescriptor(ModuleIdentifier identifier) {
+        if ("false".equals(System.getProperty(CompiledModuleDescriptor.DESCRIPTORS_PROPERTY))) {
+            return null;
+        }
+        try {
+            if (!Layout.getInstance().isUberJar()) {
+                return null;
+            }
+            InputStream in = ClasspathModuleFinder.class.getClassLoader().getResourceAsStream(
+                    CompiledModuleDescriptor.path(identifier.getName(), identifier.getSlot()));
+            if (in == null) {
+                return null;
+            }
+            CompiledModuleDescriptor descriptor = new CompiledModuleDescriptor(in);
+            if (!descriptor.getName().equals(identifier.getName()) || !descriptor.getSlot().equals(identifier.getSlot())) {
+                return null;
+            }
+            return descriptor;
+        } catch (IOException | URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) >= 0) {
+            out.write(buf, 0, len);
+        }
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.modules.log.ModuleLogger;
+
+/**
+ * A module logger that observes module and class definitions, passing every call on to the
+ * logger it replaced.
+ *
+ * <p>The module system has a single logger, so {@link #install()} wraps whatever is installed,
+ * and {@link #uninstall()} puts it back, unless another logger has been installed since.</p>
+ */
+abstract class DelegatingModuleLogger implements InvocationHandler {
+
+    private ModuleLogger previous;
+
+    private ModuleLogger proxy;
+
+    synchronized void install() {
+        if (this.proxy != null) {
+            return;
+        }
+        this.previous = Module.getModuleLogger();
+        this.proxy = (ModuleLogger) Proxy.newProxyInstance(
+                ModuleLogger.class.getClassLoader(),
+                new Class<?>[]{ModuleLogger.class},
+                this);
+        Module.setModuleLogger(this.proxy);
+    }
+
+    synchronized void uninstall() {
+        if (this.proxy == null) {
+            return;
+        }
+        if (Module.getModuleLogger() == this.proxy) {
+            Module.setModuleLogger(this.previous);
+        }
+        this.proxy = null;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, args);
+        }
+
+        if ("moduleDefined".equals(method.getName()) && args != null && args.length == 2) {
+            moduleDefined((ModuleIdentifier) args[0], (ModuleLoader) args[1]);
+        } else if ("classDefined".equals(method.getName()) && args != null && args.length == 2) {
+            classDefined((String) args[0], (Module) args[1]);
+        }
+
+        try {
+            return method.invoke(this.previous, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    void moduleDefined(ModuleIdentifier identifier, ModuleLoader moduleLoader) {
+
+    }
+
+    void classDefined(String className, Module module) {
+
+    }
+}
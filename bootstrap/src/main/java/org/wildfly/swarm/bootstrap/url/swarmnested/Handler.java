@@ -0,0 +1,149 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.url.swarmnested;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.swarm.bootstrap.util.UberJar;
+import org.wildfly.swarm.bootstrap.util.ZipDirectory;
+
+/**
+ * Handler for <code>swarmnested:</code> URLs, which address a resource of a jar stored
+ * inside the uber-jar, such as
+ * <code>swarmnested:jar:file:/app-swarm.jar!/m2repo/org/foo/foo/1.0/foo-1.0.jar!/META-INF/foo.xml</code>.
+ *
+ * <p>{@link #install()} adds this package to <code>java.protocol.handler.pkgs</code>, so
+ * the URLs handed out by nested resource loaders survive being turned into strings and
+ * parsed again, by <code>new URL(String)</code> or as the context of a relative URL.</p>
+ */
+public class Handler extends URLStreamHandler {
+
+    public static final String PROTOCOL = "swarmnested";
+
+    public static final Handler INSTANCE = new Handler();
+
+    private static final String HANDLER_PACKAGES_PROPERTY = "java.protocol.handler.pkgs";
+
+    private static final String HANDLER_PACKAGE = "org.wildfly.swarm.bootstrap.url";
+
+    private static final String SEPARATOR = "!/";
+
+    private static final Map<String, ZipDirectory> DIRECTORIES = new ConcurrentHashMap<>();
+
+    private static boolean INSTALLED;
+
+    public static synchronized void install() {
+        if (INSTALLED) {
+            return;
+        }
+        String packages = System.getProperty(HANDLER_PACKAGES_PROPERTY);
+        if (packages == null || packages.trim().isEmpty()) {
+            System.setProperty(HANDLER_PACKAGES_PROPERTY, HANDLER_PACKAGE);
+        } else if (!("|" + packages + "|").contains("|" + HANDLER_PACKAGE + "|")) {
+            System.setProperty(HANDLER_PACKAGES_PROPERTY, packages + "|" + HANDLER_PACKAGE);
+        }
+        INSTALLED = true;
+    }
+
+    /**
+     * Remember the directory of a nested jar, so its URLs are served without reading it again.
+     *
+     * @param rootUrl   The nested jar, such as <code>jar:file:/app-swarm.jar!/m2repo/org/foo/foo/1.0/foo-1.0.jar</code>.
+     * @param directory Its directory.
+     */
+    public static void register(String rootUrl, ZipDirectory directory) {
+        DIRECTORIES.put(rootUrl, directory);
+    }
+
+    public static URL toURL(String rootUrl, String name) throws IOException {
+        return new URL(PROTOCOL, null, -1, rootUrl + SEPARATOR + name, INSTANCE);
+    }
+
+    @Override
+    protected URLConnection openConnection(URL url) throws IOException {
+        String file = url.getFile();
+        int separatorLoc = file.lastIndexOf(SEPARATOR);
+        if (separatorLoc < 0) {
+            throw new IOException("Not a nested resource: " + url);
+        }
+        ZipDirectory directory = directoryOf(file.substring(0, separatorLoc));
+        String name = file.substring(separatorLoc + SEPARATOR.length());
+        ZipDirectory.Entry entry = directory.getEntry(name);
+        if (entry == null) {
+            throw new IOException("No such resource: " + url);
+        }
+        return new URLConnection(url) {
+            @Override
+            public void connect() throws IOException {
+                this.connected = true;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return directory.openStream(entry);
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return entry.getSize();
+            }
+
+            @Override
+            public int getContentLength() {
+                return entry.getSize() > Integer.MAX_VALUE ? -1 : (int) entry.getSize();
+            }
+        };
+    }
+
+    private static ZipDirectory directoryOf(String rootUrl) throws IOException {
+        ZipDirectory directory = DIRECTORIES.get(rootUrl);
+        if (directory != null) {
+            return directory;
+        }
+
+        // a URL from an earlier run, or parsed before its loader was created
+        int separatorLoc = rootUrl.indexOf(SEPARATOR);
+        if (!rootUrl.startsWith("jar:") || separatorLoc < 0) {
+            throw new IOException("Not a nested jar: " + rootUrl);
+        }
+        UberJar jar;
+        try {
+            jar = UberJar.of(Paths.get(new URI(rootUrl.substring("jar:".length(), separatorLoc))));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Not a nested jar: " + rootUrl, e);
+        }
+        if (jar == null) {
+            throw new IOException("Unable to read " + rootUrl);
+        }
+        ZipDirectory outer = jar.getDirectory();
+        ZipDirectory.Entry entry = outer.getEntry(rootUrl.substring(separatorLoc + SEPARATOR.length()));
+        if (entry == null || !entry.isStored()) {
+            throw new IOException("No such stored jar: " + rootUrl);
+        }
+        directory = ZipDirectory.read(outer.getData(entry));
+        DIRECTORIES.put(rootUrl, directory);
+        return directory;
+    }
+}
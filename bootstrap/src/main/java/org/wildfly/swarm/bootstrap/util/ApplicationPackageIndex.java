@@ -0,0 +1,126 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The paths each module dependency of the application module can provide, computed when
+ * the uber-jar is built.
+ *
+ * <p>Module dependencies listed here are imported with a filter accepting only their paths,
+ * instead of everything, which keeps the application module's lookup tables small and
+ * class and resource searches away from modules that cannot satisfy them. Modules not
+ * listed are still imported in full. Set <code>swarm.application.packages=false</code> to
+ * ignore the index.</p>
+ *
+ * <p>One <code>module-identifier path</code> pair per line, the path being a directory such
+ * as <code>org/wildfly/swarm/undertow</code>; blank lines and lines starting with
+ * <code>#</code> are ignored.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ApplicationPackageIndex {
+
+    public static final String CLASSPATH_LOCATION = "META-INF/wildfly-swarm-application-packages.txt";
+
+    public static final String PACKAGES_PROPERTY = "swarm.application.packages";
+
+    private final Map<String, Set<String>> paths = new LinkedHashMap<>();
+
+    public ApplicationPackageIndex() {
+
+    }
+
+    public ApplicationPackageIndex(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            if (space < 0) {
+                // a module providing nothing but the root
+                add(line, "");
+            } else {
+                add(line.substring(0, space), line.substring(space + 1).trim());
+            }
+        }
+    }
+
+    public void add(String module, String path) {
+        this.paths.computeIfAbsent(module, k -> new TreeSet<>()).add(path);
+    }
+
+    public void addAll(String module, Set<String> paths) {
+        this.paths.computeIfAbsent(module, k -> new TreeSet<>()).addAll(paths);
+    }
+
+    public boolean contains(String module) {
+        return this.paths.containsKey(module);
+    }
+
+    public List<String> getModules() {
+        return new ArrayList<>(this.paths.keySet());
+    }
+
+    /**
+     * @return The paths the module provides, or <code>null</code> if it is not indexed.
+     */
+    public Set<String> getPaths(String module) {
+        Set<String> paths = this.paths.get(module);
+        if (paths == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(paths);
+    }
+
+    public boolean isEmpty() {
+        return this.paths.isEmpty();
+    }
+
+    public void write(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("# paths provided by the application module's dependencies\n");
+        for (Map.Entry<String, Set<String>> each : this.paths.entrySet()) {
+            for (String path : each.getValue()) {
+                writer.write(each.getKey());
+                if (!path.isEmpty()) {
+                    writer.write(' ');
+                    writer.write(path);
+                }
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+}
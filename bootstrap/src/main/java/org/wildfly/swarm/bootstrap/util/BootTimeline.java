@@ -0,0 +1,264 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how long each phase of boot takes, across the bootstrap, container and deployer.
+ *
+ * <p>Set <code>swarm.boot.timeline</code> to <code>json</code>, <code>table</code> or
+ * <code>true</code> (both) to have phases recorded, and the timeline printed once the
+ * container has started and after each deployment. Otherwise phases cost nothing and
+ * are not kept. At most 10000 phases are kept, so redeploying in a loop does not grow
+ * the timeline without bound.</p>
+ *
+ * <p>While it is recorded, the timeline is also the <code>boot-timeline</code> attribute of
+ * the <code>swarm</code> subsystem, as JSON.</p>
+ *
+ * <pre>
+ * try (BootTimeline.Phase phase = BootTimeline.begin("container: create server")) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Bob McWhirter
+ */
+public final class BootTimeline {
+
+    public static final String TIMELINE_PROPERTY = "swarm.boot.timeline";
+
+    private static final long ORIGIN = System.nanoTime();
+
+    private static final long UPTIME_AT_ORIGIN = determineUptime();
+
+    private static final int MAX_EVENTS = 10_000;
+
+    private static final Queue<Event> EVENTS = new ConcurrentLinkedQueue<>();
+
+    private static final AtomicInteger EVENT_COUNT = new AtomicInteger();
+
+    private static final Phase DISABLED = new Phase(null, 0) {
+        @Override
+        public void close() {
+        }
+    };
+
+    private static final ThreadLocal<Integer> DEPTH = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    };
+
+    private BootTimeline() {
+
+    }
+
+    public static class Event {
+
+        private final String name;
+
+        private final String thread;
+
+        private final int depth;
+
+        private final long start;
+
+        private final long end;
+
+        Event(String name, String thread, int depth, long start, long end) {
+            this.name = name;
+            this.thread = thread;
+            this.depth = depth;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getThread() {
+            return this.thread;
+        }
+
+        public int getDepth() {
+            return this.depth;
+        }
+
+        /** Milliseconds since the timeline started. */
+        public double getStartMillis() {
+            return (this.start - ORIGIN) / 1_000_000.0;
+        }
+
+        public double getDurationMillis() {
+            return (this.end - this.start) / 1_000_000.0;
+        }
+    }
+
+    public static class Phase implements AutoCloseable {
+
+        private final String name;
+
+        private final int depth;
+
+        private final long start;
+
+        private boolean closed;
+
+        Phase(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            DEPTH.set(this.depth);
+            if (EVENT_COUNT.incrementAndGet() > MAX_EVENTS) {
+                return;
+            }
+            EVENTS.add(new Event(this.name, Thread.currentThread().getName(), this.depth, this.start, System.nanoTime()));
+        }
+    }
+
+    public static Phase begin(String name) {
+        if (!isReportRequested()) {
+            return DISABLED;
+        }
+        int depth = DEPTH.get();
+        DEPTH.set(depth + 1);
+        return new Phase(name, depth);
+    }
+
+    public static boolean isReportRequested() {
+        String value = System.getProperty(TIMELINE_PROPERTY);
+        return value != null && !"false".equals(value);
+    }
+
+    public static List<Event> getEvents() {
+        List<Event> events = new ArrayList<>(EVENTS);
+        events.sort(Comparator.comparingLong((Event e) -> e.start).thenComparingInt(e -> e.depth));
+        return events;
+    }
+
+    public static String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"jvmUptimeAtStartMillis\":").append(UPTIME_AT_ORIGIN).append(",\"phases\":[");
+        boolean first = true;
+        for (Event each : getEvents()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"name\":");
+            appendJsonString(json, each.name);
+            json.append(",\"thread\":");
+            appendJsonString(json, each.thread);
+            json.append(",\"depth\":").append(each.depth);
+            json.append(",\"startMillis\":").append(String.format(Locale.ROOT, "%.3f", each.getStartMillis()));
+            json.append(",\"durationMillis\":").append(String.format(Locale.ROOT, "%.3f", each.getDurationMillis()));
+            json.append('}');
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    public static String toTable() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("Boot timeline (JVM uptime at start: %d ms)%n", UPTIME_AT_ORIGIN));
+        table.append(String.format("%12s %12s  %s%n", "start (ms)", "took (ms)", "phase"));
+        for (Event each : getEvents()) {
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < each.depth; ++i) {
+                name.append("  ");
+            }
+            name.append(each.name);
+            if (!each.thread.equals("main")) {
+                name.append(" [").append(each.thread).append(']');
+            }
+            table.append(String.format("%12.1f %12.1f  %s%n", each.getStartMillis(), each.getDurationMillis(), name));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Print the timeline, in the format(s) requested through <code>swarm.boot.timeline</code>.
+     */
+    public static void report() {
+        String value = System.getProperty(TIMELINE_PROPERTY);
+        if (value == null || "false".equals(value)) {
+            return;
+        }
+        if (!"json".equals(value)) {
+            System.err.print(toTable());
+        }
+        if (!"table".equals(value)) {
+            System.err.println(toJson());
+        }
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static long determineUptime() {
+        try {
+            return ManagementFactory.getRuntimeMXBean().getUptime();
+        } catch (Throwable t) {
+            return -1;
+        }
+    }
+}
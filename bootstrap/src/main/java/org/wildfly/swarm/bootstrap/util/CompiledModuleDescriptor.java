@@ -0,0 +1,325 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Binary form of a simple <code>module.xml</code>, compiled at build time so the
+ * module finders can skip XML parsing at boot.
+ *
+ * <p>Only the constructs used by typical fraction modules are supported: artifact and
+ * plain resource-root resources, module and system dependencies without nested
+ * filters, a main-class and properties.  Anything else is left as XML.  Each descriptor
+ * records the CRC of the <code>module.xml</code> it was compiled from, so a stale
+ * descriptor is ignored.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class CompiledModuleDescriptor {
+
+    public static final String DESCRIPTORS_PROPERTY = "swarm.module.descriptors";
+
+    private static final String LOCATION_PREFIX = "META-INF/wildfly-swarm-modules/";
+
+    private static final int MAGIC = 0x534d4d44;
+
+    private static final int VERSION = 1;
+
+    public enum Services {
+        NONE,
+        IMPORT,
+        EXPORT,
+    }
+
+    public static class Resource {
+
+        private final String artifact;
+
+        private final String name;
+
+        private final String path;
+
+        private Resource(String artifact, String name, String path) {
+            this.artifact = artifact;
+            this.name = name;
+            this.path = path;
+        }
+
+        public boolean isArtifact() {
+            return this.artifact != null;
+        }
+
+        public String getArtifact() {
+            return this.artifact;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+    }
+
+    public static class Dependency {
+
+        private final boolean system;
+
+        private final String name;
+
+        private final String slot;
+
+        private final boolean export;
+
+        private final boolean optional;
+
+        private final Services services;
+
+        private final Set<String> paths;
+
+        private Dependency(boolean system, String name, String slot, boolean export, boolean optional, Services services, Set<String> paths) {
+            this.system = system;
+            this.name = name;
+            this.slot = slot;
+            this.export = export;
+            this.optional = optional;
+            this.services = services;
+            this.paths = paths;
+        }
+
+        public boolean isSystem() {
+            return this.system;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getSlot() {
+            return this.slot;
+        }
+
+        public boolean isExport() {
+            return this.export;
+        }
+
+        public boolean isOptional() {
+            return this.optional;
+        }
+
+        public Services getServices() {
+            return this.services;
+        }
+
+        public Set<String> getPaths() {
+            return this.paths;
+        }
+    }
+
+    private final String name;
+
+    private final String slot;
+
+    private final long crc;
+
+    private String mainClass;
+
+    private final Map<String, String> properties = new LinkedHashMap<>();
+
+    private final List<Resource> resources = new ArrayList<>();
+
+    private final List<Dependency> dependencies = new ArrayList<>();
+
+    public CompiledModuleDescriptor(String name, String slot, long crc) {
+        this.name = name;
+        this.slot = slot;
+        this.crc = crc;
+    }
+
+    public CompiledModuleDescriptor(InputStream in) throws IOException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a compiled module descriptor");
+            }
+            int version = data.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compiled module descriptor version: " + version);
+            }
+            this.name = data.readUTF();
+            this.slot = data.readUTF();
+            this.crc = data.readLong();
+            this.mainClass = readOptionalUTF(data);
+
+            int count = data.readInt();
+            for (int i = 0; i < count; ++i) {
+                this.properties.put(data.readUTF(), data.readUTF());
+            }
+
+            count = data.readInt();
+            for (int i = 0; i < count; ++i) {
+                this.resources.add(new Resource(readOptionalUTF(data), readOptionalUTF(data), readOptionalUTF(data)));
+            }
+
+            count = data.readInt();
+            for (int i = 0; i < count; ++i) {
+                boolean system = data.readBoolean();
+                String depName = readOptionalUTF(data);
+                String depSlot = readOptionalUTF(data);
+                boolean export = data.readBoolean();
+                boolean optional = data.readBoolean();
+                Services services = Services.values()[data.readUnsignedByte()];
+                int pathCount = data.readInt();
+                Set<String> paths = new LinkedHashSet<>();
+                for (int j = 0; j < pathCount; ++j) {
+                    paths.add(data.readUTF());
+                }
+                this.dependencies.add(new Dependency(system, depName, depSlot, export, optional, services, paths));
+            }
+        }
+    }
+
+    /**
+     * Location of the descriptor for a module within the uber-jar.
+     */
+    public static String path(String name, String slot) {
+        return LOCATION_PREFIX + name.replace('.', '/') + "/" + slot + "/module.bin";
+    }
+
+    public static long crc(byte[] moduleXml) {
+        CRC32 crc = new CRC32();
+        crc.update(moduleXml);
+        return crc.getValue();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getSlot() {
+        return this.slot;
+    }
+
+    public long getCrc() {
+        return this.crc;
+    }
+
+    public String getMainClass() {
+        return this.mainClass;
+    }
+
+    public void setMainClass(String mainClass) {
+        this.mainClass = mainClass;
+    }
+
+    public Map<String, String> getProperties() {
+        return Collections.unmodifiableMap(this.properties);
+    }
+
+    public void addProperty(String name, String value) {
+        this.properties.put(name, value);
+    }
+
+    public List<Resource> getResources() {
+        return Collections.unmodifiableList(this.resources);
+    }
+
+    public void addArtifact(String artifact) {
+        this.resources.add(new Resource(artifact, null, null));
+    }
+
+    public void addResourceRoot(String name, String path) {
+        this.resources.add(new Resource(null, name, path));
+    }
+
+    public List<Dependency> getDependencies() {
+        return Collections.unmodifiableList(this.dependencies);
+    }
+
+    public void addModuleDependency(String name, String slot, boolean export, boolean optional, Services services) {
+        this.dependencies.add(new Dependency(false, name, slot, export, optional, services, Collections.emptySet()));
+    }
+
+    public void addSystemDependency(Set<String> paths, boolean export) {
+        this.dependencies.add(new Dependency(true, null, null, export, false, Services.NONE, new LinkedHashSet<>(paths)));
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeUTF(this.name);
+        data.writeUTF(this.slot);
+        data.writeLong(this.crc);
+        writeOptionalUTF(data, this.mainClass);
+
+        data.writeInt(this.properties.size());
+        for (Map.Entry<String, String> each : this.properties.entrySet()) {
+            data.writeUTF(each.getKey());
+            data.writeUTF(each.getValue());
+        }
+
+        data.writeInt(this.resources.size());
+        for (Resource each : this.resources) {
+            writeOptionalUTF(data, each.artifact);
+            writeOptionalUTF(data, each.name);
+            writeOptionalUTF(data, each.path);
+        }
+
+        data.writeInt(this.dependencies.size());
+        for (Dependency each : this.dependencies) {
+            data.writeBoolean(each.system);
+            writeOptionalUTF(data, each.name);
+            writeOptionalUTF(data, each.slot);
+            data.writeBoolean(each.export);
+            data.writeBoolean(each.optional);
+            data.writeByte(each.services.ordinal());
+            data.writeInt(each.paths.size());
+            for (String path : each.paths) {
+                data.writeUTF(path);
+            }
+        }
+        data.flush();
+    }
+
+    private static void writeOptionalUTF(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    private static String readOptionalUTF(DataInputStream data) throws IOException {
+        if (data.readBoolean()) {
+            return data.readUTF();
+        }
+        return null;
+    }
+}
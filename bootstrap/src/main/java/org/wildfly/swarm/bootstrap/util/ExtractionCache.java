@@ -0,0 +1,419 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * On-disk cache of entries extracted from the uber-jar.
+ *
+ * <p>Entries are keyed by the jar they come from, their name, size and CRC, all read from
+ * the jar's central directory, so an entry is written once and reused across restarts and
+ * between processes sharing the cache directory without being read again; a cached file is
+ * only reused if it still has the entry's size. Content with no such metadata is keyed by
+ * its SHA-256, computed while it is copied. Entries are published atomically, and once
+ * the cache grows past its size bound the least-recently-used entries not touched for a
+ * day are removed, so files other processes may still open are left alone.</p>
+ *
+ * <p>The directory must be private to the current user, as {@link PrivateDirectories}
+ * checks; otherwise extraction falls back to temporary files.</p>
+ *
+ * <ul>
+ * <li><code>swarm.extraction.cache</code> - set to <code>false</code> to extract to throw-away temporary files instead</li>
+ * <li><code>swarm.extraction.cache.dir</code> - cache location, defaults to <code>${java.io.tmpdir}/wildfly-swarm-cache-${user.name}</code></li>
+ * <li><code>swarm.extraction.cache.max-size</code> - size bound in megabytes, defaults to 512</li>
+ * </ul>
+ */
+public class ExtractionCache {
+
+    public static final String CACHE_PROPERTY = "swarm.extraction.cache";
+
+    public static final String CACHE_DIR_PROPERTY = "swarm.extraction.cache.dir";
+
+    public static final String CACHE_MAX_SIZE_PROPERTY = "swarm.extraction.cache.max-size";
+
+    private static final long DEFAULT_MAX_SIZE_MB = 512;
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private static final long STALE_PARTIAL_MILLIS = 60 * 60 * 1000;
+
+    private static final long PRUNE_GRACE_MILLIS = 24 * 60 * 60 * 1000;
+
+    private static ExtractionCache INSTANCE;
+
+    private final Path dir;
+
+    private final long maxSize;
+
+    private final Set<Path> inUse = ConcurrentHashMap.newKeySet();
+
+    public static synchronized ExtractionCache getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new ExtractionCache(determineDir(), determineMaxSize());
+        }
+        return INSTANCE;
+    }
+
+    ExtractionCache(Path dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return this.dir != null;
+    }
+
+    public Path getDirectory() {
+        return this.dir;
+    }
+
+    /**
+     * Extract a resource visible to a classloader.
+     *
+     * @param cl   The classloader to locate the resource through.
+     * @param path The resource path, such as <code>m2repo/org/foo/foo/1.0/foo-1.0.jar</code>.
+     * @return The extracted file, or <code>null</code> if the resource does not exist.
+     * @throws IOException If an error occurs while extracting.
+     */
+    public Path extract(ClassLoader cl, String path) throws IOException {
+        URL url = cl.getResource(path);
+        if (url == null) {
+            return null;
+        }
+
+        String key = null;
+        long size = -1;
+        URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection) {
+            JarURLConnection jarConnection = (JarURLConnection) connection;
+            ZipEntry entry = jarConnection.getJarEntry();
+            if (entry != null && entry.getSize() >= 0 && "file".equals(jarConnection.getJarFileURL().getProtocol())) {
+                size = entry.getSize();
+                key = key(jarConnection.getJarFileURL().getPath(), entry);
+            }
+        }
+
+        return extract(path, url::openStream, key, size);
+    }
+
+    /**
+     * Extract an entry of an opened jar.
+     *
+     * @param jar  The jar.
+     * @param path The entry path.
+     * @return The extracted file, or <code>null</code> if the entry does not exist.
+     * @throws IOException If an error occurs while extracting.
+     */
+    public Path extract(JarFile jar, String path) throws IOException {
+        ZipEntry entry = jar.getEntry(path);
+        if (entry == null) {
+            return null;
+        }
+        String key = entry.getSize() >= 0 ? key(jar.getName(), entry) : null;
+        return extract(path, () -> jar.getInputStream(entry), key, entry.getSize());
+    }
+
+    /**
+     * @param content The content to extract.
+     * @param key     Identifies the content without reading it, or <code>null</code> to key
+     *                it by the hash of the content, read once while it is copied.
+     * @param size    The size of the content, if keyed.
+     */
+    protected Path extract(String path, StreamSupplier content, String key, long size) throws IOException {
+        String name = baseName(path);
+        String ext = extension(path);
+
+        if (!isEnabled()) {
+            Path tmp = Files.createTempFile(name, ext);
+            tmp.toFile().deleteOnExit();
+            try (InputStream in = content.open()) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return tmp;
+        }
+
+        if (key == null) {
+            MessageDigest digest = sha256();
+            Path partial = copyToPartial(name, content, digest);
+            Path target = this.dir.resolve(name + "-" + toHex(digest.digest()) + ext);
+            if (isCached(target, Files.size(partial))) {
+                Files.deleteIfExists(partial);
+                return touch(target);
+            }
+            return publish(partial, target);
+        }
+
+        Path target = this.dir.resolve(name + "-" + key + ext);
+        if (isCached(target, size)) {
+            return touch(target);
+        }
+
+        Path partial = copyToPartial(name, content, null);
+        if (Files.size(partial) != size) {
+            Files.deleteIfExists(partial);
+            throw new IOException(path + " changed while being extracted");
+        }
+        return publish(partial, target);
+    }
+
+    /**
+     * Key an entry by where it comes from, its size and its CRC, all read from the central
+     * directory. The outer jar's modification time is left out, so a rebuilt uber-jar reuses
+     * every entry that did not change.
+     */
+    private static String key(String outer, ZipEntry entry) throws IOException {
+        MessageDigest digest = sha256();
+        String identity = outer + "!/" + entry.getName() + "#" + entry.getSize() + ":" + entry.getCrc();
+        digest.update(identity.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest()).substring(0, 32);
+    }
+
+    private boolean isCached(Path target, long size) {
+        if (!Files.isRegularFile(target, LinkOption.NOFOLLOW_LINKS)) {
+            return false;
+        }
+        try {
+            if (Files.size(target) == size) {
+                return true;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        System.err.println("[WARN] extraction cache entry " + target + " does not have the expected size, replacing it");
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            // publish() will report the failure to replace it
+        }
+        return false;
+    }
+
+    private Path touch(Path target) {
+        this.inUse.add(target);
+        try {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // another process may have pruned it; it is still open for us on most platforms
+        }
+        return target;
+    }
+
+    private Path copyToPartial(String name, StreamSupplier content, MessageDigest digest) throws IOException {
+        Path partial = Files.createTempFile(this.dir, name, PARTIAL_SUFFIX);
+        try (InputStream in = (digest == null ? content.open() : new DigestInputStream(content.open(), digest));
+             OutputStream out = Files.newOutputStream(partial)) {
+            byte[] buf = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                out.write(buf, 0, len);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        return partial;
+    }
+
+    private Path publish(Path partial, Path target) throws IOException {
+        try {
+            try {
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, target);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // lost the race to another process, which published identical content
+            Files.deleteIfExists(partial);
+        }
+        this.inUse.add(target);
+        prune();
+        return target;
+    }
+
+    private synchronized void prune() {
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        long now = System.currentTimeMillis();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.dir)) {
+            for (Path each : stream) {
+                try {
+                    if (each.getFileName().toString().endsWith(PARTIAL_SUFFIX)) {
+                        if (now - Files.getLastModifiedTime(each).toMillis() > STALE_PARTIAL_MILLIS) {
+                            Files.deleteIfExists(each);
+                        }
+                        continue;
+                    }
+                    total += Files.size(each);
+                    entries.add(each);
+                } catch (IOException e) {
+                    // removed concurrently
+                }
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        if (total <= this.maxSize) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(ExtractionCache::lastModified));
+
+        for (Path each : entries) {
+            if (total <= this.maxSize) {
+                break;
+            }
+            if (this.inUse.contains(each)) {
+                continue;
+            }
+            if (now - lastModified(each) < PRUNE_GRACE_MILLIS) {
+                // oldest first, so everything after this was used recently too
+                break;
+            }
+            try {
+                long size = Files.size(each);
+                Files.deleteIfExists(each);
+                total -= size;
+            } catch (IOException e) {
+                // still mapped by another process on some platforms
+            }
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    static String baseName(String path) {
+        String name = path;
+        int slashLoc = name.lastIndexOf('/');
+        if (slashLoc >= 0) {
+            name = name.substring(slashLoc + 1);
+        }
+        int dotLoc = name.lastIndexOf('.');
+        if (dotLoc > 0) {
+            name = name.substring(0, dotLoc);
+        }
+        // File.createTempFile() requires a prefix of at least three characters
+        while (name.length() < 3) {
+            name = name + "_";
+        }
+        return name;
+    }
+
+    static String extension(String path) {
+        String name = path;
+        int slashLoc = name.lastIndexOf('/');
+        if (slashLoc >= 0) {
+            name = name.substring(slashLoc + 1);
+        }
+        int dotLoc = name.lastIndexOf('.');
+        if (dotLoc > 0) {
+            return name.substring(dotLoc);
+        }
+        return ".jar";
+    }
+
+    private static MessageDigest sha256() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder str = new StringBuilder();
+        for (byte b : bytes) {
+            str.append(String.format("%02x", b & 0xff));
+        }
+        return str.toString();
+    }
+
+    private static Path determineDir() {
+        if ("false".equals(System.getProperty(CACHE_PROPERTY))) {
+            return null;
+        }
+
+        String location = System.getProperty(CACHE_DIR_PROPERTY);
+        Path dir;
+        if (location != null && !location.trim().isEmpty()) {
+            dir = Paths.get(location.trim());
+        } else {
+            dir = Paths.get(System.getProperty("java.io.tmpdir"), "wildfly-swarm-cache-" + System.getProperty("user.name", "default"));
+        }
+
+        try {
+            PrivateDirectories.prepare(dir);
+            if (Files.isWritable(dir)) {
+                return dir;
+            }
+            System.err.println("[WARN] extraction cache directory " + dir + " is not writable, using temporary files");
+        } catch (IOException e) {
+            System.err.println("[WARN] extraction cache directory " + dir + " cannot be used, using temporary files: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static long determineMaxSize() {
+        long megabytes = DEFAULT_MAX_SIZE_MB;
+        String value = System.getProperty(CACHE_MAX_SIZE_PROPERTY);
+        if (value != null) {
+            try {
+                megabytes = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("[WARN] invalid " + CACHE_MAX_SIZE_PROPERTY + ": " + value);
+            }
+        }
+        return megabytes * 1024 * 1024;
+    }
+
+    @FunctionalInterface
+    protected interface StreamSupplier {
+        InputStream open() throws IOException;
+    }
+}
@@ -16,18 +16,12 @@
 package org.wildfly.swarm.bootstrap.util;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.CodeSource;
-import java.util.Enumeration;
-import java.util.Properties;
-import java.util.jar.JarFile;
 import java.util.jar.Manifest;
-import java.util.zip.ZipEntry;
 
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleIdentifier;
@@ -47,7 +41,7 @@ public class Layout {
 
     private ClassLoader bootstrapClassLoader;
 
-    public static Layout getInstance() throws IOException, URISyntaxException {
+    public static synchronized Layout getInstance() throws IOException, URISyntaxException {
         if (INSTANCE == null) {
             INSTANCE = new Layout(Layout.class.getProtectionDomain().getCodeSource());
         }
@@ -68,15 +62,8 @@ public class Layout {
     }
 
     public Manifest getManifest() throws IOException {
-        Path root = getRoot();
         if (isUberJar()) {
-            try (JarFile jar = new JarFile(root.toFile())) {
-                ZipEntry entry = jar.getEntry("META-INF/MANIFEST.MF");
-                if (entry != null) {
-                    InputStream in = jar.getInputStream(entry);
-                    return new Manifest(in);
-                }
-            }
+            return UberJar.of(getRoot()).getManifest();
         }
 
         return null;
@@ -100,31 +87,11 @@ public class Layout {
     }
 
     private boolean determineIfIsUberJar() throws IOException {
-        Path root = getRoot();
-
-        if (Files.isRegularFile(root)) {
-            try (JarFile jar = new JarFile(root.toFile())) {
-                ZipEntry propsEntry = jar.getEntry("META-INF/wildfly-swarm.properties");
-                if (propsEntry != null) {
-                    try (InputStream in = jar.getInputStream(propsEntry)) {
-                        Properties props = new Properties();
-                        props.load(in);
-                        if (props.containsKey("wildfly.swarm.app.artifact")) {
-                            System.setProperty("wildfly.swarm.app.artifact", props.getProperty("wildfly.swarm.app.artifact"));
-                        }
-
-                        Enumeration<String> names = (Enumeration<String>) props.propertyNames();
-                        while (names.hasMoreElements()) {
-                            String name = names.nextElement();
-                            String value = props.getProperty(name);
-                            if (System.getProperty(name) == null) {
-                                System.setProperty(name, value);
-                            }
-                        }
-                    }
-                    return true;
-                }
-            }
+        UberJar jar = UberJar.of(getRoot());
+
+        if (jar != null && jar.isUberJar()) {
+            jar.applyProperties();
+            return true;
         }
 
         return false;
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Index of every <code>module.xml</code> packaged in an uber-jar.
+ *
+ * <p>Written by the build tooling, it lets the module finders answer both hits and
+ * misses without probing classloaders for each module identifier.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ModuleIndex {
+
+    public static final String CLASSPATH_LOCATION = "META-INF/wildfly-swarm-modules.idx";
+
+    public static final String INDEX_PROPERTY = "swarm.module.index";
+
+    private static final int MAGIC = 0x534d4958;
+
+    private static final int VERSION = 1;
+
+    private static ModuleIndex INSTANCE;
+
+    private static boolean LOADED;
+
+    public enum Source {
+        /** Directly in the uber-jar, from the exploded bootstrap jar or additional modules. */
+        ROOT,
+        /** Inside one of the bootstrap jars listed in <code>wildfly-swarm-bootstrap.conf</code>. */
+        BOOTSTRAP,
+    }
+
+    public static class Entry {
+
+        private final String name;
+
+        private final String slot;
+
+        private final Source source;
+
+        private final String path;
+
+        Entry(String name, String slot, Source source, String path) {
+            this.name = name;
+            this.slot = slot;
+            this.source = source;
+            this.path = path;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getSlot() {
+            return this.slot;
+        }
+
+        public Source getSource() {
+            return this.source;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public String toString() {
+            return this.name + ":" + this.slot + " (" + this.source + ") " + this.path;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public ModuleIndex() {
+
+    }
+
+    public ModuleIndex(InputStream in) throws IOException {
+        read(in);
+    }
+
+    /**
+     * The index of the running uber-jar.
+     *
+     * @return The index, or <code>null</code> if not running from an uber-jar, the
+     * uber-jar carries no index, or <code>swarm.module.index</code> is <code>false</code>.
+     */
+    public static synchronized ModuleIndex getInstance() {
+        if (!LOADED) {
+            LOADED = true;
+            INSTANCE = load();
+        }
+        return INSTANCE;
+    }
+
+    private static ModuleIndex load() {
+        if ("false".equals(System.getProperty(INDEX_PROPERTY))) {
+            return null;
+        }
+        try {
+            if (!Layout.getInstance().isUberJar()) {
+                return null;
+            }
+            InputStream in = ModuleIndex.class.getClassLoader().getResourceAsStream(CLASSPATH_LOCATION);
+            if (in == null) {
+                return null;
+            }
+            return new ModuleIndex(in);
+        } catch (Exception e) {
+            System.err.println("[WARN] unable to read module index, falling back to classpath lookups: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Add a module, unless it is already indexed.
+     *
+     * <p>The first source added for a module wins, so add modules in the order the
+     * finders would search them.</p>
+     *
+     * @return The new entry, or <code>null</code> if the module was already indexed.
+     */
+    public Entry addEntry(String name, String slot, Source source) {
+        String key = key(name, slot);
+        if (this.entries.containsKey(key)) {
+            return null;
+        }
+        Entry entry = new Entry(name, slot, source, path(name, slot));
+        this.entries.put(key, entry);
+        return entry;
+    }
+
+    public Entry getEntry(String name, String slot) {
+        return this.entries.get(key(name, slot));
+    }
+
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(this.entries.values());
+    }
+
+    public static String path(String name, String slot) {
+        return "modules/" + name.replace('.', '/') + "/" + slot + "/module.xml";
+    }
+
+    private static String key(String name, String slot) {
+        return name + ":" + slot;
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(this.entries.size());
+        for (Entry each : this.entries.values()) {
+            data.writeUTF(each.name);
+            data.writeUTF(each.slot);
+            data.writeByte(each.source.ordinal());
+            data.writeUTF(each.path);
+        }
+        data.flush();
+    }
+
+    protected void read(InputStream in) throws IOException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not a module index");
+            }
+            int version = data.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported module index version: " + version);
+            }
+            int count = data.readInt();
+            for (int i = 0; i < count; ++i) {
+                String name = data.readUTF();
+                String slot = data.readUTF();
+                Source source = Source.values()[data.readUnsignedByte()];
+                String path = data.readUTF();
+                this.entries.put(key(name, slot), new Entry(name, slot, source, path));
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The classes to preload at boot, by module, in the order a training run loaded them.
+ *
+ * <p>One <code>module-identifier class-name</code> pair per line; blank lines and lines
+ * starting with <code>#</code> are ignored.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class PreloadList {
+
+    public static final String CLASSPATH_LOCATION = "META-INF/wildfly-swarm-preload.txt";
+
+    private final Map<String, Set<String>> classes = new LinkedHashMap<>();
+
+    public PreloadList() {
+
+    }
+
+    public PreloadList(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            if (space < 0) {
+                continue;
+            }
+            add(line.substring(0, space), line.substring(space + 1).trim());
+        }
+    }
+
+    public synchronized boolean add(String module, String className) {
+        return this.classes.computeIfAbsent(module, k -> new LinkedHashSet<>()).add(className);
+    }
+
+    public synchronized List<String> getModules() {
+        return new ArrayList<>(this.classes.keySet());
+    }
+
+    public synchronized List<String> getClasses(String module) {
+        Set<String> classes = this.classes.get(module);
+        if (classes == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(classes);
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Set<String> each : this.classes.values()) {
+            size += each.size();
+        }
+        return size;
+    }
+
+    public synchronized void write(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write("# classes to preload, by module\n");
+        for (Map.Entry<String, Set<String>> each : this.classes.entrySet()) {
+            for (String className : each.getValue()) {
+                writer.write(each.getKey());
+                writer.write(' ');
+                writer.write(className);
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+
+/**
+ * Directories shared between processes of one user, such as the extraction cache, which
+ * must not be writable by anybody else: whatever is found in them is loaded as code.
+ *
+ * <p>A directory is created <code>0700</code>, and an existing one is only accepted if it
+ * is not a symbolic link, is owned by the current user, and is not group- or
+ * world-writable. File systems without POSIX permissions are accepted as they are.</p>
+ */
+public class PrivateDirectories {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private static UserPrincipal CURRENT_USER;
+
+    private PrivateDirectories() {
+
+    }
+
+    /**
+     * Create the directory if needed, and check it is private to the current user.
+     *
+     * @param dir The directory.
+     * @throws IOException If it cannot be created, or is not private.
+     */
+    public static Path prepare(Path dir) throws IOException {
+        if (Files.getFileStore(existingAncestor(dir)).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            if (dir.getParent() != null) {
+                Files.createDirectories(dir.getParent());
+            }
+            try {
+                Files.createDirectory(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } catch (FileAlreadyExistsException e) {
+                // checked below
+            }
+            check(dir);
+        } else {
+            Files.createDirectories(dir);
+        }
+        return dir;
+    }
+
+    static void check(Path dir) throws IOException {
+        PosixFileAttributes attrs = Files.readAttributes(dir, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attrs.isDirectory()) {
+            throw new IOException(dir + " is not a directory");
+        }
+        if (!attrs.owner().equals(currentUser())) {
+            throw new IOException(dir + " is owned by " + attrs.owner().getName() + ", not the current user");
+        }
+        Set<PosixFilePermission> perms = attrs.permissions();
+        if (perms.contains(PosixFilePermission.GROUP_WRITE) || perms.contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException(dir + " is writable by other users (" + PosixFilePermissions.toString(perms) + ")");
+        }
+    }
+
+    private static synchronized UserPrincipal currentUser() throws IOException {
+        if (CURRENT_USER == null) {
+            // user.name may be overridden or unresolvable in containers; trust the file system instead
+            Path probe = Files.createTempFile("wildfly-swarm-owner", ".tmp");
+            try {
+                CURRENT_USER = Files.getOwner(probe);
+            } finally {
+                Files.deleteIfExists(probe);
+            }
+        }
+        return CURRENT_USER;
+    }
+
+    private static Path existingAncestor(Path dir) {
+        Path each = dir.toAbsolutePath();
+        while (each != null && !Files.exists(each)) {
+            each = each.getParent();
+        }
+        return each;
+    }
+}
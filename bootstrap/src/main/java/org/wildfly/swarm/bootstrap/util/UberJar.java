@@ -0,0 +1,228 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Metadata of a jar, read once and shared by everything that needs it at boot.
+ *
+ * <p>The central directory is memory-mapped on first use; the manifest,
+ * <code>wildfly-swarm.properties</code> and a single open {@link JarFile} are
+ * built lazily from it. Jars that cannot be mapped, such as Zip64 jars or those over
+ * 2GB, are read through the {@link JarFile} instead.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class UberJar {
+
+    public static final String PROPERTIES_ENTRY = "META-INF/wildfly-swarm.properties";
+
+    public static final String MANIFEST_ENTRY = "META-INF/MANIFEST.MF";
+
+    private static final Map<Path, UberJar> INSTANCES = new ConcurrentHashMap<>();
+
+    private final Path path;
+
+    private ZipDirectory directory;
+
+    private IOException directoryFailure;
+
+    private boolean manifestLoaded;
+
+    private Manifest manifest;
+
+    private boolean propertiesLoaded;
+
+    private Properties properties;
+
+    private boolean propertiesApplied;
+
+    private JarFile jarFile;
+
+    UberJar(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * The shared metadata for a jar.
+     *
+     * @param path The jar.
+     * @return The metadata, or <code>null</code> if the path is not a regular file.
+     */
+    public static UberJar of(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        return INSTANCES.computeIfAbsent(path.toAbsolutePath().normalize(), UberJar::new);
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * The memory-mapped central directory, for reading nested jars in place.
+     *
+     * @throws IOException If the jar cannot be mapped, such as a Zip64 jar or one over 2GB.
+     */
+    public synchronized ZipDirectory getDirectory() throws IOException {
+        if (this.directory == null) {
+            if (this.directoryFailure != null) {
+                throw this.directoryFailure;
+            }
+            try {
+                this.directory = ZipDirectory.map(this.path);
+            } catch (IOException e) {
+                this.directoryFailure = e;
+                throw e;
+            } catch (RuntimeException e) {
+                this.directoryFailure = new ZipException("Unable to read the central directory of " + this.path + ": " + e);
+                throw this.directoryFailure;
+            }
+        }
+        return this.directory;
+    }
+
+    private synchronized ZipDirectory getDirectoryIfAvailable() {
+        try {
+            return getDirectory();
+        } catch (IOException e) {
+            // fall back to the JarFile, which reads anything the JDK can
+            return null;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the jar carries <code>wildfly-swarm.properties</code>.
+     */
+    public boolean isUberJar() throws IOException {
+        return getProperties() != null;
+    }
+
+    public synchronized Manifest getManifest() throws IOException {
+        if (!this.manifestLoaded) {
+            byte[] bytes = read(MANIFEST_ENTRY);
+            if (bytes != null) {
+                this.manifest = new Manifest(new ByteArrayInputStream(bytes));
+            }
+            this.manifestLoaded = true;
+        }
+        return this.manifest;
+    }
+
+    /**
+     * @return The contents of <code>wildfly-swarm.properties</code>, or <code>null</code> if absent.
+     */
+    public synchronized Properties getProperties() throws IOException {
+        if (!this.propertiesLoaded) {
+            byte[] bytes = read(PROPERTIES_ENTRY);
+            if (bytes != null) {
+                Properties props = new Properties();
+                props.load(new ByteArrayInputStream(bytes));
+                this.properties = props;
+            }
+            this.propertiesLoaded = true;
+        }
+        return this.properties;
+    }
+
+    /**
+     * Copy <code>wildfly-swarm.properties</code> into the system properties, without
+     * overriding any already set.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void applyProperties() throws IOException {
+        Properties props = getProperties();
+        if (props == null || this.propertiesApplied) {
+            return;
+        }
+        this.propertiesApplied = true;
+
+        if (props.containsKey("wildfly.swarm.app.artifact")) {
+            System.setProperty("wildfly.swarm.app.artifact", props.getProperty("wildfly.swarm.app.artifact"));
+        }
+
+        Enumeration<String> names = (Enumeration<String>) props.propertyNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            String value = props.getProperty(name);
+            if (System.getProperty(name) == null) {
+                System.setProperty(name, value);
+            }
+        }
+    }
+
+    /**
+     * A single open {@link JarFile} for the jar, shared by all callers and never closed.
+     */
+    public synchronized JarFile getJarFile() throws IOException {
+        if (this.jarFile == null) {
+            this.jarFile = new JarFile(this.path.toFile());
+        }
+        return this.jarFile;
+    }
+
+    public InputStream getInputStream(String name) throws IOException {
+        ZipDirectory directory = getDirectoryIfAvailable();
+        if (directory == null) {
+            JarFile jar = getJarFile();
+            ZipEntry entry = jar.getEntry(name);
+            return entry == null ? null : jar.getInputStream(entry);
+        }
+        ZipDirectory.Entry entry = directory.getEntry(name);
+        if (entry == null) {
+            return null;
+        }
+        return directory.openStream(entry);
+    }
+
+    private byte[] read(String name) throws IOException {
+        ZipDirectory directory = getDirectoryIfAvailable();
+        if (directory == null) {
+            try (InputStream in = getInputStream(name)) {
+                if (in == null) {
+                    return null;
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[8192];
+                int len;
+                while ((len = in.read(buf)) >= 0) {
+                    out.write(buf, 0, len);
+                }
+                return out.toByteArray();
+            }
+        }
+        ZipDirectory.Entry entry = directory.getEntry(name);
+        if (entry == null) {
+            return null;
+        }
+        return directory.read(entry);
+    }
+}
@@ -8,21 +8,29 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarFile;
 
 import org.jboss.modules.DependencySpec;
 import org.jboss.modules.MavenArtifactUtil;
+import org.jboss.modules.Module;
 import org.jboss.modules.ModuleIdentifier;
 import org.jboss.modules.ModuleSpec;
+import org.jboss.modules.NestedJarResourceLoader;
+import org.jboss.modules.ResourceLoader;
 import org.jboss.modules.ResourceLoaderSpec;
 import org.jboss.modules.ResourceLoaders;
 import org.jboss.modules.filter.ClassFilters;
+import org.jboss.modules.filter.PathFilter;
 import org.jboss.modules.filter.PathFilters;
 
 /**
@@ -33,14 +41,55 @@ public class WildFlySwarmApplicationConf {
 
     public static final String CLASSPATH_LOCATION = "META-INF/wildfly-swarm-application.conf";
 
+    public static final String PARALLEL_PROPERTY = "swarm.application.conf.parallel";
+
+    public static final String PARALLELISM_PROPERTY = "swarm.application.conf.parallelism";
+
     public static abstract class Entry {
 
-        abstract void apply(ModuleSpec.Builder builder) throws Exception;
+        void apply(ModuleSpec.Builder builder) throws Exception {
+            resolve().apply(builder);
+        }
+
+        /**
+         * Perform the expensive part of applying this entry (locating the artifact,
+         * opening its jar) without touching the builder, so entries may be resolved
+         * concurrently.
+         */
+        abstract Resolved resolve() throws Exception;
 
         abstract void write(PrintWriter writer);
 
     }
 
+    @FunctionalInterface
+    interface Resolved {
+        void apply(ModuleSpec.Builder builder);
+
+        /**
+         * Release anything opened by {@link Entry#resolve()}, for results that will never be applied.
+         */
+        default void close() throws IOException {
+        }
+    }
+
+    static Resolved resourceRoot(ResourceLoader loader, JarFile jar) {
+        ResourceLoaderSpec spec = ResourceLoaderSpec.createResourceLoaderSpec(loader);
+        return new Resolved() {
+            @Override
+            public void apply(ModuleSpec.Builder builder) {
+                builder.addResourceRoot(spec);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (jar != null) {
+                    jar.close();
+                }
+            }
+        };
+    }
+
     public static class ModuleEntry extends Entry {
         private final String name;
         private final String slot;
@@ -55,11 +104,21 @@ public class WildFlySwarmApplicationConf {
             }
         }
 
+        private Set<String> paths;
+
+        /**
+         * Import only the given paths from this module, rather than everything.
+         */
+        void restrictTo(Set<String> paths) {
+            this.paths = paths;
+        }
+
         @Override
-        void apply(ModuleSpec.Builder builder) {
-            builder.addDependency(
+        Resolved resolve() {
+            PathFilter importFilter = this.paths == null ? PathFilters.acceptAll() : PathFilters.in(this.paths);
+            return (builder) -> builder.addDependency(
                     DependencySpec.createModuleDependencySpec(
-                            PathFilters.acceptAll(),
+                            importFilter,
                             PathFilters.acceptAll(),
                             PathFilters.acceptAll(),
                             PathFilters.acceptAll(),
@@ -74,9 +133,17 @@ public class WildFlySwarmApplicationConf {
             writer.println("module:" + this.name + ":" + this.slot);
         }
 
+        public String toString() {
+            return "module:" + this.name + ":" + this.slot;
+        }
+
         public String getName() {
             return this.name;
         }
+
+        public String getIdentifier() {
+            return this.name + ":" + this.slot;
+        }
     }
 
     public static class GAVEntry extends Entry {
@@ -92,23 +159,29 @@ public class WildFlySwarmApplicationConf {
         }
 
         @Override
-        void apply(ModuleSpec.Builder builder) throws IOException {
-            File artifact = MavenArtifactUtil.resolveJarArtifact(this.descriptor.mscGav());
+        Resolved resolve() throws IOException {
+            ResourceLoader loader = NestedJarResourceLoader.forEntry("m2repo/" + this.descriptor.repoPath(true));
 
-            if (artifact == null) {
-                throw new IOException("Unable to locate artifact: " + this.descriptor.mscGav());
+            if (loader == null) {
+                File artifact = MavenArtifactUtil.resolveJarArtifact(this.descriptor.mscGav());
+
+                if (artifact == null) {
+                    throw new IOException("Unable to locate artifact: " + this.descriptor.mscGav());
+                }
+                JarFile jar = new JarFile(artifact);
+                return resourceRoot(ResourceLoaders.createJarResourceLoader(artifact.getName(), jar), jar);
             }
-            builder.addResourceRoot(
-                    ResourceLoaderSpec.createResourceLoaderSpec(
-                            ResourceLoaders.createJarResourceLoader(artifact.getName(), new JarFile(artifact))
-                    )
-            );
+            return resourceRoot(loader, null);
         }
 
         @Override
         void write(PrintWriter writer) {
             writer.println("gav:" + this.descriptor.mscGav());
         }
+
+        public String toString() {
+            return "gav:" + this.descriptor.mscGav();
+        }
     }
 
     public static class PathEntry extends Entry {
@@ -120,33 +193,18 @@ public class WildFlySwarmApplicationConf {
         }
 
         @Override
-        void apply(ModuleSpec.Builder builder) throws IOException {
-
-            int slashLoc = this.path.lastIndexOf('/');
-            String name = this.path;
-
-            if (slashLoc > 0) {
-                name = this.path.substring(slashLoc + 1);
-            }
-
-            String ext = ".jar";
-            int dotLoc = name.lastIndexOf('.');
-            if (dotLoc > 0) {
-                ext = name.substring(dotLoc);
-                name = name.substring(0, dotLoc);
-            }
-
-            Path tmp = Files.createTempFile(name, ext);
-            tmp.toFile().deleteOnExit();
+        Resolved resolve() throws IOException {
+            ResourceLoader loader = NestedJarResourceLoader.forEntry(this.path);
 
-            try (InputStream artifactIn = getClass().getClassLoader().getResourceAsStream(this.path)) {
-                Files.copy(artifactIn, tmp, StandardCopyOption.REPLACE_EXISTING);
+            if (loader == null) {
+                Path tmp = ExtractionCache.getInstance().extract(getClass().getClassLoader(), this.path);
+                if (tmp == null) {
+                    throw new IOException("Unable to locate application: " + this.path);
+                }
+                JarFile jar = new JarFile(tmp.toFile());
+                return resourceRoot(ResourceLoaders.createJarResourceLoader(tmp.getFileName().toString(), jar), jar);
             }
-            builder.addResourceRoot(
-                    ResourceLoaderSpec.createResourceLoaderSpec(
-                            ResourceLoaders.createJarResourceLoader(tmp.getFileName().toString(), new JarFile(tmp.toFile()))
-                    )
-            );
+            return resourceRoot(loader, null);
         }
 
         @Override
@@ -154,6 +212,10 @@ public class WildFlySwarmApplicationConf {
             writer.println("path:" + this.path);
         }
 
+        public String toString() {
+            return "path:" + this.path;
+        }
+
         public String getPath() {
             return this.path;
         }
@@ -178,10 +240,109 @@ public class WildFlySwarmApplicationConf {
         return Collections.unmodifiableList(this.entries);
     }
 
+    /**
+     * Apply all entries to a module.
+     *
+     * <p>Unless <code>swarm.application.conf.parallel</code> is <code>false</code>, entries
+     * are resolved concurrently on a pool bounded by <code>swarm.application.conf.parallelism</code>
+     * (defaults to the number of processors).  They are always added to the builder in their
+     * original order, so class-loading order is unchanged.</p>
+     */
     public void apply(ModuleSpec.Builder builder) throws Exception {
-        for (Entry entry : this.entries) {
-            entry.apply(builder);
+        apply(builder, null);
+    }
+
+    /**
+     * Apply all entries to a module, importing only the indexed paths of module entries
+     * found in the index.
+     */
+    public void apply(ModuleSpec.Builder builder, ApplicationPackageIndex index) throws Exception {
+        if (index != null) {
+            for (Entry entry : this.entries) {
+                if (entry instanceof ModuleEntry) {
+                    ModuleEntry moduleEntry = (ModuleEntry) entry;
+                    moduleEntry.restrictTo(index.getPaths(moduleEntry.getIdentifier()));
+                }
+            }
+        }
+
+        int parallelism = determineParallelism();
+
+        if (parallelism <= 1 || this.entries.size() <= 1) {
+            for (Entry entry : this.entries) {
+                timed(entry).apply(builder);
+            }
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, this.entries.size()));
+        try {
+            List<Future<Resolved>> tasks = new ArrayList<>();
+            for (Entry entry : this.entries) {
+                tasks.add(pool.submit(() -> timed(entry)));
+            }
+            int applied = 0;
+            try {
+                for (Future<Resolved> task : tasks) {
+                    try {
+                        task.get().apply(builder);
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof Exception) {
+                            throw (Exception) e.getCause();
+                        }
+                        throw e;
+                    }
+                    ++applied;
+                }
+            } finally {
+                if (applied < tasks.size()) {
+                    closeUnapplied(tasks.subList(applied, tasks.size()));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for the remaining resolutions and close whatever they opened, since a failed
+     * apply leaves them with no builder to own their jars.
+     */
+    private static void closeUnapplied(List<Future<Resolved>> tasks) {
+        for (Future<Resolved> task : tasks) {
+            try {
+                task.get().close();
+            } catch (ExecutionException e) {
+                // failed to resolve, so nothing was opened
+            } catch (IOException e) {
+                System.err.println("[WARN] unable to close resolved entry: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static Resolved timed(Entry entry) throws Exception {
+        long start = System.nanoTime();
+        Resolved resolved = entry.resolve();
+        Module.getModuleLogger().trace("Resolved %s in %sms", entry, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return resolved;
+    }
+
+    private static int determineParallelism() {
+        if ("false".equals(System.getProperty(PARALLEL_PROPERTY))) {
+            return 1;
+        }
+        String value = System.getProperty(PARALLELISM_PROPERTY);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("[WARN] invalid " + PARALLELISM_PROPERTY + ": " + value);
+            }
         }
+        return Runtime.getRuntime().availableProcessors();
     }
 
     public void write(OutputStream out) {
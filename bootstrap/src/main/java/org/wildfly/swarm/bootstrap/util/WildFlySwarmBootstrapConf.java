@@ -15,6 +15,8 @@ import java.util.jar.JarFile;
 
 import org.jboss.modules.MavenArtifactUtil;
 import org.jboss.modules.ModuleSpec;
+import org.jboss.modules.NestedJarResourceLoader;
+import org.jboss.modules.ResourceLoader;
 import org.jboss.modules.ResourceLoaderSpec;
 import org.jboss.modules.ResourceLoaders;
 
@@ -109,15 +111,16 @@ public class WildFlySwarmBootstrapConf {
     }
 
     void apply(ModuleSpec.Builder builder, MavenArtifactDescriptor entry) throws IOException {
-        File artifact = MavenArtifactUtil.resolveJarArtifact(entry.mscGav());
-        if (artifact == null) {
-            throw new IOException("Unable to locate artifact: " + entry.mscGav());
+        ResourceLoader loader = NestedJarResourceLoader.forEntry("m2repo/" + entry.repoPath(true));
+
+        if (loader == null) {
+            File artifact = MavenArtifactUtil.resolveJarArtifact(entry.mscGav());
+            if (artifact == null) {
+                throw new IOException("Unable to locate artifact: " + entry.mscGav());
+            }
+            loader = ResourceLoaders.createJarResourceLoader(artifact.getName(), new JarFile(artifact));
         }
-        builder.addResourceRoot(
-                ResourceLoaderSpec.createResourceLoaderSpec(
-                        ResourceLoaders.createJarResourceLoader(artifact.getName(), new JarFile(artifact))
-                )
-        );
+        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(loader));
     }
 
 }
@@ -0,0 +1,305 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Read-only view of a zip file's central directory over a (usually memory-mapped) buffer.
+ *
+ * <p>Unlike {@link java.util.zip.ZipFile} this exposes where each entry's data lives,
+ * so an entry that was stored uncompressed can itself be read as a zip without
+ * copying it anywhere.  Zip64 archives are not supported.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ZipDirectory {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int END_SIZE = 22;
+
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    public static class Entry {
+
+        private final String name;
+
+        private final int method;
+
+        private final long crc;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long localHeaderOffset;
+
+        Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        public boolean isStored() {
+            return this.method == ZipEntry.STORED;
+        }
+
+        public int getMethod() {
+            return this.method;
+        }
+
+        public long getCrc() {
+            return this.crc;
+        }
+
+        public long getCompressedSize() {
+            return this.compressedSize;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+
+        public String toString() {
+            return this.name;
+        }
+    }
+
+    private final ByteBuffer buffer;
+
+    private final Map<String, Entry> entries;
+
+    private ZipDirectory(ByteBuffer buffer, Map<String, Entry> entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    public static ZipDirectory map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ZipException("Too large to map: " + path);
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static ZipDirectory read(ByteBuffer buffer) throws IOException {
+        ByteBuffer zip = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        int end = findEnd(zip);
+        int count = zip.getShort(end + 10) & 0xFFFF;
+        long directorySize = zip.getInt(end + 12) & 0xFFFFFFFFL;
+        long directoryOffset = zip.getInt(end + 16) & 0xFFFFFFFFL;
+
+        if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("Zip64 archives are not supported");
+        }
+        if (directoryOffset + directorySize > end) {
+            throw new ZipException("Invalid central directory");
+        }
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+
+        int pos = (int) directoryOffset;
+        for (int i = 0; i < count; ++i) {
+            if (zip.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header at " + pos);
+            }
+            int method = zip.getShort(pos + 10) & 0xFFFF;
+            long crc = zip.getInt(pos + 16) & 0xFFFFFFFFL;
+            long compressedSize = zip.getInt(pos + 20) & 0xFFFFFFFFL;
+            long size = zip.getInt(pos + 24) & 0xFFFFFFFFL;
+            int nameLength = zip.getShort(pos + 28) & 0xFFFF;
+            int extraLength = zip.getShort(pos + 30) & 0xFFFF;
+            int commentLength = zip.getShort(pos + 32) & 0xFFFF;
+            long localHeaderOffset = zip.getInt(pos + 42) & 0xFFFFFFFFL;
+
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer nameBuffer = zip.duplicate();
+            nameBuffer.position(pos + 46);
+            nameBuffer.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            entries.put(name, new Entry(name, method, crc, compressedSize, size, localHeaderOffset));
+
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+
+        return new ZipDirectory(zip, Collections.unmodifiableMap(entries));
+    }
+
+    private static int findEnd(ByteBuffer zip) throws ZipException {
+        int limit = zip.limit();
+        int stop = Math.max(0, limit - END_SIZE - MAX_COMMENT_SIZE);
+        for (int pos = limit - END_SIZE; pos >= stop; --pos) {
+            if (zip.getInt(pos) == END_SIGNATURE) {
+                return pos;
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+
+    public Entry getEntry(String name) {
+        return this.entries.get(name);
+    }
+
+    public Collection<Entry> getEntries() {
+        return this.entries.values();
+    }
+
+    /**
+     * The raw, possibly compressed, bytes of an entry.
+     *
+     * @param entry The entry.
+     * @return A read-only buffer positioned over the entry's data.
+     * @throws IOException If the local header is invalid.
+     */
+    public ByteBuffer getData(Entry entry) throws IOException {
+        int pos = (int) entry.localHeaderOffset;
+        if (this.buffer.getInt(pos) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for " + entry.getName());
+        }
+        int nameLength = this.buffer.getShort(pos + 26) & 0xFFFF;
+        int extraLength = this.buffer.getShort(pos + 28) & 0xFFFF;
+        int start = pos + 30 + nameLength + extraLength;
+
+        ByteBuffer data = this.buffer.duplicate();
+        data.position(start);
+        data.limit((int) (start + entry.compressedSize));
+        return data.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public byte[] read(Entry entry) throws IOException {
+        ByteBuffer data = getData(entry);
+
+        if (entry.isStored()) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            return bytes;
+        }
+
+        if (entry.method != ZipEntry.DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.getName());
+        }
+
+        // the inflater needs an extra dummy byte when reading raw deflate data
+        byte[] compressed = new byte[data.remaining() + 1];
+        data.get(compressed, 0, compressed.length - 1);
+
+        byte[] bytes = new byte[(int) entry.size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int off = 0;
+            while (off < bytes.length) {
+                int len = inflater.inflate(bytes, off, bytes.length - off);
+                if (len == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                off += len;
+            }
+            if (off != bytes.length) {
+                throw new ZipException("Truncated entry " + entry.getName());
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed data for " + entry.getName() + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    public InputStream openStream(Entry entry) throws IOException {
+        if (entry.isStored()) {
+            return new ByteBufferInputStream(getData(entry));
+        }
+        return new ByteArrayInputStream(read(entry));
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            return this.buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.jboss.modules;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class MavenArtifactUtilTest {
+
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private ServerSocket server;
+
+    private String remote;
+
+    private Path previousLocal;
+
+    private List<String> previousRemotes;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.remote = "http://127.0.0.1:" + this.server.getLocalPort() + "/";
+        this.executor.execute(() -> {
+            while (!this.server.isClosed()) {
+                try {
+                    Socket socket = this.server.accept();
+                    this.executor.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        });
+
+        MavenSettings settings = MavenArtifactUtil.getSettings();
+        this.previousLocal = settings.getLocalRepository();
+        settings.setLocalRepository(Files.createTempDirectory("m2"));
+        // only ever this server, never a real repository
+        this.previousRemotes = new ArrayList<>(settings.getRemoteRepositories());
+        settings.getRemoteRepositories().clear();
+        settings.getRemoteRepositories().add(this.remote);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        MavenSettings settings = MavenArtifactUtil.getSettings();
+        settings.getRemoteRepositories().clear();
+        settings.getRemoteRepositories().addAll(this.previousRemotes);
+        settings.setLocalRepository(this.previousLocal);
+        this.server.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentResolutionsDownloadOnce() throws Exception {
+        String qualifier = "org.fish:fish:" + System.nanoTime();
+        int threads = 8;
+        ExecutorService resolvers = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<File>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                futures.add(resolvers.submit((Callable<File>) () -> {
+                    start.await();
+                    return MavenArtifactUtil.resolveJarArtifact(qualifier);
+                }));
+            }
+            start.countDown();
+
+            File first = futures.get(0).get();
+            assertThat(first).isNotNull();
+            assertThat(first.exists()).isTrue();
+            for (Future<File> each : futures) {
+                assertThat(each.get()).isEqualTo(first);
+            }
+            assertThat(this.downloads.get()).isEqualTo(1);
+        } finally {
+            resolvers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testMissingArtifactIsResolvedAgain() throws Exception {
+        String qualifier = "org.fish:fish:" + System.nanoTime();
+
+        File file = MavenArtifactUtil.resolveJarArtifact(qualifier);
+        assertThat(MavenArtifactUtil.resolveJarArtifact(qualifier)).isEqualTo(file);
+        assertThat(this.downloads.get()).isEqualTo(1);
+
+        Files.delete(file.toPath());
+
+        File again = MavenArtifactUtil.resolveJarArtifact(qualifier);
+        assertThat(again).isEqualTo(file);
+        assertThat(again.exists()).isTrue();
+        assertThat(this.downloads.get()).isEqualTo(2);
+    }
+
+    /**
+     * Answer one request with just enough HTTP for {@link MavenArtifactUtil#downloadFile}.
+     */
+    private void serve(Socket socket) {
+        try (Socket each = socket) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(each.getInputStream(), StandardCharsets.US_ASCII));
+            String path = reader.readLine().split(" ")[1];
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                // skip the headers
+            }
+
+            byte[] body;
+            if (path.endsWith(".pom")) {
+                body = "<project/>".getBytes(StandardCharsets.UTF_8);
+            } else {
+                this.downloads.incrementAndGet();
+                // long enough for every resolution to be waiting on this one
+                Thread.sleep(200);
+                body = "fish".getBytes(StandardCharsets.UTF_8);
+            }
+
+            OutputStream out = each.getOutputStream();
+            out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            // the client gave up
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.jboss.modules;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rough timing of artifact resolution against a local repository, for comparing changes to
+ * {@link MavenArtifactUtil} by hand; not run as part of the build.
+ *
+ * <pre>java -cp ... org.jboss.modules.MavenArtifactUtilTiming [artifacts] [threads]</pre>
+ */
+public class MavenArtifactUtilTiming {
+
+    public static void main(String... args) throws Exception {
+        int artifacts = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Path repository = Files.createTempDirectory("m2");
+        List<String> qualifiers = new ArrayList<>();
+        for (int i = 0; i < artifacts; ++i) {
+            String version = "1." + i;
+            Path jar = repository.resolve(MavenArtifactUtil.relativeArtifactPath("org.fish", "fish", version) + ".jar");
+            Files.createDirectories(jar.getParent());
+            Files.write(jar, new byte[]{0});
+            qualifiers.add("org.fish:fish:" + version);
+        }
+
+        MavenSettings settings = MavenArtifactUtil.getSettings();
+        settings.setLocalRepository(repository);
+        settings.getRemoteRepositories().clear();
+
+        long start = System.nanoTime();
+        for (String each : qualifiers) {
+            MavenArtifactUtil.resolveJarArtifact(each);
+        }
+        report("first resolution", start, artifacts);
+
+        start = System.nanoTime();
+        for (String each : qualifiers) {
+            MavenArtifactUtil.resolveJarArtifact(each);
+        }
+        report("memoized", start, artifacts);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; ++t) {
+                futures.add(executor.submit(() -> {
+                    for (String each : qualifiers) {
+                        MavenArtifactUtil.resolveJarArtifact(each);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> each : futures) {
+                each.get();
+            }
+            report("memoized, " + threads + " threads", start, artifacts * threads);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void report(String what, long start, int lookups) {
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-24s %6d ms  %8d ns/lookup", what, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / lookups));
+    }
+}
@@ -0,0 +1,62 @@
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jboss.modules.Module;
+import org.jboss.modules.log.ModuleLogger;
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.util.PreloadList;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ClassLoadRecorderTest {
+
+    @Test
+    public void testRecordsUntilStopped() throws Exception {
+        Path file = Files.createTempDirectory("preload").resolve("preload.txt");
+        ClassLoadRecorder recorder = new ClassLoadRecorder(file, "org.fish.Stop", 0);
+
+        recorder.record("org.fish:main", "org.fish.Fish");
+        recorder.record("deployment.fish.war:main", "org.fish.web.Servlet");
+        recorder.stop();
+        recorder.record("org.fish:main", "org.fish.Late");
+
+        try (InputStream in = Files.newInputStream(file)) {
+            PreloadList list = new PreloadList(in);
+            assertThat(list.getModules()).containsExactly("org.fish:main");
+            assertThat(list.getClasses("org.fish:main")).containsExactly("org.fish.Fish");
+        }
+    }
+
+    @Test
+    public void testDelegatesToAndRestoresPreviousLogger() throws Exception {
+        ModuleLogger original = Module.getModuleLogger();
+        List<String> calls = new CopyOnWriteArrayList<>();
+        ModuleLogger previous = (ModuleLogger) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ModuleLogger.class}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() != Object.class) {
+                calls.add(method.getName());
+            }
+            return null;
+        });
+
+        Module.setModuleLogger(previous);
+        try {
+            ClassLoadRecorder recorder = new ClassLoadRecorder(Files.createTempDirectory("preload").resolve("preload.txt"), "org.fish.Stop", 0);
+            recorder.install();
+            assertThat(Module.getModuleLogger()).isNotSameAs(previous);
+
+            Module.getModuleLogger().trace("fish");
+            assertThat(calls).contains("trace");
+
+            recorder.stop();
+            assertThat(Module.getModuleLogger()).isSameAs(previous);
+        } finally {
+            Module.setModuleLogger(original);
+        }
+    }
+}
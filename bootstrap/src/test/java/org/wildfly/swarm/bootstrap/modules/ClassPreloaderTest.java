@@ -0,0 +1,68 @@
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.log.ModuleLogger;
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.util.PreloadList;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ClassPreloaderTest {
+
+    private final List<String> preloaded = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testPreloadsEveryModule() throws Exception {
+        System.setProperty(ClassPreloader.PRELOAD_PROPERTY + ".org.shark", "false");
+        try {
+            preloader().start(false);
+        } finally {
+            System.clearProperty(ClassPreloader.PRELOAD_PROPERTY + ".org.shark");
+        }
+
+        assertThat(this.preloaded).containsExactly("org.fish:main", "org.cat:main");
+    }
+
+    @Test
+    public void testLeanBootWaitsForModulesToBeLoaded() throws Exception {
+        ModuleLogger original = Module.getModuleLogger();
+        try {
+            preloader().start(true);
+            assertThat(this.preloaded).isEmpty();
+
+            Module.getModuleLogger().moduleDefined(ModuleIdentifier.create("org.fish"), null);
+            Module.getModuleLogger().moduleDefined(ModuleIdentifier.create("org.dog"), null);
+            Module.getModuleLogger().moduleDefined(ModuleIdentifier.create("org.fish"), null);
+            assertThat(this.preloaded).containsExactly("org.fish:main");
+
+            Module.getModuleLogger().moduleDefined(ModuleIdentifier.create("org.cat"), null);
+            Module.getModuleLogger().moduleDefined(ModuleIdentifier.create("org.shark"), null);
+            assertThat(this.preloaded).containsExactly("org.fish:main", "org.cat:main", "org.shark:main");
+
+            // every listed module is preloading, so the previous logger is back
+            assertThat(Module.getModuleLogger()).isSameAs(original);
+        } finally {
+            Module.setModuleLogger(original);
+        }
+    }
+
+    private ClassPreloader preloader() {
+        PreloadList list = new PreloadList();
+        list.add("org.fish:main", "org.fish.Fish");
+        list.add("org.fish:main", "org.fish.Gill");
+        list.add("org.cat:main", "org.cat.Cat");
+        list.add("org.shark:main", "org.shark.Shark");
+
+        return new ClassPreloader(list, Runnable::run) {
+            @Override
+            int preload(String moduleIdentifier) {
+                ClassPreloaderTest.this.preloaded.add(moduleIdentifier);
+                return 0;
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package org.wildfly.swarm.bootstrap.url.swarmnested;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class HandlerTest {
+
+    @Test
+    public void testUrlsSurviveReparsing() throws Exception {
+        File outer = createUberJar("m2repo/org/fish/fish/1.0/fish-1.0.jar", "META-INF/fish.txt", "fish");
+        String rootUrl = "jar:" + outer.toURI().toURL().toExternalForm() + "!/m2repo/org/fish/fish/1.0/fish-1.0.jar";
+
+        Handler.install();
+        URL url = Handler.toURL(rootUrl, "META-INF/fish.txt");
+        assertThat(url.toExternalForm()).isEqualTo("swarmnested:" + rootUrl + "!/META-INF/fish.txt");
+
+        // resolved through java.protocol.handler.pkgs, and without a registered directory
+        URL reparsed = new URL(url.toExternalForm());
+        assertThat(read(reparsed)).isEqualTo("fish");
+
+        URL relative = new URL(reparsed, "fish.txt");
+        assertThat(relative).isEqualTo(reparsed);
+    }
+
+    private static String read(URL url) throws Exception {
+        try (InputStream in = url.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                out.write(buf, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static File createUberJar(String nestedName, String resourceName, String content) throws Exception {
+        ByteArrayOutputStream nested = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(nested)) {
+            out.putNextEntry(new ZipEntry(resourceName));
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        byte[] bytes = nested.toByteArray();
+
+        File file = File.createTempFile("uberjar", ".jar");
+        file.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            ZipEntry entry = new ZipEntry(nestedName);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(bytes);
+            out.closeEntry();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,36 @@
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class ApplicationPackageIndexTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ApplicationPackageIndex index = new ApplicationPackageIndex();
+
+        index.addAll("org.wildfly.swarm.undertow:main", new HashSet<>(Arrays.asList("org/wildfly/swarm/undertow", "META-INF/services")));
+        index.add("org.jboss.logging:main", "org/jboss/logging");
+        index.add("org.jboss.logging:main", "");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+
+        index = new ApplicationPackageIndex(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(index.getModules()).containsExactly("org.wildfly.swarm.undertow:main", "org.jboss.logging:main");
+        assertThat(index.getPaths("org.wildfly.swarm.undertow:main")).containsOnly("org/wildfly/swarm/undertow", "META-INF/services");
+        assertThat(index.getPaths("org.jboss.logging:main")).containsOnly("org/jboss/logging", "");
+        assertThat(index.contains("org.jboss.msc:main")).isFalse();
+        assertThat(index.getPaths("org.jboss.msc:main")).isNull();
+    }
+}
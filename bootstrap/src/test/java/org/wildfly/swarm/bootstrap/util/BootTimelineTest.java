@@ -0,0 +1,60 @@
+package org.wildfly.swarm.bootstrap.util;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class BootTimelineTest {
+
+    @Test
+    public void testNotRecordedUnlessRequested() throws Exception {
+        System.clearProperty(BootTimeline.TIMELINE_PROPERTY);
+        try (BootTimeline.Phase phase = BootTimeline.begin("test: unrequested")) {
+        }
+        assertThat(BootTimeline.getEvents().stream().filter(e -> e.getName().equals("test: unrequested")).count()).isEqualTo(0);
+    }
+
+    @Test
+    public void testNestedPhases() throws Exception {
+        System.setProperty(BootTimeline.TIMELINE_PROPERTY, "true");
+        try {
+            recordNestedPhases();
+        } finally {
+            System.clearProperty(BootTimeline.TIMELINE_PROPERTY);
+        }
+    }
+
+    private void recordNestedPhases() throws Exception {
+        try (BootTimeline.Phase outer = BootTimeline.begin("test: outer")) {
+            try (BootTimeline.Phase inner = BootTimeline.begin("test: \"inner\"")) {
+                Thread.sleep(5);
+            }
+        }
+        try (BootTimeline.Phase after = BootTimeline.begin("test: after")) {
+        }
+
+        List<BootTimeline.Event> events = BootTimeline.getEvents().stream()
+                .filter(e -> e.getName().startsWith("test: "))
+                .collect(Collectors.toList());
+
+        assertThat(events).hasSize(3);
+        assertThat(events.get(0).getName()).isEqualTo("test: outer");
+        assertThat(events.get(0).getDepth()).isEqualTo(0);
+        assertThat(events.get(1).getName()).isEqualTo("test: \"inner\"");
+        assertThat(events.get(1).getDepth()).isEqualTo(1);
+        assertThat(events.get(2).getName()).isEqualTo("test: after");
+        assertThat(events.get(2).getDepth()).isEqualTo(0);
+
+        assertThat(events.get(0).getDurationMillis()).isGreaterThanOrEqualTo(events.get(1).getDurationMillis());
+        assertThat(events.get(1).getDurationMillis()).isGreaterThanOrEqualTo(5.0);
+
+        assertThat(BootTimeline.toJson()).contains("\"name\":\"test: \\\"inner\\\"\"");
+        assertThat(BootTimeline.toTable()).contains("  test: \"inner\"");
+    }
+}
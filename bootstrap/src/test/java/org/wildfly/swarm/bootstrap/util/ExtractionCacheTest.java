@@ -0,0 +1,153 @@
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ExtractionCacheTest {
+
+    @Test
+    public void testExtractionIsReused() throws Exception {
+        Path cacheDir = Files.createTempDirectory("extraction-cache");
+        ExtractionCache cache = new ExtractionCache(cacheDir, 1024 * 1024);
+
+        File outer = createJar("m2repo/org/fish/fish/1.0/fish-1.0.jar", "fish".getBytes());
+
+        try (JarFile jar = new JarFile(outer)) {
+            Path first = cache.extract(jar, "m2repo/org/fish/fish/1.0/fish-1.0.jar");
+            Path second = cache.extract(jar, "m2repo/org/fish/fish/1.0/fish-1.0.jar");
+
+            assertThat(first.toString()).isEqualTo(second.toString());
+            assertThat(Files.isSameFile(first.getParent(), cacheDir)).isTrue();
+            assertThat(first.getFileName().toString()).startsWith("fish-1.0-");
+            assertThat(first.getFileName().toString()).endsWith(".jar");
+            assertThat(new String(Files.readAllBytes(first))).isEqualTo("fish");
+
+            assertThat(cache.extract(jar, "m2repo/does/not/exist.jar") == null).isTrue();
+        }
+    }
+
+    @Test
+    public void testPruneKeepsInUseEntries() throws Exception {
+        Path cacheDir = Files.createTempDirectory("extraction-cache");
+        Path stale = cacheDir.resolve("stale-00.jar");
+        Files.write(stale, new byte[1024]);
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)));
+        Path recent = cacheDir.resolve("recent-00.jar");
+        Files.write(recent, new byte[1024]);
+
+        ExtractionCache cache = new ExtractionCache(cacheDir, 512);
+
+        File outer = createJar("_bootstrap/app.war", new byte[256]);
+
+        try (JarFile jar = new JarFile(outer)) {
+            Path extracted = cache.extract(jar, "_bootstrap/app.war");
+            assertThat(Files.exists(extracted)).isTrue();
+            assertThat(Files.exists(stale)).isFalse();
+            // possibly still opened by another process
+            assertThat(Files.exists(recent)).isTrue();
+        }
+    }
+
+    @Test
+    public void testDamagedEntryIsReplaced() throws Exception {
+        Path cacheDir = Files.createTempDirectory("extraction-cache");
+        ExtractionCache cache = new ExtractionCache(cacheDir, 1024 * 1024);
+
+        File outer = createJar("m2repo/org/fish/fish/1.0/fish-1.0.jar", "fish".getBytes());
+
+        try (JarFile jar = new JarFile(outer)) {
+            Path first = cache.extract(jar, "m2repo/org/fish/fish/1.0/fish-1.0.jar");
+            Files.write(first, "fi".getBytes());
+
+            Path second = cache.extract(jar, "m2repo/org/fish/fish/1.0/fish-1.0.jar");
+            assertThat(second.toString()).isEqualTo(first.toString());
+            assertThat(new String(Files.readAllBytes(second))).isEqualTo("fish");
+        }
+    }
+
+    @Test
+    public void testChangedEntryIsExtractedAgain() throws Exception {
+        Path cacheDir = Files.createTempDirectory("extraction-cache");
+        ExtractionCache cache = new ExtractionCache(cacheDir, 1024 * 1024);
+
+        File outer = createJar("m2repo/org/fish/fish/1.0/fish-1.0.jar", "fish".getBytes());
+        Path first;
+        try (JarFile jar = new JarFile(outer)) {
+            first = cache.extract(jar, "m2repo/org/fish/fish/1.0/fish-1.0.jar");
+        }
+
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(outer))) {
+            out.putNextEntry(new JarEntry("m2repo/org/fish/fish/1.0/fish-1.0.jar"));
+            out.write("cats".getBytes());
+            out.closeEntry();
+        }
+
+        try (JarFile jar = new JarFile(outer)) {
+            Path second = cache.extract(jar, "m2repo/org/fish/fish/1.0/fish-1.0.jar");
+            assertThat(second.toString()).isNotEqualTo(first.toString());
+            assertThat(new String(Files.readAllBytes(second))).isEqualTo("cats");
+            assertThat(new String(Files.readAllBytes(first))).isEqualTo("fish");
+        }
+    }
+
+    @Test
+    public void testPrivateDirectory() throws Exception {
+        Path parent = Files.createTempDirectory("extraction-cache");
+        Assume.assumeTrue(Files.getFileStore(parent).supportsFileAttributeView(PosixFileAttributeView.class));
+
+        Path created = PrivateDirectories.prepare(parent.resolve("cache"));
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(created))).isEqualTo("rwx------");
+
+        Path shared = Files.createDirectory(parent.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+        try {
+            PrivateDirectories.prepare(shared);
+            fail("a world-writable directory must be refused");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("writable by other users");
+        }
+
+        Path link = Files.createSymbolicLink(parent.resolve("link"), created);
+        try {
+            PrivateDirectories.prepare(link);
+            fail("a symbolic link must be refused");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("not a directory");
+        }
+    }
+
+    @Test
+    public void testNames() {
+        assertThat(ExtractionCache.baseName("m2repo/org/fish/fish/1.0/fish-1.0.jar")).isEqualTo("fish-1.0");
+        assertThat(ExtractionCache.extension("m2repo/org/fish/fish/1.0/fish-1.0.jar")).isEqualTo(".jar");
+        assertThat(ExtractionCache.baseName("_bootstrap/a.war")).isEqualTo("a__");
+        assertThat(ExtractionCache.extension("_bootstrap/a.war")).isEqualTo(".war");
+    }
+
+    private File createJar(String entryName, byte[] content) throws Exception {
+        File file = File.createTempFile("outer", ".jar");
+        file.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new JarEntry(entryName));
+            out.write(content);
+            out.closeEntry();
+        }
+        return file;
+    }
+}
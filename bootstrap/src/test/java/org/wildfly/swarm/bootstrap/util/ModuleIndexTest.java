@@ -0,0 +1,49 @@
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class ModuleIndexTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ModuleIndex index = new ModuleIndex();
+
+        index.addEntry("org.wildfly.swarm.undertow", "main", ModuleIndex.Source.BOOTSTRAP);
+        index.addEntry("org.jboss.msc", "main", ModuleIndex.Source.ROOT);
+        index.addEntry("org.wildfly.swarm.undertow", "runtime", ModuleIndex.Source.BOOTSTRAP);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+
+        index = new ModuleIndex(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(index.getEntries()).hasSize(3);
+
+        ModuleIndex.Entry entry = index.getEntry("org.wildfly.swarm.undertow", "runtime");
+        assertThat(entry.getSource()).isEqualTo(ModuleIndex.Source.BOOTSTRAP);
+        assertThat(entry.getPath()).isEqualTo("modules/org/wildfly/swarm/undertow/runtime/module.xml");
+
+        assertThat(index.getEntry("org.jboss.msc", "main").getSource()).isEqualTo(ModuleIndex.Source.ROOT);
+        assertThat(index.getEntry("org.jboss.msc", "api")).isNull();
+        assertThat(index.getEntry("org.jboss.nope", "main")).isNull();
+    }
+
+    @Test
+    public void testFirstSourceWins() throws Exception {
+        ModuleIndex index = new ModuleIndex();
+
+        index.addEntry("org.jboss.msc", "main", ModuleIndex.Source.ROOT);
+        index.addEntry("org.jboss.msc", "main", ModuleIndex.Source.BOOTSTRAP);
+
+        assertThat(index.getEntries()).hasSize(1);
+        assertThat(index.getEntry("org.jboss.msc", "main").getSource()).isEqualTo(ModuleIndex.Source.ROOT);
+    }
+}
@@ -0,0 +1,36 @@
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class PreloadListTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        PreloadList list = new PreloadList();
+
+        assertThat(list.add("org.wildfly.swarm.undertow:runtime", "org.wildfly.swarm.undertow.runtime.UndertowConfiguration")).isTrue();
+        assertThat(list.add("org.jboss.msc:main", "org.jboss.msc.service.ServiceName")).isTrue();
+        assertThat(list.add("org.wildfly.swarm.undertow:runtime", "org.wildfly.swarm.undertow.runtime.UndertowConfiguration")).isFalse();
+        assertThat(list.add("org.wildfly.swarm.undertow:runtime", "org.wildfly.swarm.undertow.runtime.Other")).isTrue();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        list.write(out);
+
+        list = new PreloadList(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(list.size()).isEqualTo(3);
+        assertThat(list.getModules()).containsExactly("org.wildfly.swarm.undertow:runtime", "org.jboss.msc:main");
+        assertThat(list.getClasses("org.wildfly.swarm.undertow:runtime")).containsExactly(
+                "org.wildfly.swarm.undertow.runtime.UndertowConfiguration",
+                "org.wildfly.swarm.undertow.runtime.Other");
+        assertThat(list.getClasses("org.jboss.logging:main")).isEmpty();
+    }
+}
@@ -0,0 +1,96 @@
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Bob McWhirter
+ */
+public class UberJarTest {
+
+    @Test
+    public void testUberJar() throws Exception {
+        File file = File.createTempFile("uberjar", ".jar");
+        file.deleteOnExit();
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(UberJarManifest.WILDFLY_SWARM_MAIN_CLASS_ATTRIBUTE, "com.example.Main");
+
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest)) {
+            out.putNextEntry(new ZipEntry(UberJar.PROPERTIES_ENTRY));
+            out.write("swarm.uberjar.test=fish\n".getBytes("UTF-8"));
+            out.closeEntry();
+        }
+
+        UberJar jar = UberJar.of(file.toPath());
+        assertThat(jar).isSameAs(UberJar.of(file.toPath()));
+        assertThat(jar.isUberJar()).isTrue();
+        assertThat(jar.getProperties().getProperty("swarm.uberjar.test")).isEqualTo("fish");
+        assertThat(new UberJarManifest(jar.getManifest()).getMainClassName()).isEqualTo("com.example.Main");
+        assertThat(jar.getJarFile()).isSameAs(jar.getJarFile());
+
+        System.clearProperty("swarm.uberjar.test");
+        jar.applyProperties();
+        assertThat(System.getProperty("swarm.uberjar.test")).isEqualTo("fish");
+        System.clearProperty("swarm.uberjar.test");
+    }
+
+    @Test
+    public void testPlainJar() throws Exception {
+        File file = File.createTempFile("plain", ".jar");
+        file.deleteOnExit();
+
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("foo.txt"));
+            out.closeEntry();
+        }
+
+        UberJar jar = UberJar.of(file.toPath());
+        assertThat(jar.isUberJar()).isFalse();
+        assertThat(jar.getManifest()).isNull();
+    }
+
+    @Test
+    public void testZip64FallsBackToJarFile() throws Exception {
+        File file = File.createTempFile("zip64", ".jar");
+        file.deleteOnExit();
+
+        // more than 65535 entries forces a Zip64 central directory
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry(UberJar.PROPERTIES_ENTRY));
+            out.write("swarm.uberjar.test=fish\n".getBytes("UTF-8"));
+            out.closeEntry();
+            for (int i = 0; i < 0x10000; ++i) {
+                out.putNextEntry(new ZipEntry("entry-" + i));
+                out.closeEntry();
+            }
+        }
+
+        UberJar jar = UberJar.of(file.toPath());
+        try {
+            jar.getDirectory();
+            fail("Zip64 jars cannot be mapped");
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(jar.isUberJar()).isTrue();
+        assertThat(jar.getProperties().getProperty("swarm.uberjar.test")).isEqualTo("fish");
+        assertThat(jar.getInputStream("entry-1")).isNotNull();
+    }
+
+    @Test
+    public void testNotAFile() throws Exception {
+        assertThat(UberJar.of(new File(System.getProperty("java.io.tmpdir")).toPath())).isNull();
+    }
+}
@@ -2,10 +2,22 @@ package org.wildfly.swarm.bootstrap.util;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.modules.ConcreteModuleSpec;
+import org.jboss.modules.DependencySpec;
+import org.jboss.modules.ModuleDependencySpec;
+import org.jboss.modules.ModuleIdentifier;
+import org.jboss.modules.ModuleSpec;
+import org.junit.After;
 import org.junit.Test;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * @author Bob McWhirter
@@ -49,4 +61,131 @@ public class WildFlySwarmApplicationConfTest {
         assertThat( pathEntry.getPath() ).isEqualTo( "_bootstrap/myapp.war" );
 
     }
+
+    @After
+    public void clearProperties() {
+        System.clearProperty(WildFlySwarmApplicationConf.PARALLEL_PROPERTY);
+        System.clearProperty(WildFlySwarmApplicationConf.PARALLELISM_PROPERTY);
+    }
+
+    @Test
+    public void testParallelApplyKeepsSerialOrder() throws Exception {
+        WildFlySwarmApplicationConf appConf = new WildFlySwarmApplicationConf();
+        for (int i = 0; i < 8; ++i) {
+            // earlier entries take longer, so they finish resolving last
+            appConf.addEntry(new SlowEntry("com.slow" + i, (8 - i) * 10));
+            appConf.addEntry(new WildFlySwarmApplicationConf.ModuleEntry("com.module" + i));
+        }
+
+        System.setProperty(WildFlySwarmApplicationConf.PARALLEL_PROPERTY, "false");
+        List<String> serial = dependencies(appConf);
+
+        System.clearProperty(WildFlySwarmApplicationConf.PARALLEL_PROPERTY);
+        System.setProperty(WildFlySwarmApplicationConf.PARALLELISM_PROPERTY, "4");
+        List<String> parallel = dependencies(appConf);
+
+        assertThat(serial).hasSize(16);
+        assertThat(serial.get(0)).isEqualTo("com.slow0:main");
+        assertThat(serial.get(1)).isEqualTo("com.module0:main");
+        assertThat(parallel).isEqualTo(serial);
+    }
+
+    @Test
+    public void testFailedParallelApplyClosesUnappliedEntries() throws Exception {
+        List<String> closed = Collections.synchronizedList(new ArrayList<>());
+
+        WildFlySwarmApplicationConf appConf = new WildFlySwarmApplicationConf();
+        appConf.addEntry(new ClosingEntry("com.first", closed));
+        appConf.addEntry(new FailingEntry());
+        appConf.addEntry(new ClosingEntry("com.third", closed));
+        appConf.addEntry(new ClosingEntry("com.fourth", closed));
+
+        System.setProperty(WildFlySwarmApplicationConf.PARALLELISM_PROPERTY, "4");
+        try {
+            appConf.apply(ModuleSpec.build(ModuleIdentifier.create("test.app")));
+            fail("expected the failing entry to stop apply()");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("Unable to locate artifact: broken");
+        }
+
+        // the first entry went to the builder, the rest were resolved but never applied
+        assertThat(closed).hasSize(2);
+        assertThat(closed).containsOnly("com.third", "com.fourth");
+    }
+
+    private static List<String> dependencies(WildFlySwarmApplicationConf appConf) throws Exception {
+        ModuleSpec.Builder builder = ModuleSpec.build(ModuleIdentifier.create("test.app"));
+        appConf.apply(builder);
+
+        List<String> dependencies = new ArrayList<>();
+        for (DependencySpec spec : ((ConcreteModuleSpec) builder.create()).getDependencies()) {
+            dependencies.add(((ModuleDependencySpec) spec).getIdentifier().toString());
+        }
+        return dependencies;
+    }
+
+    private static class SlowEntry extends WildFlySwarmApplicationConf.Entry {
+
+        private final String name;
+
+        private final long delay;
+
+        SlowEntry(String name, long delay) {
+            this.name = name;
+            this.delay = delay;
+        }
+
+        @Override
+        WildFlySwarmApplicationConf.Resolved resolve() throws Exception {
+            Thread.sleep(this.delay);
+            return (builder) -> builder.addDependency(DependencySpec.createModuleDependencySpec(ModuleIdentifier.create(this.name)));
+        }
+
+        @Override
+        void write(PrintWriter writer) {
+        }
+    }
+
+    private static class ClosingEntry extends WildFlySwarmApplicationConf.Entry {
+
+        private final String name;
+
+        private final List<String> closed;
+
+        ClosingEntry(String name, List<String> closed) {
+            this.name = name;
+            this.closed = closed;
+        }
+
+        @Override
+        WildFlySwarmApplicationConf.Resolved resolve() {
+            return new WildFlySwarmApplicationConf.Resolved() {
+                @Override
+                public void apply(ModuleSpec.Builder builder) {
+                    builder.addDependency(DependencySpec.createModuleDependencySpec(ModuleIdentifier.create(ClosingEntry.this.name)));
+                }
+
+                @Override
+                public void close() {
+                    ClosingEntry.this.closed.add(ClosingEntry.this.name);
+                }
+            };
+        }
+
+        @Override
+        void write(PrintWriter writer) {
+        }
+    }
+
+    private static class FailingEntry extends WildFlySwarmApplicationConf.Entry {
+
+        @Override
+        WildFlySwarmApplicationConf.Resolved resolve() throws IOException {
+            throw new IOException("Unable to locate artifact: broken");
+        }
+
+        @Override
+        void write(PrintWriter writer) {
+        }
+    }
 }
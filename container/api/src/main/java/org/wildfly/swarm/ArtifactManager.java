@@ -18,11 +18,10 @@ package org.wildfly.swarm;
 import org.jboss.modules.MavenArtifactUtil;
 import org.jboss.modules.ModuleLoadException;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
-import org.jboss.shrinkwrap.api.asset.FileAsset;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
-import org.jboss.shrinkwrap.impl.base.importer.zip.ZipImporterImpl;
 import org.wildfly.swarm.bootstrap.util.MavenArtifactDescriptor;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmDependenciesConf;
+import org.wildfly.swarm.container.util.FileBackedAssets;
 
 import java.io.*;
 import java.nio.file.FileVisitResult;
@@ -64,14 +63,14 @@ public class ArtifactManager {
             throw new RuntimeException("Artifact not found.");
         }
         JavaArchive archive = ShrinkWrap.create(JavaArchive.class, file.getName());
-        new ZipImporterImpl(archive).importFrom(file);
+        FileBackedAssets.importFrom(archive, file);
         return archive;
     }
 
     public JavaArchive artifact(String gav, String asName) throws IOException, ModuleLoadException {
         File file = findFile(gav);
         JavaArchive archive = ShrinkWrap.create(JavaArchive.class, asName);
-        new ZipImporterImpl(archive).importFrom(file);
+        FileBackedAssets.importFrom(archive, file);
         return archive;
     }
 
@@ -82,7 +81,7 @@ public class ArtifactManager {
             for (MavenArtifactDescriptor each : this.deps.getPrimaryDependencies()) {
                 File artifact = MavenArtifactUtil.resolveJarArtifact(each.mscGav());
                 JavaArchive archive = ShrinkWrap.create(JavaArchive.class, artifact.getName());
-                new ZipImporterImpl(archive).importFrom(artifact);
+                FileBackedAssets.importFrom(archive, artifact);
                 archives.add(archive);
             }
         } else {
@@ -97,7 +96,7 @@ public class ArtifactManager {
                         File artifact = new File(elements[i]);
                         if (artifact.isFile()) {
                             JavaArchive archive = ShrinkWrap.create(JavaArchive.class, artifact.getName());
-                            new ZipImporterImpl(archive).importFrom(artifact);
+                            FileBackedAssets.importFrom(archive, artifact);
                             archives.add(archive);
                         } else {
                             if (artifact.toPath().startsWith(pwd)) {
@@ -110,7 +109,7 @@ public class ArtifactManager {
                                 @Override
                                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
                                     //System.err.println(  basePath.relativize(file).toString() );
-                                    archive.add(new FileAsset(file.toFile()), basePath.relativize(file).toString());
+                                    archive.add(FileBackedAssets.fileAsset(file.toFile()), basePath.relativize(file).toString());
                                     return FileVisitResult.CONTINUE;
                                 }
                             });
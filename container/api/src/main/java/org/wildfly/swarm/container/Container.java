@@ -25,7 +25,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -37,9 +36,7 @@ import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.jar.JarFile;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
 
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleIdentifier;
@@ -55,6 +52,8 @@ import org.jboss.shrinkwrap.impl.base.exporter.zip.ZipExporterImpl;
 import org.jboss.shrinkwrap.impl.base.spec.JavaArchiveImpl;
 import org.jboss.shrinkwrap.impl.base.spec.WebArchiveImpl;
 import org.wildfly.swarm.bootstrap.modules.BootModuleLoader;
+import org.wildfly.swarm.bootstrap.util.BootTimeline;
+import org.wildfly.swarm.bootstrap.util.UberJar;
 
 /**
  * A WildFly-Swarm container.
@@ -95,7 +94,11 @@ public class Container {
 
     private Deployer deployer;
 
-    private Domain domain;
+    private static Domain DOMAIN;
+
+    private static Map<String, DefaultDeploymentFactory> DEPLOYMENT_FACTORIES;
+
+    private static String DEPLOYMENT_TYPE;
 
     /**
      * Command line args if any
@@ -121,11 +124,22 @@ public class Container {
      */
     public Container(boolean debugBootstrap) throws Exception {
         System.setProperty("wildfly.swarm.version", VERSION);
-        createServer(debugBootstrap);
-        createShrinkWrapDomain();
+        try (BootTimeline.Phase phase = BootTimeline.begin("container: create server")) {
+            createServer(debugBootstrap);
+        }
+        try (BootTimeline.Phase phase = BootTimeline.begin("container: create shrinkwrap domain")) {
+            createShrinkWrapDomain();
+        }
     }
 
-    private void createShrinkWrapDomain() throws ModuleLoadException {
+    /**
+     * Set up ShrinkWrap's default domain, once per JVM. Applications create archives through
+     * the default domain as soon as they have a container, so this cannot wait for a deployment.
+     */
+    private static synchronized void createShrinkWrapDomain() throws ModuleLoadException {
+        if (DOMAIN != null) {
+            return;
+        }
         ClassLoader originalCl = Thread.currentThread().getContextClassLoader();
         try {
             if (isFatJar()) {
@@ -133,10 +147,11 @@ public class Container {
                 Module appModule = Module.getBootModuleLoader().loadModule(ModuleIdentifier.create("swarm.application"));
                 Thread.currentThread().setContextClassLoader(appModule.getClassLoader());
             }
-            this.domain = ShrinkWrap.getDefaultDomain();
-            this.domain.getConfiguration().getExtensionLoader().addOverride(ZipExporter.class, ZipExporterImpl.class);
-            this.domain.getConfiguration().getExtensionLoader().addOverride(JavaArchive.class, JavaArchiveImpl.class);
-            this.domain.getConfiguration().getExtensionLoader().addOverride(WebArchive.class, WebArchiveImpl.class);
+            Domain domain = ShrinkWrap.getDefaultDomain();
+            domain.getConfiguration().getExtensionLoader().addOverride(ZipExporter.class, ZipExporterImpl.class);
+            domain.getConfiguration().getExtensionLoader().addOverride(JavaArchive.class, JavaArchiveImpl.class);
+            domain.getConfiguration().getExtensionLoader().addOverride(WebArchive.class, WebArchiveImpl.class);
+            DOMAIN = domain;
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
@@ -179,6 +194,22 @@ public class Container {
         }
     }
 
+    /**
+     * Add the fractions that the fractions added so far depend upon, transitively.
+     *
+     * <p>Used by lean boots, which only bring up the runtimes of these fractions.</p>
+     *
+     * @return The types of all fractions now in the container.
+     */
+    public Set<Class<? extends Fraction>> resolveFractionTypes() {
+        while (!this.dependentFractions.isEmpty()) {
+            List<Fraction> pending = new ArrayList<>(this.dependentFractions);
+            this.dependentFractions.clear();
+            pending.stream().filter(dependentFraction -> this.fractions.get(fractionRoot(dependentFraction.getClass())) == null).forEach(this::fraction);
+        }
+        return new HashSet<>(this.fractions.keySet());
+    }
+
     /**
      * Add a fraction to the container.
      *
@@ -256,6 +287,19 @@ public class Container {
         return this.interfaces;
     }
 
+    /**
+     * Select the runtime profile whose defaults fractions use.
+     *
+     * <p>Must be called before fractions are created or the container is started.</p>
+     *
+     * @param profile The profile.
+     * @return The container.
+     */
+    public Container runtimeProfile(RuntimeProfile profile) {
+        System.setProperty(RuntimeProfile.PROPERTY, profile.name().toLowerCase());
+        return this;
+    }
+
     /**
      * Configure a socket-binding-group.
      *
@@ -375,6 +419,45 @@ public class Container {
         return this;
     }
 
+    /**
+     * Deploy several archives, preparing them in parallel and adding them in one operation.
+     *
+     * @param deployments The ShrinkWrap archives to deploy.
+     * @return The container.
+     * @throws Exception if an error occurs.
+     */
+    public Container deployAll(List<Archive> deployments) throws Exception {
+        this.deployer.deployAll(deployments);
+        return this;
+    }
+
+    /**
+     * Redeploy an archive, replacing the running deployment with its new build.
+     *
+     * <p>The deployment is always replaced as a whole; the runtime only avoids re-reading
+     * the entries that did not change. An unchanged archive is not redeployed at all.</p>
+     *
+     * @param deployment The ShrinkWrap archive to redeploy.
+     * @return The container.
+     * @throws Exception if an error occurs.
+     */
+    public Container redeploy(Archive deployment) throws Exception {
+        this.deployer.redeploy(deployment);
+        return this;
+    }
+
+    /**
+     * Undeploy an archive.
+     *
+     * @param deploymentName The name of the deployed archive.
+     * @return The container.
+     * @throws Exception if an error occurs.
+     */
+    public Container undeploy(String deploymentName) throws Exception {
+        this.deployer.undeploy(deploymentName);
+        return this;
+    }
+
     /**
      * Get the possibly null container main method arguments.
      *
@@ -430,6 +513,24 @@ public class Container {
 
 
     protected Archive createDefaultDeployment() throws Exception {
+        String type = determineDeploymentType();
+        DefaultDeploymentFactory factory = defaultDeploymentFactories().get(type);
+
+        if (factory != null) {
+            return factory.create(this);
+        }
+
+        return null;
+    }
+
+    /**
+     * The highest priority factory of each deployment type, discovered on first use.
+     */
+    private static synchronized Map<String, DefaultDeploymentFactory> defaultDeploymentFactories() throws ModuleLoadException {
+        if (DEPLOYMENT_FACTORIES != null) {
+            return DEPLOYMENT_FACTORIES;
+        }
+
         Module m1 = Module.getBootModuleLoader().loadModule(ModuleIdentifier.create("swarm.application"));
         ServiceLoader<DefaultDeploymentFactory> providerLoader = m1.loadService(DefaultDeploymentFactory.class);
 
@@ -456,16 +557,15 @@ public class Container {
             }
         }
 
-        String type = determineDeploymentType();
-        DefaultDeploymentFactory factory = factories.get(type);
-
-        if (factory != null) {
-            return factory.create(this);
-        }
-
-        return null;
+        DEPLOYMENT_FACTORIES = factories;
+        return factories;
     }
 
+    /**
+     * The type of the default deployment, <code>jar</code> or <code>war</code>: the extension of
+     * <code>wildfly.swarm.app.path</code> when given, else the type the uber-jar recorded when
+     * built, otherwise worked out once from the project.
+     */
     protected String determineDeploymentType() throws IOException {
         String artifact = System.getProperty("wildfly.swarm.app.path");
         if (artifact != null) {
@@ -475,6 +575,12 @@ public class Container {
             }
         }
 
+        // recorded in the uber-jar, for when the application is not run from its artifact
+        String type = System.getProperty("wildfly.swarm.app.type");
+        if (type != null && !type.isEmpty()) {
+            return type;
+        }
+
         artifact = System.getProperty("wildfly.swarm.app.artifact");
         if (artifact != null) {
             int dotLoc = artifact.lastIndexOf('.');
@@ -483,6 +589,15 @@ public class Container {
             }
         }
 
+        synchronized (Container.class) {
+            if (DEPLOYMENT_TYPE == null) {
+                DEPLOYMENT_TYPE = determineProjectPackaging();
+            }
+            return DEPLOYMENT_TYPE;
+        }
+    }
+
+    private static String determineProjectPackaging() throws IOException {
         if (Files.exists(Paths.get("pom.xml"))) {
             try (BufferedReader in = new BufferedReader(new FileReader(Paths.get("pom.xml").toFile()))) {
                 String line = null;
@@ -530,29 +645,10 @@ public class Container {
             return true;
         }
 
-        if (Files.isRegularFile(root)) {
-            try (JarFile jar = new JarFile(root.toFile())) {
-                ZipEntry propsEntry = jar.getEntry("META-INF/wildfly-swarm.properties");
-                if (propsEntry != null) {
-                    try (InputStream in = jar.getInputStream(propsEntry)) {
-                        Properties props = new Properties();
-                        props.load(in);
-                        if (props.containsKey("wildfly.swarm.app.artifact")) {
-                            System.setProperty("wildfly.swarm.app.artifact", props.getProperty("wildfly.swarm.app.artifact"));
-                        }
-
-                        Enumeration<String> names = (Enumeration<String>) props.propertyNames();
-                        while (names.hasMoreElements()) {
-                            String name = names.nextElement();
-                            String value = props.getProperty(name);
-                            if (System.getProperty(name) == null) {
-                                System.setProperty(name, value);
-                            }
-                        }
-                    }
-                    return true;
-                }
-            }
+        UberJar jar = UberJar.of(root);
+        if (jar != null && jar.isUberJar()) {
+            jar.applyProperties();
+            return true;
         }
 
         return false;
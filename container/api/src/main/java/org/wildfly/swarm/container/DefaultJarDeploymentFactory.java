@@ -17,7 +17,6 @@ package org.wildfly.swarm.container;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -29,7 +28,7 @@ import java.util.UUID;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
-import org.jboss.shrinkwrap.impl.base.importer.zip.ZipImporterImpl;
+import org.wildfly.swarm.container.util.ApplicationArtifact;
 
 /**
  * @author Bob McWhirter
@@ -91,8 +90,11 @@ public class DefaultJarDeploymentFactory implements DefaultDeploymentFactory {
                     }
                 });
             } else {
-                ZipImporterImpl importer = new ZipImporterImpl(archive);
-                importer.importFrom(new File(System.getProperty("wildfly.swarm.app.path")));
+                ApplicationArtifact app = ApplicationArtifact.getInstance();
+                if (app == null) {
+                    throw new IOException("Unable to locate application: " + path);
+                }
+                app.addTo(archive);
             }
             return true;
         }
@@ -101,13 +103,10 @@ public class DefaultJarDeploymentFactory implements DefaultDeploymentFactory {
     }
 
     protected boolean setupUsingAppArtifact(JARArchive archive) throws IOException {
-        String appArtifact = System.getProperty("wildfly.swarm.app.artifact");
+        ApplicationArtifact app = ApplicationArtifact.getInstance();
 
-        if (appArtifact != null) {
-            try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream("_bootstrap/" + appArtifact)) {
-                ZipImporterImpl importer = new ZipImporterImpl(archive);
-                importer.importFrom(in);
-            }
+        if (app != null) {
+            app.addTo(archive);
             return true;
         }
 
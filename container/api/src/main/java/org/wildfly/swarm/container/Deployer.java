@@ -16,6 +16,8 @@
 package org.wildfly.swarm.container;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.jboss.shrinkwrap.api.Archive;
 
@@ -24,4 +26,82 @@ import org.jboss.shrinkwrap.api.Archive;
  */
 public interface Deployer {
     void deploy(Archive deployment) throws IOException;
+
+    /**
+     * Deploy several archives together, all or none.
+     *
+     * <p>By default the archives are deployed one at a time, and those deployed before a
+     * failure stay deployed.</p>
+     *
+     * @param deployments The archives to deploy.
+     * @throws IOException If any of them could not be deployed.
+     */
+    default void deployAll(List<Archive> deployments) throws IOException {
+        for (Archive each : deployments) {
+            deploy(each);
+        }
+    }
+
+    /**
+     * Redeploy an archive, replacing the deployment with its new build.
+     *
+     * <p>By default the deployment is undeployed and deployed again.</p>
+     *
+     * @param deployment The new build of a deployed archive; deployed if it is not yet.
+     * @throws IOException If an error occurs.
+     */
+    default void redeploy(Archive deployment) throws IOException {
+        undeploy(deployment.getName());
+        deploy(deployment);
+    }
+
+    /**
+     * Undeploy a deployment, releasing its content once nothing else uses it.
+     *
+     * @param deploymentName The name of the deployed archive.
+     * @throws IOException If it is not deployed or could not be removed.
+     */
+    void undeploy(String deploymentName) throws IOException;
+
+    /**
+     * Deploy an archive without waiting for it.
+     *
+     * <p>By default the archive is deployed on the calling thread, and the future returned
+     * already completed.</p>
+     *
+     * @param deployment The archive to deploy.
+     * @return Completed once the archive is deployed, or exceptionally if it could not be.
+     */
+    default CompletableFuture<Void> deployAsync(Archive deployment) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            deploy(deployment);
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    default CompletableFuture<Void> redeployAsync(Archive deployment) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            redeploy(deployment);
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    default CompletableFuture<Void> undeployAsync(String deploymentName) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            undeploy(deploymentName);
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
 }
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.wildfly.swarm.container.util.ResourceLimits;
+
+/**
+ * A set of defaults applied across fractions as a group.
+ *
+ * <p>Select one with <code>swarm.runtime.profile</code> (<code>default</code> or
+ * <code>lean</code>), or {@link Container#runtimeProfile(RuntimeProfile)} before the
+ * container starts. The <code>lean</code> profile is meant for small containers, of
+ * 256M or so: fractions use smaller buffers, caches, journals and thread pools for
+ * the settings they would otherwise default. Anything configured explicitly is left
+ * alone.</p>
+ *
+ * <p>Fractions choose their defaults with {@link #select(String, String, Object, Object)},
+ * or record lean-only settings with {@link #budget(String, String, Object)}; the container
+ * prints what was chosen once it has started.</p>
+ *
+ * @author Bob McWhirter
+ */
+public enum RuntimeProfile {
+
+    DEFAULT,
+    LEAN;
+
+    public static final String PROPERTY = "swarm.runtime.profile";
+
+    private static final Map<String, Object> BUDGETS = new LinkedHashMap<>();
+
+    public static RuntimeProfile current() {
+        String name = System.getProperty(PROPERTY);
+        if (name == null || name.isEmpty()) {
+            return DEFAULT;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("[WARN] unknown " + PROPERTY + " '" + name + "', using default");
+            return DEFAULT;
+        }
+    }
+
+    public static boolean isLean() {
+        return current() == LEAN;
+    }
+
+    /**
+     * Choose a default for the current profile, and record the choice.
+     *
+     * @param fraction     The fraction, such as <code>undertow</code>.
+     * @param setting      What is being set, such as <code>buffer-cache max-regions</code>.
+     * @param defaultValue The value for the default profile.
+     * @param leanValue    The value for the lean profile.
+     * @return The value to use.
+     */
+    public static <T> T select(String fraction, String setting, T defaultValue, T leanValue) {
+        return budget(fraction, setting, isLean() ? leanValue : defaultValue);
+    }
+
+    /**
+     * Record a default chosen for the current profile.
+     *
+     * @return The value.
+     */
+    public static <T> T budget(String fraction, String setting, T value) {
+        synchronized (BUDGETS) {
+            BUDGETS.put(fraction + ": " + setting, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return The defaults chosen so far, by fraction and setting.
+     */
+    public static Map<String, Object> getBudgets() {
+        synchronized (BUDGETS) {
+            return new LinkedHashMap<>(BUDGETS);
+        }
+    }
+
+    /**
+     * Print the chosen defaults, unless running with the default profile.
+     */
+    public static void report() {
+        RuntimeProfile profile = current();
+        if (profile == DEFAULT) {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("[INFO] ").append(PROPERTY).append("=").append(profile.name().toLowerCase())
+                .append(" (").append(ResourceLimits.getInstance()).append(")\n");
+        for (Map.Entry<String, Object> each : getBudgets().entrySet()) {
+            report.append("         ").append(each.getKey()).append(" = ").append(each.getValue()).append("\n");
+        }
+        System.err.print(report);
+    }
+}
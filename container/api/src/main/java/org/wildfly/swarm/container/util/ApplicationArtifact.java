@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.wildfly.swarm.bootstrap.util.ExtractionCache;
+
+/**
+ * A read-only view of the application's own artifact, shared by everything that needs its
+ * contents: the default deployment, static content, and fractions looking for descriptors.
+ *
+ * <p>The artifact is <code>wildfly.swarm.app.path</code> when that is a file, or else
+ * <code>wildfly.swarm.app.artifact</code> as bundled under <code>_bootstrap/</code> in the
+ * uber-jar, extracted once to the extraction cache. It is opened once, and an entry is only
+ * read when its asset is, so adding the artifact to several archives costs no more than
+ * listing it. Large entries are memory-mapped, as {@link FileBackedAssets} describes.</p>
+ *
+ * <p>When the artifact is rebuilt, changing its size or modification time, the next
+ * {@link #getInstance()} opens it again. The jar it replaces is shared and closed as
+ * {@link FileBackedAssets} closes replaced imports.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ApplicationArtifact {
+
+    private static ApplicationArtifact INSTANCE;
+
+    private static boolean RESOLVED;
+
+    private final FileBackedAssets.Lease lease;
+
+    private final JarFile jar;
+
+    private List<String> names;
+
+    ApplicationArtifact(Path file) throws IOException {
+        this.lease = FileBackedAssets.lease(file.toFile());
+        this.jar = this.lease.getJar();
+    }
+
+    /**
+     * @return The application artifact, or <code>null</code> if it is not packaged as a file.
+     */
+    public static synchronized ApplicationArtifact getInstance() throws IOException {
+        if (!RESOLVED || (INSTANCE != null && !INSTANCE.isCurrent())) {
+            Path file = locate();
+            INSTANCE = file == null ? null : new ApplicationArtifact(file);
+            RESOLVED = true;
+        }
+        return INSTANCE;
+    }
+
+    private static Path locate() throws IOException {
+        String appPath = System.getProperty("wildfly.swarm.app.path");
+        if (appPath != null) {
+            Path path = Paths.get(appPath);
+            return Files.isRegularFile(path) ? path : null;
+        }
+
+        String appArtifact = System.getProperty("wildfly.swarm.app.artifact");
+        if (appArtifact != null) {
+            return ExtractionCache.getInstance().extract(ClassLoader.getSystemClassLoader(), "_bootstrap/" + appArtifact);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return <code>true</code> unless the artifact was rebuilt since it was opened.
+     */
+    boolean isCurrent() {
+        return this.lease.isCurrent();
+    }
+
+    /**
+     * @return The names of all entries, directories ending with <code>/</code>.
+     */
+    public synchronized List<String> getNames() {
+        if (this.names == null) {
+            List<String> names = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = this.jar.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+            this.names = Collections.unmodifiableList(names);
+        }
+        return this.names;
+    }
+
+    public boolean contains(String name) {
+        return this.jar.getEntry(name) != null;
+    }
+
+    /**
+     * @param name The entry, such as <code>WEB-INF/keycloak.json</code>.
+     * @return An asset reading the entry on demand, or <code>null</code> if there is no such file.
+     */
+    public Asset getAsset(String name) {
+        ZipEntry entry = this.jar.getEntry(name);
+        if (entry == null || entry.isDirectory()) {
+            return null;
+        }
+        return FileBackedAssets.entryAsset(this.lease, entry);
+    }
+
+    /**
+     * Add every entry to an archive, replacing what is already there, as importing the
+     * artifact would.
+     */
+    public void addTo(Archive<?> archive) {
+        for (String each : getNames()) {
+            if (each.endsWith("/")) {
+                archive.addAsDirectory(each);
+            } else {
+                archive.add(FileBackedAssets.entryAsset(this.lease, this.jar.getEntry(each)), each);
+            }
+        }
+    }
+}
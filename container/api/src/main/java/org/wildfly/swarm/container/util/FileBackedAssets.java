@@ -0,0 +1,256 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.impl.base.asset.ZipFileEntryAsset;
+import org.wildfly.swarm.bootstrap.util.ExtractionCache;
+
+/**
+ * Assets for the content of files and jars that never hold it on the heap.
+ *
+ * <p>Jar entries are read from the jar when needed. Those of at least
+ * <code>swarm.assets.mapped.threshold</code> bytes (1M by default; <code>-1</code> turns this
+ * off) are extracted once to the extraction cache and memory-mapped instead, as are files of
+ * that size, so the deployer can link them rather than stream them.</p>
+ *
+ * <p>Jars imported with {@link #importFrom(Archive, File)} are opened once and shared by
+ * every archive they are imported into, as {@link ApplicationArtifact} shares its own, so
+ * importing the same artifact again opens no further descriptors. A jar replaced by a newer
+ * build is closed once none of the assets imported from it are reachable any more.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class FileBackedAssets {
+
+    public static final String THRESHOLD_PROPERTY = "swarm.assets.mapped.threshold";
+
+    private static final long DEFAULT_THRESHOLD = 1024 * 1024;
+
+    private static final Map<File, SharedJar> JARS = new HashMap<>();
+
+    /** Jars replaced by a newer build, still read by assets imported from them. */
+    private static final Set<SharedJar> SUPERSEDED = new HashSet<>();
+
+    private static final ReferenceQueue<Lease> RELEASED = new ReferenceQueue<>();
+
+    private FileBackedAssets() {
+
+    }
+
+    static long threshold() {
+        return Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+    }
+
+    static boolean isLarge(long size) {
+        long threshold = threshold();
+        return threshold >= 0 && size >= threshold;
+    }
+
+    public static FileAsset fileAsset(File file) {
+        if (isLarge(file.length())) {
+            return new MappedFileAsset(file);
+        }
+        return new FileAsset(file);
+    }
+
+    /**
+     * @param jar   An open jar, which must stay open while the asset is in use.
+     * @param entry A file entry of the jar.
+     * @return An asset for the entry.
+     */
+    public static Asset entryAsset(JarFile jar, ZipEntry entry) {
+        Asset mapped = mappedEntryAsset(jar, entry);
+        return mapped != null ? mapped : new ZipFileEntryAsset(jar, entry);
+    }
+
+    /**
+     * An asset for an entry of a leased jar, which keeps the jar open while the asset is
+     * reachable.
+     */
+    static Asset entryAsset(Lease lease, ZipEntry entry) {
+        Asset mapped = mappedEntryAsset(lease.getJar(), entry);
+        return mapped != null ? mapped : new LeasedEntryAsset(lease, entry);
+    }
+
+    private static Asset mappedEntryAsset(JarFile jar, ZipEntry entry) {
+        if (isLarge(entry.getSize())) {
+            try {
+                Path extracted = ExtractionCache.getInstance().extract(jar, entry.getName());
+                if (extracted != null) {
+                    return new MappedFileAsset(extracted.toFile());
+                }
+            } catch (IOException e) {
+                // read it from the jar instead
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add every entry of a jar to an archive, as a zip import would, without reading any of
+     * them. The jar stays open for the assets to read from, shared with other imports of it.
+     */
+    public static void importFrom(Archive<?> archive, File file) throws IOException {
+        Lease lease = lease(file);
+        JarFile jar = lease.getJar();
+        Enumeration<JarEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            JarEntry each = entries.nextElement();
+            if (each.isDirectory()) {
+                archive.addAsDirectory(each.getName());
+            } else {
+                archive.add(entryAsset(lease, each), each.getName());
+            }
+        }
+    }
+
+    /**
+     * A reference to the open jar for the file, opening it again only if the file has changed
+     * since. The jar stays open at least as long as the lease is reachable.
+     */
+    static synchronized Lease lease(File file) throws IOException {
+        closeReleased();
+
+        File key = file.getCanonicalFile();
+        SharedJar shared = JARS.get(key);
+        if (shared == null || !shared.isCurrent(key)) {
+            if (shared != null) {
+                // assets of earlier imports may still read from the replaced jar
+                SUPERSEDED.add(shared);
+                shared.closeIfUnused();
+            }
+            shared = new SharedJar(key);
+            JARS.put(key, shared);
+        }
+        return shared.lease();
+    }
+
+    private static void closeReleased() {
+        Reference<? extends Lease> each;
+        while ((each = RELEASED.poll()) != null) {
+            ((LeaseReference) each).release();
+        }
+    }
+
+    /**
+     * Held by every asset of one import, so the jar can be closed once none of them is
+     * reachable.
+     */
+    static class Lease {
+
+        private final SharedJar shared;
+
+        Lease(SharedJar shared) {
+            this.shared = shared;
+        }
+
+        JarFile getJar() {
+            return this.shared.jar;
+        }
+
+        /**
+         * @return <code>true</code> unless the file was changed after the jar was opened.
+         */
+        boolean isCurrent() {
+            return this.shared.isCurrent(this.shared.file);
+        }
+    }
+
+    private static class LeaseReference extends WeakReference<Lease> {
+
+        private final SharedJar shared;
+
+        LeaseReference(Lease lease) {
+            super(lease, RELEASED);
+            this.shared = lease.shared;
+        }
+
+        void release() {
+            this.shared.leases.remove(this);
+            this.shared.closeIfUnused();
+        }
+    }
+
+    private static class LeasedEntryAsset extends ZipFileEntryAsset {
+
+        @SuppressWarnings("unused")
+        private final Lease lease;
+
+        LeasedEntryAsset(Lease lease, ZipEntry entry) {
+            super(lease.getJar(), entry);
+            this.lease = lease;
+        }
+    }
+
+    private static class SharedJar {
+
+        private final File file;
+
+        private final JarFile jar;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final Set<LeaseReference> leases = new HashSet<>();
+
+        SharedJar(File file) throws IOException {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+            this.jar = new JarFile(file, false);
+        }
+
+        boolean isCurrent(File file) {
+            return file.lastModified() == this.lastModified && file.length() == this.length;
+        }
+
+        Lease lease() {
+            Lease lease = new Lease(this);
+            this.leases.add(new LeaseReference(lease));
+            return lease;
+        }
+
+        void closeIfUnused() {
+            if (!this.leases.isEmpty() || !SUPERSEDED.remove(this)) {
+                return;
+            }
+            try {
+                this.jar.close();
+            } catch (IOException e) {
+                System.err.println("[WARN] unable to close replaced jar " + this.jar.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
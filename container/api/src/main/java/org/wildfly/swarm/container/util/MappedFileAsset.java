@@ -0,0 +1,113 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+
+/**
+ * A file asset read through a memory mapping, so its content is paged in from the file
+ * rather than copied onto the heap.
+ *
+ * <p>Being a {@link FileAsset}, the deployer can also link or copy the file directly
+ * instead of reading it at all.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class MappedFileAsset extends FileAsset {
+
+    public MappedFileAsset(File file) {
+        super(file);
+    }
+
+    /**
+     * @return Whether the file fits in a single mapping; a mapping is limited to 2GB.
+     */
+    public boolean isMappable() {
+        return getSource().length() <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return A read-only mapping of the whole file, which must be {@link #isMappable() mappable}.
+     */
+    public ByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(getSource().toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public InputStream openStream() {
+        if (isMappable()) {
+            try {
+                return new ByteBufferInputStream(map());
+            } catch (IOException e) {
+                // read it the ordinary way
+            }
+        }
+        return super.openStream();
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFileAsset [file=" + getSource().getAbsolutePath() + "]";
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The CPU and memory the process may actually use, read from its Linux cgroup (v1 or v2),
+ * and a policy for sizing thread pools from them.
+ *
+ * <p>Fractions use {@link #size(int, int, int)} for their default pool sizes. When the process
+ * is not limited by a CPU quota or memory limit, the defaults are kept as they are. Under
+ * limits, such as a Kubernetes pod with a 2 CPU quota, pools are scaled down to the CPUs and
+ * memory available, but never beyond their defaults. Pools configured explicitly are left
+ * alone, and <code>swarm.resource.sizing=false</code> turns the policy off.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ResourceLimits {
+
+    public static final String SIZING_PROPERTY = "swarm.resource.sizing";
+
+    /** Memory to budget for each thread: its stack, plus a share of the work it does. */
+    static final long MEMORY_PER_THREAD = 8 * 1024 * 1024;
+
+    /** cgroup v1 reports "no limit" as a huge page-aligned number. */
+    private static final long UNLIMITED = 1L << 60;
+
+    private static ResourceLimits INSTANCE;
+
+    private final int processors;
+
+    private final long memoryLimit;
+
+    private final boolean cpuLimited;
+
+    ResourceLimits(Path cgroupRoot, Path selfCgroup, int availableProcessors) {
+        List<String> ownPaths = readOwnPaths(selfCgroup);
+
+        double quota;
+        long memory;
+        try {
+            quota = readCpuQuota(cgroupRoot, ownPaths);
+            memory = readMemoryLimit(cgroupRoot, ownPaths);
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] unable to read cgroup limits: " + e.getMessage());
+            quota = -1;
+            memory = -1;
+        }
+
+        if (quota > 0 && Math.ceil(quota) < availableProcessors) {
+            this.processors = Math.max(1, (int) Math.ceil(quota));
+            this.cpuLimited = true;
+        } else {
+            this.processors = availableProcessors;
+            this.cpuLimited = false;
+        }
+        this.memoryLimit = memory;
+    }
+
+    public static synchronized ResourceLimits getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new ResourceLimits(Paths.get("/sys/fs/cgroup"), Paths.get("/proc/self/cgroup"), Runtime.getRuntime().availableProcessors());
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return The CPUs available, rounding a fractional quota up.
+     */
+    public int getProcessors() {
+        return this.processors;
+    }
+
+    /**
+     * @return The memory limit in bytes, or <code>-1</code> if there is none.
+     */
+    public long getMemoryLimit() {
+        return this.memoryLimit;
+    }
+
+    public boolean isLimited() {
+        return !"false".equals(System.getProperty(SIZING_PROPERTY)) && (this.cpuLimited || this.memoryLimit > 0);
+    }
+
+    /**
+     * The size of a thread pool.
+     *
+     * @param defaultSize The size to use when not limited, and the most ever used.
+     * @param perCpu      The threads per available CPU when limited.
+     * @param min         The fewest threads to use.
+     * @return The size of the pool.
+     */
+    public int size(int defaultSize, int perCpu, int min) {
+        if (!isLimited()) {
+            return defaultSize;
+        }
+        long size = (long) this.processors * perCpu;
+        if (this.memoryLimit > 0) {
+            size = Math.min(size, this.memoryLimit / MEMORY_PER_THREAD);
+        }
+        return (int) Math.max(Math.min(min, defaultSize), Math.min(size, defaultSize));
+    }
+
+    @Override
+    public String toString() {
+        return "cpus=" + this.processors + (this.cpuLimited ? " (quota)" : "")
+                + ", memory=" + (this.memoryLimit > 0 ? (this.memoryLimit / (1024 * 1024)) + "M" : "unlimited");
+    }
+
+    private static List<String> readOwnPaths(Path selfCgroup) {
+        // lines are "hierarchy-id:controllers:path"; v2 has the single line "0::path"
+        List<String> paths = new ArrayList<>();
+        for (String line : readLines(selfCgroup)) {
+            String[] parts = line.split(":", 3);
+            if (parts.length == 3 && !paths.contains(parts[2]) && !"/".equals(parts[2])) {
+                paths.add(parts[2]);
+            }
+        }
+        return paths;
+    }
+
+    private static double readCpuQuota(Path root, List<String> ownPaths) {
+        // v2: "max 100000" or "200000 100000"
+        String max = readFirst(root, ownPaths, "", "cpu.max");
+        if (max != null) {
+            String[] parts = max.trim().split("\\s+");
+            if (parts.length == 2 && !"max".equals(parts[0])) {
+                return Double.parseDouble(parts[0]) / Double.parseDouble(parts[1]);
+            }
+            return -1;
+        }
+
+        // v1: a quota of -1 means none
+        for (String controller : Arrays.asList("cpu", "cpu,cpuacct", "cpuacct,cpu")) {
+            String quota = readFirst(root, ownPaths, controller, "cpu.cfs_quota_us");
+            String period = readFirst(root, ownPaths, controller, "cpu.cfs_period_us");
+            if (quota != null && period != null) {
+                long q = Long.parseLong(quota.trim());
+                long p = Long.parseLong(period.trim());
+                return q > 0 && p > 0 ? (double) q / p : -1;
+            }
+        }
+        return -1;
+    }
+
+    private static long readMemoryLimit(Path root, List<String> ownPaths) {
+        String limit = readFirst(root, ownPaths, "", "memory.max");
+        if (limit == null) {
+            limit = readFirst(root, ownPaths, "memory", "memory.limit_in_bytes");
+        }
+        if (limit == null || "max".equals(limit.trim())) {
+            return -1;
+        }
+        long bytes = Long.parseLong(limit.trim());
+        return bytes > 0 && bytes < UNLIMITED ? bytes : -1;
+    }
+
+    /**
+     * Read a controller file of this process' own cgroup, falling back to the root of the
+     * hierarchy, which is what a container with its own cgroup namespace sees.
+     */
+    private static String readFirst(Path root, List<String> ownPaths, String controller, String file) {
+        Path base = controller.isEmpty() ? root : root.resolve(controller);
+        List<Path> candidates = new ArrayList<>();
+        for (String each : ownPaths) {
+            candidates.add(base.resolve(each.startsWith("/") ? each.substring(1) : each).resolve(file));
+        }
+        candidates.add(base.resolve(file));
+
+        for (Path each : candidates) {
+            List<String> lines = readLines(each);
+            if (!lines.isEmpty()) {
+                return lines.get(0);
+            }
+        }
+        return null;
+    }
+
+    private static List<String> readLines(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return new ArrayList<>();
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named, bounded thread pools shared by the container and its fractions.
+ *
+ * <p>Ask for a pool by name rather than creating executors or threads. Each pool is a
+ * scheduled executor of daemon threads named <code>swarm-&lt;name&gt;-N</code>, created on
+ * first use, with at most as many threads as requested by its first user, or as set
+ * with <code>swarm.threads.&lt;name&gt;</code>. Idle threads time out, so a pool costs
+ * nothing while unused.</p>
+ *
+ * <p>Pools are shared: never shut one down. They outlive the container, as fraction clients
+ * may hold on to a pool across a restart; their threads are daemons that time out once idle,
+ * so a stopped container leaves nothing running.</p>
+ *
+ * <pre>
+ * ScheduledExecutorService scheduler = ThreadPools.getInstance().scheduler("ribbon-keep-alive", 1);
+ * </pre>
+ *
+ * @author Bob McWhirter
+ */
+public class ThreadPools {
+
+    public static final String THREADS_PROPERTY_PREFIX = "swarm.threads.";
+
+    private static final ThreadPools INSTANCE = new ThreadPools();
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final Map<String, ScheduledThreadPoolExecutor> pools = new ConcurrentHashMap<>();
+
+    ThreadPools() {
+
+    }
+
+    public static ThreadPools getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param name       The name of the pool.
+     * @param maxThreads The number of threads, unless configured otherwise; ignored if the pool exists.
+     * @return The pool.
+     */
+    public ScheduledExecutorService scheduler(String name, int maxThreads) {
+        return this.pools.computeIfAbsent(name, n -> create(n, maxThreads));
+    }
+
+    private static ScheduledThreadPoolExecutor create(String name, int maxThreads) {
+        int threads = Math.max(1, Integer.getInteger(THREADS_PROPERTY_PREFIX + name, maxThreads));
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, new PoolThreadFactory(name));
+        executor.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * @return The metrics of each pool in use, by name.
+     */
+    public Map<String, Metrics> getMetrics() {
+        Map<String, Metrics> metrics = new TreeMap<>();
+        for (Map.Entry<String, ScheduledThreadPoolExecutor> each : this.pools.entrySet()) {
+            metrics.put(each.getKey(), new Metrics(each.getKey(), each.getValue()));
+        }
+        return metrics;
+    }
+
+    /**
+     * Shut down every pool, letting tasks already running finish. Only for registries owned
+     * by their caller, never the shared instance.
+     */
+    public void shutdown() {
+        for (String each : this.pools.keySet()) {
+            ScheduledThreadPoolExecutor executor = this.pools.remove(each);
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * A snapshot of one pool.
+     */
+    public static class Metrics {
+
+        private final String name;
+
+        private final int maxThreads;
+
+        private final int threads;
+
+        private final int activeThreads;
+
+        private final int largestThreads;
+
+        private final int queuedTasks;
+
+        private final long completedTasks;
+
+        Metrics(String name, ScheduledThreadPoolExecutor executor) {
+            this.name = name;
+            this.maxThreads = executor.getCorePoolSize();
+            this.threads = executor.getPoolSize();
+            this.activeThreads = executor.getActiveCount();
+            this.largestThreads = executor.getLargestPoolSize();
+            this.queuedTasks = executor.getQueue().size();
+            this.completedTasks = executor.getCompletedTaskCount();
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public int getMaxThreads() {
+            return this.maxThreads;
+        }
+
+        public int getThreads() {
+            return this.threads;
+        }
+
+        public int getActiveThreads() {
+            return this.activeThreads;
+        }
+
+        public int getLargestThreads() {
+            return this.largestThreads;
+        }
+
+        /** Tasks waiting for a thread, or for their scheduled time. */
+        public int getQueuedTasks() {
+            return this.queuedTasks;
+        }
+
+        public long getCompletedTasks() {
+            return this.completedTasks;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + ": " + this.activeThreads + "/" + this.threads + " active (max " + this.maxThreads
+                    + ", largest " + this.largestThreads + "), " + this.queuedTasks + " queued, " + this.completedTasks + " completed";
+        }
+    }
+
+    private static class PoolThreadFactory implements ThreadFactory {
+
+        private final String name;
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        PoolThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "swarm-" + this.name + "-" + this.counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.wildfly.swarm.container;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class DeployerTest {
+
+    @Test
+    public void testDefaultsBuildOnDeployAndUndeploy() throws Exception {
+        RecordingDeployer deployer = new RecordingDeployer();
+        Archive fish = ShrinkWrap.create(JavaArchive.class, "fish.jar");
+        Archive cat = ShrinkWrap.create(JavaArchive.class, "cat.jar");
+
+        deployer.deployAll(Arrays.asList(fish, cat));
+        deployer.redeploy(fish);
+
+        assertThat(deployer.calls).containsExactly("deploy fish.jar", "deploy cat.jar", "undeploy fish.jar", "deploy fish.jar");
+    }
+
+    @Test
+    public void testDefaultAsyncMethodsReportFailures() throws Exception {
+        RecordingDeployer deployer = new RecordingDeployer();
+        Archive fish = ShrinkWrap.create(JavaArchive.class, "fish.jar");
+
+        assertThat(deployer.deployAsync(fish).isCompletedExceptionally()).isFalse();
+
+        deployer.failUndeploy = true;
+        CompletableFuture<Void> redeploy = deployer.redeployAsync(fish);
+        assertThat(redeploy.isCompletedExceptionally()).isTrue();
+        assertThat(deployer.undeployAsync("fish.jar").isCompletedExceptionally()).isTrue();
+
+        // the failed undeploy stops the redeploy before deploying again
+        assertThat(deployer.calls).containsExactly("deploy fish.jar");
+    }
+
+    private static class RecordingDeployer implements Deployer {
+
+        private final List<String> calls = new ArrayList<>();
+
+        private boolean failUndeploy;
+
+        @Override
+        public void deploy(Archive deployment) throws IOException {
+            this.calls.add("deploy " + deployment.getName());
+        }
+
+        @Override
+        public void undeploy(String deploymentName) throws IOException {
+            if (this.failUndeploy) {
+                throw new IOException("Not deployed: " + deploymentName);
+            }
+            this.calls.add("undeploy " + deploymentName);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.wildfly.swarm.container;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class RuntimeProfileTest {
+
+    @After
+    public void clearProfile() {
+        System.clearProperty(RuntimeProfile.PROPERTY);
+    }
+
+    @Test
+    public void testDefault() {
+        assertThat(RuntimeProfile.current()).isEqualTo(RuntimeProfile.DEFAULT);
+        assertThat(RuntimeProfile.select("test", "default-size", 10, 2)).isEqualTo(10);
+        assertThat(RuntimeProfile.getBudgets().get("test: default-size")).isEqualTo(10);
+    }
+
+    @Test
+    public void testLean() {
+        System.setProperty(RuntimeProfile.PROPERTY, "lean");
+        assertThat(RuntimeProfile.isLean()).isTrue();
+        assertThat(RuntimeProfile.select("test", "lean-size", 10, 2)).isEqualTo(2);
+        assertThat(RuntimeProfile.getBudgets().get("test: lean-size")).isEqualTo(2);
+    }
+
+    @Test
+    public void testUnknown() {
+        System.setProperty(RuntimeProfile.PROPERTY, "tiny");
+        assertThat(RuntimeProfile.current()).isEqualTo(RuntimeProfile.DEFAULT);
+    }
+}
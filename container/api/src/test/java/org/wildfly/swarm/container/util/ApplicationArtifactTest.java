@@ -0,0 +1,104 @@
+package org.wildfly.swarm.container.util;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class ApplicationArtifactTest {
+
+    @Test
+    public void testView() throws Exception {
+        Path file = Files.createTempFile("app", ".war");
+        try (OutputStream out = Files.newOutputStream(file);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("WEB-INF/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("WEB-INF/keycloak.json"));
+            zip.write("{}".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("index.html"));
+            zip.write("<html/>".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        ApplicationArtifact app = new ApplicationArtifact(file);
+
+        assertThat(app.getNames()).containsExactly("WEB-INF/", "WEB-INF/keycloak.json", "index.html");
+        assertThat(app.contains("index.html")).isTrue();
+        assertThat(app.getAsset("keycloak.json")).isNull();
+        assertThat(app.getAsset("WEB-INF/")).isNull();
+
+        Asset json = app.getAsset("WEB-INF/keycloak.json");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(json.openStream(), StandardCharsets.UTF_8))) {
+            assertThat(reader.readLine()).isEqualTo("{}");
+        }
+
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        app.addTo(archive);
+        assertThat(archive.contains("WEB-INF/keycloak.json")).isTrue();
+        assertThat(archive.contains("index.html")).isTrue();
+        assertThat(archive.get("WEB-INF").getAsset()).isNull();
+    }
+
+    @Test
+    public void testRebuiltArtifactIsOpenedAgain() throws Exception {
+        Path file = Files.createTempFile("app", ".jar");
+        writeJar(file, "fish.txt", "fish");
+
+        String previous = System.getProperty("wildfly.swarm.app.path");
+        System.setProperty("wildfly.swarm.app.path", file.toString());
+        try {
+            ApplicationArtifact first = ApplicationArtifact.getInstance();
+            assertThat(ApplicationArtifact.getInstance()).isSameAs(first);
+            Asset fish = first.getAsset("fish.txt");
+
+            writeJar(file, "cat.txt", "cat, not fish");
+
+            ApplicationArtifact second = ApplicationArtifact.getInstance();
+            assertThat(second).isNotSameAs(first);
+            assertThat(second.getNames()).containsExactly("cat.txt");
+            assertThat(ApplicationArtifact.getInstance()).isSameAs(second);
+
+            // assets of the earlier build still read from it
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fish.openStream(), StandardCharsets.UTF_8))) {
+                assertThat(reader.readLine()).isEqualTo("fish");
+            }
+        } finally {
+            if (previous == null) {
+                System.clearProperty("wildfly.swarm.app.path");
+            } else {
+                System.setProperty("wildfly.swarm.app.path", previous);
+            }
+        }
+    }
+
+    /**
+     * Write a new jar over the old one, as a rebuild would.
+     */
+    private static void writeJar(Path jar, String name, String content) throws Exception {
+        Path tmp = Files.createTempFile(jar.getParent(), "next", ".jar");
+        try (OutputStream out = Files.newOutputStream(tmp);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        Files.move(tmp, jar, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
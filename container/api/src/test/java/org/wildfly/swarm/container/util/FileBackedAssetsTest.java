@@ -0,0 +1,173 @@
+package org.wildfly.swarm.container.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class FileBackedAssetsTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(FileBackedAssets.THRESHOLD_PROPERTY);
+    }
+
+    @Test
+    public void testMappedFileAsset() throws Exception {
+        byte[] content = new byte[100000];
+        new Random(42).nextBytes(content);
+        Path file = Files.createTempFile("mapped", ".bin");
+        Files.write(file, content);
+
+        MappedFileAsset asset = new MappedFileAsset(file.toFile());
+        assertThat(read(asset)).isEqualTo(content);
+        assertThat(asset.map().remaining()).isEqualTo(content.length);
+    }
+
+    @Test
+    public void testThreshold() throws Exception {
+        System.setProperty(FileBackedAssets.THRESHOLD_PROPERTY, "1000");
+
+        Path small = Files.write(Files.createTempFile("small", ".txt"), new byte[10]);
+        Path large = Files.write(Files.createTempFile("large", ".bin"), new byte[2000]);
+
+        assertThat(FileBackedAssets.fileAsset(small.toFile()) instanceof MappedFileAsset).isFalse();
+        assertThat(FileBackedAssets.fileAsset(large.toFile())).isInstanceOf(MappedFileAsset.class);
+
+        System.setProperty(FileBackedAssets.THRESHOLD_PROPERTY, "-1");
+        assertThat(FileBackedAssets.fileAsset(large.toFile()) instanceof MappedFileAsset).isFalse();
+    }
+
+    @Test
+    public void testImport() throws Exception {
+        System.setProperty(FileBackedAssets.THRESHOLD_PROPERTY, "1000");
+
+        byte[] large = new byte[5000];
+        new Random(7).nextBytes(large);
+
+        Path jar = Files.createTempFile("import", ".jar");
+        try (OutputStream out = Files.newOutputStream(jar);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("lib/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("lib/large.bin"));
+            zip.write(large);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("small.txt"));
+            zip.write("small".getBytes());
+            zip.closeEntry();
+        }
+
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        FileBackedAssets.importFrom(archive, jar.toFile());
+
+        assertThat(archive.get("lib").getAsset()).isNull();
+        assertThat(archive.get("lib/large.bin").getAsset()).isInstanceOf(MappedFileAsset.class);
+        assertThat(read(archive.get("lib/large.bin").getAsset())).isEqualTo(large);
+        assertThat(new String(read(archive.get("small.txt").getAsset()))).isEqualTo("small");
+
+        try (JarFile file = new JarFile(jar.toFile())) {
+            assertThat(FileBackedAssets.entryAsset(file, file.getEntry("small.txt")) instanceof MappedFileAsset).isFalse();
+        }
+    }
+
+    @Test
+    public void testImportsShareTheJar() throws Exception {
+        Path jar = Files.createTempFile("shared", ".jar");
+        writeJar(jar, "fish.txt", "fish");
+
+        FileBackedAssets.Lease first = FileBackedAssets.lease(jar.toFile());
+        assertThat(FileBackedAssets.lease(jar.toFile()).getJar()).isSameAs(first.getJar());
+
+        writeJar(jar, "cat.txt", "cat, not fish");
+
+        JarFile second = FileBackedAssets.lease(jar.toFile()).getJar();
+        assertThat(second).isNotSameAs(first.getJar());
+        assertThat(second.getEntry("cat.txt")).isNotNull();
+
+        // still leased, so still open
+        assertThat(first.getJar().getEntry("fish.txt")).isNotNull();
+    }
+
+    @Test
+    public void testReplacedJarIsClosedOnceUnreachable() throws Exception {
+        Path jar = Files.createTempFile("replaced", ".jar");
+        writeJar(jar, "fish.txt", "fish");
+
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        FileBackedAssets.importFrom(archive, jar.toFile());
+        JarFile replaced = FileBackedAssets.lease(jar.toFile()).getJar();
+
+        writeJar(jar, "cat.txt", "cat, not fish");
+        JavaArchive next = ShrinkWrap.create(JavaArchive.class);
+        FileBackedAssets.importFrom(next, jar.toFile());
+
+        // the earlier import still reads from the replaced jar
+        assertThat(new String(read(archive.get("fish.txt").getAsset()))).isEqualTo("fish");
+        assertThat(new String(read(next.get("cat.txt").getAsset()))).isEqualTo("cat, not fish");
+
+        archive = null;
+        for (int i = 0; i < 50 && isOpen(replaced); ++i) {
+            System.gc();
+            Thread.sleep(10);
+            FileBackedAssets.lease(jar.toFile());
+        }
+        assertThat(isOpen(replaced)).isFalse();
+
+        // the current jar stays open
+        assertThat(new String(read(next.get("cat.txt").getAsset()))).isEqualTo("cat, not fish");
+    }
+
+    private static boolean isOpen(JarFile jar) {
+        try {
+            jar.size();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write a new jar over the old one, as a rebuild would, leaving the old file intact for
+     * whoever still has it open.
+     */
+    private static void writeJar(Path jar, String name, String content) throws Exception {
+        Path tmp = Files.createTempFile(jar.getParent(), "next", ".jar");
+        try (OutputStream out = Files.newOutputStream(tmp);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(content.getBytes());
+            zip.closeEntry();
+        }
+        Files.move(tmp, jar, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] read(Asset asset) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = asset.openStream()) {
+            byte[] buf = new byte[4096];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                out.write(buf, 0, len);
+            }
+        }
+        return out.toByteArray();
+    }
+}
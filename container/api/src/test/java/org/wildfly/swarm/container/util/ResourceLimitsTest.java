@@ -0,0 +1,83 @@
+package org.wildfly.swarm.container.util;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class ResourceLimitsTest {
+
+    @Test
+    public void testCgroupV2() throws Exception {
+        Path root = Files.createTempDirectory("cgroup");
+        Path own = root.resolve("kubepods/pod1");
+        Files.createDirectories(own);
+        write(own.resolve("cpu.max"), "200000 100000\n");
+        write(own.resolve("memory.max"), Long.toString(512L * 1024 * 1024) + "\n");
+        Path self = write(root.resolve("self"), "0::/kubepods/pod1\n");
+
+        ResourceLimits limits = new ResourceLimits(root, self, 64);
+        assertThat(limits.getProcessors()).isEqualTo(2);
+        assertThat(limits.getMemoryLimit()).isEqualTo(512L * 1024 * 1024);
+        assertThat(limits.isLimited()).isTrue();
+
+        assertThat(limits.size(200, 25, 4)).isEqualTo(50);
+        assertThat(limits.size(10, 4, 2)).isEqualTo(8);
+        assertThat(limits.size(4, 1, 1)).isEqualTo(2);
+    }
+
+    @Test
+    public void testCgroupV1() throws Exception {
+        Path root = Files.createTempDirectory("cgroup");
+        Files.createDirectories(root.resolve("cpu,cpuacct"));
+        Files.createDirectories(root.resolve("memory"));
+        write(root.resolve("cpu,cpuacct/cpu.cfs_quota_us"), "150000\n");
+        write(root.resolve("cpu,cpuacct/cpu.cfs_period_us"), "100000\n");
+        write(root.resolve("memory/memory.limit_in_bytes"), Long.toString(128L * 1024 * 1024) + "\n");
+        Path self = write(root.resolve("self"), "4:memory:/\n3:cpu,cpuacct:/\n");
+
+        ResourceLimits limits = new ResourceLimits(root, self, 8);
+        assertThat(limits.getProcessors()).isEqualTo(2);
+
+        // 128M only budgets 16 threads
+        assertThat(limits.size(200, 25, 4)).isEqualTo(16);
+    }
+
+    @Test
+    public void testUnlimited() throws Exception {
+        Path root = Files.createTempDirectory("cgroup");
+        write(root.resolve("cpu.max"), "max 100000\n");
+        write(root.resolve("memory.max"), "max\n");
+        Path self = write(root.resolve("self"), "0::/\n");
+
+        ResourceLimits limits = new ResourceLimits(root, self, 8);
+        assertThat(limits.getProcessors()).isEqualTo(8);
+        assertThat(limits.getMemoryLimit()).isEqualTo(-1L);
+        assertThat(limits.isLimited()).isFalse();
+        assertThat(limits.size(200, 25, 4)).isEqualTo(200);
+    }
+
+    @Test
+    public void testSizingDisabled() throws Exception {
+        Path root = Files.createTempDirectory("cgroup");
+        write(root.resolve("cpu.max"), "100000 100000\n");
+        Path self = write(root.resolve("self"), "0::/\n");
+
+        System.setProperty(ResourceLimits.SIZING_PROPERTY, "false");
+        try {
+            assertThat(new ResourceLimits(root, self, 8).size(10, 4, 2)).isEqualTo(10);
+        } finally {
+            System.clearProperty(ResourceLimits.SIZING_PROPERTY);
+        }
+    }
+
+    private static Path write(Path file, String content) throws Exception {
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,59 @@
+package org.wildfly.swarm.container.util;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class ThreadPoolsTest {
+
+    @Test
+    public void testSharedByName() throws Exception {
+        ThreadPools pools = new ThreadPools();
+        try {
+            ScheduledExecutorService scheduler = pools.scheduler("test", 2);
+            assertThat(pools.scheduler("test", 5)).isSameAs(scheduler);
+
+            String thread = scheduler.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+            assertThat(thread).startsWith("swarm-test-");
+
+            ThreadPools.Metrics metrics = pools.getMetrics().get("test");
+            assertThat(metrics.getMaxThreads()).isEqualTo(2);
+            assertThat(metrics.getLargestThreads()).isEqualTo(1);
+        } finally {
+            pools.shutdown();
+        }
+        assertThat(pools.getMetrics()).isEmpty();
+    }
+
+    @Test
+    public void testConfiguredSize() throws Exception {
+        ThreadPools pools = new ThreadPools();
+        System.setProperty(ThreadPools.THREADS_PROPERTY_PREFIX + "sized", "3");
+        try {
+            pools.scheduler("sized", 1);
+            assertThat(pools.getMetrics().get("sized").getMaxThreads()).isEqualTo(3);
+        } finally {
+            System.clearProperty(ThreadPools.THREADS_PROPERTY_PREFIX + "sized");
+            pools.shutdown();
+        }
+    }
+
+    @Test
+    public void testRecreatedAfterShutdown() throws Exception {
+        ThreadPools pools = new ThreadPools();
+        ScheduledExecutorService scheduler = pools.scheduler("again", 1);
+        pools.shutdown();
+        assertThat(scheduler.isShutdown()).isTrue();
+
+        ScheduledExecutorService next = pools.scheduler("again", 1);
+        assertThat(next).isNotSameAs(scheduler);
+        assertThat(next.isShutdown()).isFalse();
+        pools.shutdown();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+
+/**
+ * Writes an archive's nodes, uncompressed, into a directory.
+ *
+ * <p>File-backed assets are copied, never linked: the deployment may write to its
+ * exploded content, which must not reach the application's sources or files shared
+ * through the extraction cache. Nested archives, such as <code>WEB-INF/lib</code> jars, are written as
+ * zips, just as they would be inside an exported archive.</p>
+ *
+ * @author Bob McWhirter
+ */
+class ArchiveExploder {
+
+    private ArchiveExploder() {
+
+    }
+
+    /**
+     * @return The index of the archive, digested while it was written.
+     */
+    static ArchiveIndex explode(Archive<?> archive, Path dir) throws IOException {
+        SortedMap<String, byte[]> digests = new TreeMap<>();
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            String name = each.getKey().get();
+            if (name.startsWith("/")) {
+                name = name.substring(1);
+            }
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            Path target = dir.resolve(name);
+            Asset asset = each.getValue().getAsset();
+
+            if (asset == null) {
+                Files.createDirectories(target);
+                digests.put(each.getKey().get(), ArchiveIndex.DIRECTORY);
+                continue;
+            }
+
+            digests.put(each.getKey().get(), write(asset, target));
+        }
+        return new ArchiveIndex(digests);
+    }
+
+    /**
+     * Write a new version of an archive exploded before, copying the entries that did not
+     * change from the previous directory rather than reading them from the archive again.
+     *
+     * @param diff     The changes from the previous version.
+     * @param previous The directory the previous version was exploded into.
+     */
+    static void explode(Archive<?> archive, ArchiveIndex.Diff diff, Path previous, Path dir) throws IOException {
+        Set<String> changed = new HashSet<>(diff.getChanged());
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            String name = each.getKey().get();
+            if (name.startsWith("/")) {
+                name = name.substring(1);
+            }
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            Path target = dir.resolve(name);
+            Asset asset = each.getValue().getAsset();
+
+            if (asset == null) {
+                Files.createDirectories(target);
+                continue;
+            }
+
+            Path unchanged = previous.resolve(name);
+            if (!changed.contains(each.getKey().get()) && Files.isRegularFile(unchanged)) {
+                Files.createDirectories(target.getParent());
+                Files.copy(unchanged, target);
+            } else {
+                write(asset, target);
+            }
+        }
+    }
+
+    /**
+     * Write one asset, replacing (never writing through) whatever is at the target.
+     *
+     * @return The SHA-1 of the asset, as {@link ArchiveIndex} digests it.
+     */
+    static byte[] write(Asset asset, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+
+        if (asset instanceof ArchiveAsset) {
+            Archive<?> nested = ((ArchiveAsset) asset).getArchive();
+            nested.as(ZipExporter.class).exportTo(target.toFile(), true);
+            return ArchiveIndex.of(nested).getSha1();
+        }
+
+        // file assets are copied too, never linked, see above
+        MessageDigest digest = ArchiveIndex.newDigest();
+        try (InputStream in = new DigestInputStream(asset.openStream(), digest)) {
+            Files.copy(in, target);
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.wildfly.swarm.container.util.MappedFileAsset;
+
+/**
+ * The SHA-1 of each entry of an archive, and of the archive as a whole.
+ *
+ * <p>Nested archives are digested as a whole, so a change inside
+ * <code>WEB-INF/lib/foo.jar</code> shows up as a change of that jar. Exploding a
+ * deployment builds its index as the entries are written (see {@link ArchiveExploder}),
+ * so the archive is not read a second time just to digest it.</p>
+ *
+ * @author Bob McWhirter
+ */
+class ArchiveIndex {
+
+    static final byte[] DIRECTORY = new byte[0];
+
+    private final SortedMap<String, byte[]> entries;
+
+    private final byte[] sha1;
+
+    ArchiveIndex(SortedMap<String, byte[]> entries) throws IOException {
+        this.entries = entries;
+
+        MessageDigest digest = newDigest();
+        for (Map.Entry<String, byte[]> each : entries.entrySet()) {
+            digest.update(each.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(each.getValue());
+            digest.update((byte) 0);
+        }
+        this.sha1 = digest.digest();
+    }
+
+    static ArchiveIndex of(Archive<?> archive) throws IOException {
+        SortedMap<String, byte[]> entries = new TreeMap<>();
+        byte[] buf = new byte[8192];
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            Asset asset = each.getValue().getAsset();
+            byte[] digest;
+            if (asset == null) {
+                digest = DIRECTORY;
+            } else if (asset instanceof ArchiveAsset) {
+                digest = of(((ArchiveAsset) asset).getArchive()).getSha1();
+            } else if (asset instanceof MappedFileAsset && ((MappedFileAsset) asset).isMappable()) {
+                // digest the mapping in place, rather than copying it through a stream
+                MessageDigest md = newDigest();
+                md.update(((MappedFileAsset) asset).map());
+                digest = md.digest();
+            } else {
+                MessageDigest md = newDigest();
+                try (InputStream in = asset.openStream()) {
+                    int len;
+                    while ((len = in.read(buf)) >= 0) {
+                        md.update(buf, 0, len);
+                    }
+                }
+                digest = md.digest();
+            }
+            entries.put(each.getKey().get(), digest);
+        }
+        return new ArchiveIndex(entries);
+    }
+
+    byte[] getSha1() {
+        return this.sha1.clone();
+    }
+
+    boolean isDirectory(String path) {
+        return this.entries.get(path) == DIRECTORY;
+    }
+
+    /**
+     * @return The paths added or changed in <code>next</code>, and those it no longer has.
+     */
+    Diff diff(ArchiveIndex next) {
+        List<String> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        for (Map.Entry<String, byte[]> each : next.entries.entrySet()) {
+            byte[] previous = this.entries.get(each.getKey());
+            if (previous == null || !Arrays.equals(previous, each.getValue())) {
+                changed.add(each.getKey());
+            }
+        }
+        for (String each : this.entries.keySet()) {
+            if (!next.entries.containsKey(each)) {
+                removed.add(each);
+            }
+        }
+
+        return new Diff(changed, removed);
+    }
+
+    static class Diff {
+
+        private final List<String> changed;
+
+        private final List<String> removed;
+
+        Diff(List<String> changed, List<String> removed) {
+            this.changed = Collections.unmodifiableList(changed);
+            this.removed = Collections.unmodifiableList(removed);
+        }
+
+        /** Paths added or changed. */
+        List<String> getChanged() {
+            return this.changed;
+        }
+
+        List<String> getRemoved() {
+            return this.removed;
+        }
+
+        boolean isEmpty() {
+            return this.changed.isEmpty() && this.removed.isEmpty();
+        }
+    }
+
+    static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.jboss.dmr.ModelNode;
+import org.wildfly.swarm.bootstrap.util.PrivateDirectories;
+import org.wildfly.swarm.container.util.ResourceLimits;
+
+/**
+ * Stores the boot operations of a container so the next identical start can replay
+ * them instead of marshalling every fraction again.
+ *
+ * <p>Enabled with <code>swarm.boot.model.cache=true</code>. Entries are kept in
+ * <code>swarm.boot.model.cache.dir</code> (by default
+ * <code>${java.io.tmpdir}/wildfly-swarm-model-cache-${user.name}</code>, which must be
+ * private to the current user), named by a hash of everything the model is built from:
+ * the WildFly Swarm version, the application jars and class directories, the loaded
+ * fraction runtimes, the main arguments, system properties, the environment variables
+ * configuration reads and the CPUs and memory available, which size thread pools.
+ * Changing any of these misses the cache.</p>
+ *
+ * <p>Of the environment, only <code>OPENSHIFT_*</code> (read by the JGroups fraction)
+ * is part of the key; list further variables read by the application's own configuration
+ * in <code>swarm.boot.model.cache.env</code>, comma-separated, a trailing <code>*</code>
+ * matching a prefix. Configuration read by fractions from other files is not part of the
+ * key either, so clear the cache directory when such files change.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class BootModelCache {
+
+    public static final String CACHE_PROPERTY = "swarm.boot.model.cache";
+
+    public static final String CACHE_DIR_PROPERTY = "swarm.boot.model.cache.dir";
+
+    public static final String ENV_PROPERTY = "swarm.boot.model.cache.env";
+
+    private static final int VERSION = 3;
+
+    private static final String DEFAULT_ENV = "OPENSHIFT_*";
+
+    /** Set during boot, or per-run, so never part of the key. */
+    private static final List<String> VOLATILE_PROPERTIES = Arrays.asList(
+            "jboss.server.management.uuid",
+            "jboss.server.temp.dir",
+            "wildfly.swarm.current.deployment"
+    );
+
+    private final Path file;
+
+    BootModelCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @param fractionRuntimes The names of the loaded server configurations.
+     * @param args             The main arguments, possibly <code>null</code>.
+     * @return The cache for this configuration, or <code>null</code> if caching is not enabled.
+     */
+    public static BootModelCache forConfiguration(Collection<String> fractionRuntimes, String[] args) {
+        if (!"true".equals(System.getProperty(CACHE_PROPERTY))) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            update(digest, "version", Integer.toString(VERSION));
+            update(digest, "swarm", System.getProperty("wildfly.swarm.version"));
+            update(digest, "processors", Integer.toString(Runtime.getRuntime().availableProcessors()));
+            update(digest, "limits", ResourceLimits.getInstance().toString());
+            update(digest, "classpath", System.getProperty("java.class.path"));
+            for (String each : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                Path path = Paths.get(each);
+                if (Files.isRegularFile(path)) {
+                    update(digest, "jar", each + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+                } else if (Files.isDirectory(path)) {
+                    // such as target/classes when run from the IDE or the plugin
+                    update(digest, "dir", each + ":" + describeDirectory(path));
+                }
+            }
+            for (String each : fractionRuntimes) {
+                update(digest, "fraction", each);
+            }
+            if (args != null) {
+                for (String each : args) {
+                    update(digest, "arg", each);
+                }
+            }
+
+            Properties props = System.getProperties();
+            Map<String, String> sorted = new TreeMap<>();
+            for (String name : props.stringPropertyNames()) {
+                if (!VOLATILE_PROPERTIES.contains(name)) {
+                    sorted.put(name, props.getProperty(name));
+                }
+            }
+            for (Map.Entry<String, String> each : sorted.entrySet()) {
+                update(digest, "property", each.getKey() + "=" + each.getValue());
+            }
+            List<String> envPatterns = envPatterns();
+            for (Map.Entry<String, String> each : new TreeMap<>(System.getenv()).entrySet()) {
+                if (matches(envPatterns, each.getKey())) {
+                    update(digest, "env", each.getKey() + "=" + each.getValue());
+                }
+            }
+
+            return new BootModelCache(PrivateDirectories.prepare(directory()).resolve(hex(digest.digest()) + ".dmr"));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            System.err.println("[WARN] unable to key boot model cache: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return The cached operations, or <code>null</code> if there are none.
+     */
+    public List<ModelNode> load() {
+        if (!Files.exists(this.file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(this.file))) {
+            return ModelNode.fromStream(in).asList();
+        } catch (Exception e) {
+            System.err.println("[WARN] ignoring unreadable boot model cache " + this.file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void store(List<ModelNode> operations) {
+        ModelNode list = new ModelNode();
+        list.setEmptyList();
+        for (ModelNode each : operations) {
+            list.add(each);
+        }
+
+        try {
+            Files.createDirectories(this.file.getParent());
+            Path tmp = Files.createTempFile(this.file.getParent(), "model", ".tmp");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                    list.writeExternal(out);
+                }
+                Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            System.err.println("[WARN] unable to write boot model cache " + this.file + ": " + e.getMessage());
+        }
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    private static Path directory() {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (dir != null) {
+            return Paths.get(dir);
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "wildfly-swarm-model-cache-" + System.getProperty("user.name", "default"));
+    }
+
+    /**
+     * The number of files, their total size and the latest modification under a directory.
+     */
+    static String describeDirectory(Path dir) throws IOException {
+        long[] totals = new long[3];
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                totals[0]++;
+                totals[1] += attrs.size();
+                totals[2] = Math.max(totals[2], attrs.lastModifiedTime().toMillis());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path each, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                // catches removals, which leave no newer file behind
+                totals[2] = Math.max(totals[2], Files.getLastModifiedTime(each).toMillis());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return totals[0] + ":" + totals[1] + ":" + totals[2];
+    }
+
+    static List<String> envPatterns() {
+        List<String> patterns = new ArrayList<>();
+        for (String each : (DEFAULT_ENV + "," + System.getProperty(ENV_PROPERTY, "")).split(",")) {
+            if (!each.trim().isEmpty()) {
+                patterns.add(each.trim());
+            }
+        }
+        return patterns;
+    }
+
+    static boolean matches(List<String> patterns, String name) {
+        for (String each : patterns) {
+            if (each.endsWith("*") ? name.startsWith(each.substring(0, each.length() - 1)) : name.equals(each)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void update(MessageDigest digest, String kind, String value) {
+        digest.update(kind.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte each : bytes) {
+            hex.append(String.format("%02x", each & 0xFF));
+        }
+        return hex.toString();
+    }
+}
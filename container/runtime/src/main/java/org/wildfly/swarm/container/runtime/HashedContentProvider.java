@@ -0,0 +1,213 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.as.selfcontained.ContentProvider;
+import org.jboss.vfs.VirtualFile;
+
+/**
+ * Deployment content, keyed by the deployment name and the SHA-1 of the archive it came
+ * from (see {@link ArchiveIndex}).
+ *
+ * <p>Content is reference counted: adding the same archive again under the same name
+ * reuses the mounted content, and releasing the last reference closes its mounts.
+ * Content is never shared between deployments of different names, since it is mounted
+ * under the name of the deployment it was added for.</p>
+ *
+ * <p>The self-contained server looks content up by the first byte of the hash it was
+ * given, so the hashes handed out are a slot number followed by the SHA-1. Slots are
+ * reused once released, which bounds the number of distinct contents deployed at
+ * the same time, not over the life of the JVM.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class HashedContentProvider implements ContentProvider {
+
+    private static final int SLOTS = 256;
+
+    private final Content[] slots = new Content[SLOTS];
+
+    private final Map<String, Content> contents = new HashMap<>();
+
+    private static class Content {
+
+        private final String key;
+
+        private final int slot;
+
+        private final byte[] hash;
+
+        private final VirtualFile file;
+
+        private final List<Closeable> closeables;
+
+        private int references = 1;
+
+        Content(String key, byte[] sha1, int slot, VirtualFile file, List<Closeable> closeables) {
+            this.key = key;
+            this.slot = slot;
+            this.hash = new byte[sha1.length + 1];
+            this.hash[0] = (byte) slot;
+            System.arraycopy(sha1, 0, this.hash, 1, sha1.length);
+            this.file = file;
+            this.closeables = closeables;
+        }
+
+        byte[] hash() {
+            return this.hash.clone();
+        }
+
+        void close() {
+            for (Closeable each : this.closeables) {
+                try {
+                    each.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    public HashedContentProvider() {
+
+    }
+
+    /**
+     * Take another reference to already added content.
+     *
+     * @param name The deployment name.
+     * @param sha1 The SHA-1 of the archive, as from {@link ArchiveIndex#getSha1()}.
+     * @return The hash to deploy with, or <code>null</code> if no such content has been added.
+     */
+    public synchronized byte[] acquire(String name, byte[] sha1) {
+        Content content = this.contents.get(key(name, sha1));
+        if (content == null) {
+            return null;
+        }
+        ++content.references;
+        return content.hash();
+    }
+
+    /**
+     * Add content, holding one reference to it.
+     *
+     * @param name       The deployment name.
+     * @param sha1       The SHA-1 of the archive, as from {@link ArchiveIndex#getSha1()}.
+     * @param file       The mounted content.
+     * @param closeables Mounts and temporary files to close once the content is released.
+     * @return The hash to deploy with.
+     * @throws IOException If too many distinct contents are in use.
+     */
+    public synchronized byte[] addContent(String name, byte[] sha1, VirtualFile file, List<Closeable> closeables) throws IOException {
+        String key = key(name, sha1);
+        Content existing = this.contents.get(key);
+        if (existing != null) {
+            // raced with an identical deployment; keep the first mount
+            ++existing.references;
+            new Content(key, sha1, -1, file, closeables).close();
+            return existing.hash();
+        }
+
+        for (int slot = 0; slot < SLOTS; ++slot) {
+            if (this.slots[slot] == null) {
+                Content content = new Content(key, sha1, slot, file, new ArrayList<>(closeables));
+                this.slots[slot] = content;
+                this.contents.put(key, content);
+                return content.hash();
+            }
+        }
+
+        throw new IOException("Unable to add content, " + SLOTS + " distinct deployments are already in use");
+    }
+
+    /**
+     * Drop a reference, closing the content's mounts when it was the last one.
+     *
+     * @param hash A hash returned by {@link #acquire(String, byte[])} or {@link #addContent(String, byte[], VirtualFile, List)}.
+     */
+    public synchronized void release(byte[] hash) {
+        Content content = find(hash);
+        if (content == null) {
+            return;
+        }
+        if (--content.references > 0) {
+            return;
+        }
+        this.slots[content.slot] = null;
+        this.contents.remove(content.key);
+        content.close();
+    }
+
+    public synchronized void close() {
+        for (Content each : this.contents.values()) {
+            each.close();
+        }
+        this.contents.clear();
+        Arrays.fill(this.slots, null);
+    }
+
+    /**
+     * The directory backing content, from which a new version of it can copy unchanged files.
+     *
+     * @return The directory, or <code>null</code> if the content is unknown or not directory-backed.
+     */
+    public synchronized File getRoot(byte[] hash) throws IOException {
+        Content content = find(hash);
+        if (content == null) {
+            return null;
+        }
+        File root = content.file.getPhysicalFile();
+        return root.isDirectory() ? root : null;
+    }
+
+    private Content find(byte[] hash) {
+        Content content = this.slots[hash[0] & 0xFF];
+        if (content == null || !Arrays.equals(content.hash, hash)) {
+            return null;
+        }
+        return content;
+    }
+
+    @Override
+    public synchronized VirtualFile getContent(int index) {
+        Content content = this.slots[index & 0xFF];
+        if (content == null) {
+            return null;
+        }
+        return content.file;
+    }
+
+    private static String key(String name, byte[] sha1) {
+        return name + "/" + toHex(sha1);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte each : bytes) {
+            hex.append(Character.forDigit((each >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(each & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.as.controller.ModelController;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceName;
+import org.wildfly.swarm.container.util.ThreadPools;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+/**
+ * A management client backed by a pool of threads, with asynchronous and batched execution.
+ *
+ * <p>Asynchronous operations, including those of the {@link ModelControllerClient} itself, run
+ * on the <code>management-client</code> pool of {@link ThreadPools}, sized with
+ * <code>swarm.threads.management-client</code> (by default the number of processors, at
+ * least two).</p>
+ *
+ * <p>{@link #read(ModelNode)} queues read operations and executes whatever has queued up
+ * as a single composite operation, at most <code>swarm.management.client.batch.size</code>
+ * at a time. Pollers sampling many attributes then cost one trip through the controller
+ * rather than one per attribute.</p>
+ *
+ * <p>The client of a running container is available as the {@link #SERVICE_NAME} service.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ManagementClient implements Closeable {
+
+    public static final ServiceName SERVICE_NAME = ServiceName.of("wildfly", "swarm", "management-client");
+
+    public static final String POOL_NAME = "management-client";
+
+    public static final String BATCH_SIZE_PROPERTY = "swarm.management.client.batch.size";
+
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final Executor executor;
+
+    private final ModelControllerClient client;
+
+    private final int batchSize;
+
+    private final Queue<PendingRead> reads = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private static class PendingRead {
+
+        private final ModelNode operation;
+
+        private final CompletableFuture<ModelNode> result = new CompletableFuture<>();
+
+        PendingRead(ModelNode operation) {
+            this.operation = operation;
+        }
+    }
+
+    public ManagementClient(ModelController controller) {
+        this.batchSize = Math.max(1, Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+        ExecutorService executor = ThreadPools.getInstance().scheduler(POOL_NAME, Math.max(2, Runtime.getRuntime().availableProcessors()));
+        this.executor = executor;
+
+        this.client = controller.createClient(executor);
+    }
+
+    ManagementClient(ModelControllerClient client, Executor executor) {
+        this.batchSize = Math.max(1, Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+        this.executor = executor;
+        this.client = client;
+    }
+
+    public ModelControllerClient getClient() {
+        return this.client;
+    }
+
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    public ModelNode execute(ModelNode operation) throws IOException {
+        return this.client.execute(operation);
+    }
+
+    public CompletableFuture<ModelNode> executeAsync(ModelNode operation) {
+        CompletableFuture<ModelNode> future = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            try {
+                future.complete(this.client.execute(operation));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Execute a read operation, batched with other reads issued around the same time.
+     *
+     * <p>Operations other than <code>read-*</code> are executed on their own.</p>
+     *
+     * @param operation The operation.
+     * @return The operation's response, just as {@link #execute(ModelNode)} would return it.
+     */
+    public CompletableFuture<ModelNode> read(ModelNode operation) {
+        if (!operation.hasDefined(OP) || !operation.get(OP).asString().startsWith("read-")) {
+            return executeAsync(operation);
+        }
+
+        PendingRead pending = new PendingRead(operation);
+        this.reads.add(pending);
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.executor.execute(this::flush);
+        }
+        return pending.result;
+    }
+
+    private void flush() {
+        this.flushScheduled.set(false);
+
+        List<PendingRead> batch = new ArrayList<>();
+        PendingRead next;
+        while ((next = this.reads.poll()) != null) {
+            batch.add(next);
+            if (batch.size() == this.batchSize) {
+                execute(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            execute(batch);
+        }
+    }
+
+    private void execute(List<PendingRead> batch) {
+        if (batch.size() > 1) {
+            ModelNode composite = new ModelNode();
+            composite.get(OP).set(COMPOSITE);
+            composite.get(OP_ADDR).setEmptyList();
+            ModelNode steps = composite.get(STEPS);
+            for (PendingRead each : batch) {
+                steps.add(each.operation);
+            }
+
+            try {
+                ModelNode response = this.client.execute(composite);
+                if (SUCCESS.equals(response.get(OUTCOME).asString())) {
+                    ModelNode results = response.get(RESULT);
+                    for (int i = 0; i < batch.size(); ++i) {
+                        batch.get(i).result.complete(results.get("step-" + (i + 1)));
+                    }
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                // fall through, and execute each read on its own
+            }
+        }
+
+        // one failed read fails the whole composite, so give each its own response
+        for (PendingRead each : batch) {
+            try {
+                each.result.complete(this.client.execute(each.operation));
+            } catch (Throwable t) {
+                each.result.completeExceptionally(t);
+            }
+        }
+    }
+
+    /**
+     * Fail reads still waiting to be batched; the pool itself is shared, and left running.
+     */
+    @Override
+    public void close() {
+        PendingRead next;
+        while ((next = this.reads.poll()) != null) {
+            next.result.completeExceptionally(new IOException("Management client closed"));
+        }
+    }
+}
@@ -19,9 +19,16 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.dmr.ModelNode;
@@ -29,37 +36,57 @@ import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.vfs.TempDir;
 import org.jboss.vfs.TempFileProvider;
 import org.jboss.vfs.VFS;
 import org.jboss.vfs.VirtualFile;
+import org.wildfly.swarm.bootstrap.util.BootTimeline;
 import org.wildfly.swarm.container.Deployer;
+import org.wildfly.swarm.container.util.ResourceLimits;
+import org.wildfly.swarm.container.util.ThreadPools;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CONTENT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ENABLED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FULL_REPLACE_DEPLOYMENT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REMOVE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RUNTIME_NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
 
 /**
  * @author Bob McWhirter
  */
 public class RuntimeDeployer implements Deployer {
 
+    /** Set to <code>false</code> to mount deployments through a zip export, as before. */
+    public static final String EXPLODED_PROPERTY = "swarm.deployment.exploded";
+
     private final ModelControllerClient client;
 
-    private final SimpleContentProvider contentProvider;
+    private final Executor executor;
+
+    private final HashedContentProvider contentProvider;
 
     private final List<ServerConfiguration> configurations;
 
     private final TempFileProvider tempFileProvider;
 
-    private final List<Closeable> mountPoints = new ArrayList<>();
+    private final Map<String, Deployed> deployments = new ConcurrentHashMap<>();
 
-    public RuntimeDeployer(List<ServerConfiguration> configurations, ModelControllerClient client, SimpleContentProvider contentProvider, TempFileProvider tempFileProvider) throws IOException {
+    private final AtomicInteger mounts = new AtomicInteger();
+
+    public RuntimeDeployer(List<ServerConfiguration> configurations, ManagementClient client, HashedContentProvider contentProvider, TempFileProvider tempFileProvider) throws IOException {
         this.configurations = configurations;
-        this.client = client;
+        this.client = client.getClient();
+        this.executor = client.getExecutor();
         this.contentProvider = contentProvider;
         this.tempFileProvider = tempFileProvider;
         //this.executor = Executors.newSingleThreadScheduledExecutor();
@@ -67,10 +94,250 @@ public class RuntimeDeployer implements Deployer {
     }
 
     @Override
-    public void deploy(Archive deployment) throws IOException {
+    public synchronized void deploy(Archive deployment) throws IOException {
+        deployWithoutReport(deployment);
+        reportTimeline();
+    }
+
+    synchronized void deployWithoutReport(Archive deployment) throws IOException {
+        try (BootTimeline.Phase phase = BootTimeline.begin("deploy " + deployment.getName())) {
+            doDeploy(deployment);
+        }
+    }
+
+    protected void doDeploy(Archive deployment) throws IOException {
+
+        PreparedDeployment prepared = prepareDeployment(deployment);
+
+        System.setProperty("wildfly.swarm.current.deployment", deployment.getName());
+        try (BootTimeline.Phase phase = BootTimeline.begin("deployer: add deployment")) {
+            ModelNode result = client.execute(prepared.deploymentAdd());
+            if (isSuccess(result)) {
+                this.deployments.put(deployment.getName(), new Deployed(prepared.hash, prepared.index));
+            } else {
+                this.contentProvider.release(prepared.hash);
+            }
+        }
+    }
+
+    /**
+     * Deploy several archives at once.
+     *
+     * <p>The archives are prepared one after another, mounted in parallel on the
+     * <code>deployer</code> pool, then added with a single composite operation, so either all
+     * of them are deployed or none are.</p>
+     */
+    @Override
+    public synchronized void deployAll(List<Archive> deployments) throws IOException {
+        deployAllWithoutReport(deployments);
+        reportTimeline();
+    }
+
+    synchronized void deployAllWithoutReport(List<Archive> deployments) throws IOException {
+        if (deployments.isEmpty()) {
+            return;
+        }
+        if (deployments.size() == 1) {
+            deployWithoutReport(deployments.get(0));
+            return;
+        }
+
+        // preparing is left serial, as configurations were never written to prepare several
+        // archives at once; only mounting and hashing, which touch nothing shared, run in parallel
+        Executor pool = ThreadPools.getInstance().scheduler("deployer", ResourceLimits.getInstance().getProcessors());
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        List<CompletableFuture<PreparedDeployment>> futures = new ArrayList<>();
+        for (Archive each : deployments) {
+            System.setProperty("wildfly.swarm.current.deployment", each.getName());
+            try {
+                prepare(each);
+            } catch (IOException | RuntimeException e) {
+                releaseAll(futures);
+                throw e;
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                ClassLoader previous = Thread.currentThread().getContextClassLoader();
+                Thread.currentThread().setContextClassLoader(tccl);
+                try (BootTimeline.Phase phase = BootTimeline.begin("deployer: add content " + each.getName())) {
+                    return addContent(each);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    Thread.currentThread().setContextClassLoader(previous);
+                }
+            }, pool));
+        }
+
+        List<PreparedDeployment> prepared = new ArrayList<>();
+        Throwable failure = null;
+        for (CompletableFuture<PreparedDeployment> each : futures) {
+            try {
+                prepared.add(each.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+
+        if (failure != null) {
+            for (PreparedDeployment each : prepared) {
+                this.contentProvider.release(each.hash);
+            }
+            if (failure instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) failure).getCause();
+            }
+            throw new IOException(failure);
+        }
+
+        final ModelNode composite = new ModelNode();
+        composite.get(OP).set(COMPOSITE);
+        composite.get(OP_ADDR).setEmptyList();
+        ModelNode steps = composite.get(STEPS);
+        for (PreparedDeployment each : prepared) {
+            steps.add(each.deploymentAdd());
+        }
+
+        try (BootTimeline.Phase phase = BootTimeline.begin("deployer: add " + prepared.size() + " deployments")) {
+            ModelNode result = this.client.execute(composite);
+            if (!isSuccess(result)) {
+                for (PreparedDeployment each : prepared) {
+                    this.contentProvider.release(each.hash);
+                }
+                throw new IOException("Unable to deploy " + deployments.stream().map(Archive::getName).collect(Collectors.toList())
+                        + ": " + result.get(FAILURE_DESCRIPTION));
+            }
+        }
+
+        for (PreparedDeployment each : prepared) {
+            this.deployments.put(each.name, new Deployed(each.hash, each.index));
+        }
+    }
+
+    private void releaseAll(List<CompletableFuture<PreparedDeployment>> futures) {
+        for (CompletableFuture<PreparedDeployment> each : futures) {
+            try {
+                this.contentProvider.release(each.join().hash);
+            } catch (CompletionException e) {
+                // nothing was acquired
+            }
+        }
+    }
+
+    private PreparedDeployment prepareDeployment(Archive deployment) throws IOException {
+        prepare(deployment);
+
+        try (BootTimeline.Phase phase = BootTimeline.begin("deployer: add content")) {
+            return addContent(deployment);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> deployAsync(Archive deployment) {
+        return runAsync(() -> deploy(deployment));
+    }
+
+    @Override
+    public CompletableFuture<Void> redeployAsync(Archive deployment) {
+        return runAsync(() -> redeploy(deployment));
+    }
+
+    @Override
+    public CompletableFuture<Void> undeployAsync(String deploymentName) {
+        return runAsync(() -> undeploy(deploymentName));
+    }
+
+    private interface DeployerAction {
+        void run() throws IOException;
+    }
+
+    private CompletableFuture<Void> runAsync(DeployerAction action) {
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            ClassLoader previous = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(tccl);
+            try {
+                action.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                Thread.currentThread().setContextClassLoader(previous);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Bring a deployment up to date with a new build of its archive.
+     *
+     * <p>The new version is written to a fresh content root, copying the entries that did
+     * not change from the current root and reading only the changed ones from the archive,
+     * then swapped in with a <code>full-replace-deployment</code>, so the running deployment
+     * never sees a half-written tree. Static resources served through external mounts
+     * (<code>UndertowExternalMountsAsset</code>) are read live from their directories and
+     * need no redeploy at all.</p>
+     */
+    @Override
+    public synchronized void redeploy(Archive deployment) throws IOException {
+        Deployed current = this.deployments.get(deployment.getName());
+        if (current == null) {
+            deploy(deployment);
+            return;
+        }
+
+        prepare(deployment);
+
+        ArchiveIndex index = ArchiveIndex.of(deployment);
+        ArchiveIndex.Diff diff = current.index.diff(index);
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        byte[] hash = addContent(deployment, index, diff, current);
+
+        final ModelNode replace = new ModelNode();
+        replace.get(OP).set(FULL_REPLACE_DEPLOYMENT);
+        replace.get(OP_ADDR).setEmptyList();
+        replace.get(NAME).set(deployment.getName());
+        replace.get(RUNTIME_NAME).set(deployment.getName());
+        replace.get(ENABLED).set(true);
+        replace.get(CONTENT).add().get(HASH).set(hash);
+
+        try {
+            execute(replace, "replace");
+        } catch (IOException e) {
+            this.contentProvider.release(hash);
+            throw e;
+        }
+
+        this.deployments.put(deployment.getName(), new Deployed(hash, index));
+        this.contentProvider.release(current.hash);
+    }
+
+    @Override
+    public synchronized void undeploy(String deploymentName) throws IOException {
+        Deployed current = this.deployments.get(deploymentName);
+        if (current == null) {
+            throw new IOException("Not deployed: " + deploymentName);
+        }
 
-        for (ServerConfiguration each : this.configurations) {
-            each.prepareArchive(deployment);
+        final ModelNode deploymentRemove = new ModelNode();
+        deploymentRemove.get(OP).set(REMOVE);
+        deploymentRemove.get(OP_ADDR).set("deployment", deploymentName);
+
+        execute(deploymentRemove, "undeploy");
+
+        this.deployments.remove(deploymentName);
+        this.contentProvider.release(current.hash);
+    }
+
+    private void prepare(Archive deployment) throws IOException {
+        try (BootTimeline.Phase phase = BootTimeline.begin("deployer: prepare archive")) {
+            for (ServerConfiguration each : this.configurations) {
+                each.prepareArchive(deployment);
+            }
         }
 
         /*
@@ -87,39 +354,156 @@ public class RuntimeDeployer implements Deployer {
             System.err.println("Dumping to " + out.getAbsolutePath());
             deployment.as(ZipExporter.class).exportTo(out, true);
         }
+    }
 
-        VirtualFile mountPoint = VFS.getRootVirtualFile().getChild(deployment.getName());
+    private PreparedDeployment addContent(Archive deployment) throws IOException {
+        String name = deployment.getName();
+        List<Closeable> closeables = new ArrayList<>();
+        try {
+            if ("false".equals(System.getProperty(EXPLODED_PROPERTY))) {
+                ArchiveIndex index = ArchiveIndex.of(deployment);
+                byte[] hash = this.contentProvider.acquire(name, index.getSha1());
+                if (hash == null) {
+                    VirtualFile mountPoint = mountPoint(deployment);
+                    mountZip(deployment, mountPoint, closeables);
+                    hash = this.contentProvider.addContent(name, index.getSha1(), mountPoint, closeables);
+                }
+                return new PreparedDeployment(name, index, hash);
+            }
 
-        try (InputStream in = deployment.as(ZipExporter.class).exportAsInputStream()) {
-            Closeable closeable = VFS.mountZipExpanded(in, deployment.getName(), mountPoint, tempFileProvider);
-            this.mountPoints.add(closeable);
-            //System.err.println( "mount: " + mountPoint + " // " + mountPoint.getPhysicalFile() );
+            // the index is built while exploding, rather than by reading the archive twice
+            VirtualFile mountPoint = mountPoint(deployment);
+            ArchiveIndex index = explode(deployment, mountPoint, closeables);
+            return new PreparedDeployment(name, index, this.contentProvider.addContent(name, index.getSha1(), mountPoint, closeables));
+        } catch (IOException | RuntimeException e) {
+            close(closeables);
+            throw e;
         }
+    }
 
-        byte[] hash = this.contentProvider.addContent(mountPoint);
+    private byte[] addContent(Archive deployment, ArchiveIndex index, ArchiveIndex.Diff diff, Deployed previous) throws IOException {
+        File previousRoot = this.contentProvider.getRoot(previous.hash);
+        if (previousRoot == null) {
+            return addContent(deployment).hash;
+        }
 
-        final ModelNode deploymentAdd = new ModelNode();
+        String name = deployment.getName();
+        List<Closeable> closeables = new ArrayList<>();
+        try (BootTimeline.Phase phase = BootTimeline.begin("deployer: update and mount archive")) {
+            VirtualFile mountPoint = mountPoint(deployment);
+            TempDir dir = this.tempFileProvider.createTempDir(name);
+            closeables.add(dir);
+            ArchiveExploder.explode(deployment, diff, previousRoot.toPath(), dir.getRoot().toPath());
+            closeables.add(0, VFS.mountReal(dir.getRoot(), mountPoint));
+            return this.contentProvider.addContent(name, index.getSha1(), mountPoint, closeables);
+        } catch (IOException | RuntimeException e) {
+            close(closeables);
+            throw e;
+        }
+    }
 
-        deploymentAdd.get(OP).set(ADD);
-        deploymentAdd.get(OP_ADDR).set("deployment", deployment.getName());
-        deploymentAdd.get(RUNTIME_NAME).set(deployment.getName());
-        deploymentAdd.get(ENABLED).set(true);
+    private void execute(ModelNode op, String description) throws IOException {
+        ModelNode result = this.client.execute(op);
+        if (!isSuccess(result)) {
+            throw new IOException("Unable to " + description + " " + op.get(OP_ADDR) + ": " + result.get(FAILURE_DESCRIPTION));
+        }
+    }
 
-        ModelNode content = deploymentAdd.get(CONTENT).add();
-        content.get(HASH).set(hash);
+    private VirtualFile mountPoint(Archive deployment) {
+        VirtualFile mountPoint = VFS.getRootVirtualFile().getChild(deployment.getName());
+        if (mountPoint.exists()) {
+            // the deployment's previous content is still mounted while it is being replaced
+            mountPoint = VFS.getRootVirtualFile().getChild("content-" + this.mounts.incrementAndGet()).getChild(deployment.getName());
+        }
+        return mountPoint;
+    }
 
-        System.setProperty("wildfly.swarm.current.deployment", deployment.getName());
-        ModelNode result = client.execute(deploymentAdd);
+    private void mountZip(Archive deployment, VirtualFile mountPoint, List<Closeable> closeables) throws IOException {
+        try (BootTimeline.Phase phase = BootTimeline.begin("deployer: export and mount archive");
+             InputStream in = deployment.as(ZipExporter.class).exportAsInputStream()) {
+            closeables.add(VFS.mountZipExpanded(in, deployment.getName(), mountPoint, tempFileProvider));
+        }
+    }
+
+    private ArchiveIndex explode(Archive deployment, VirtualFile mountPoint, List<Closeable> closeables) throws IOException {
+        try (BootTimeline.Phase phase = BootTimeline.begin("deployer: explode and mount archive")) {
+            TempDir dir = this.tempFileProvider.createTempDir(deployment.getName());
+            try {
+                ArchiveIndex index = ArchiveExploder.explode(deployment, dir.getRoot().toPath());
+                closeables.add(VFS.mountReal(dir.getRoot(), mountPoint));
+                closeables.add(dir);
+                return index;
+            } catch (IOException | RuntimeException e) {
+                dir.close();
+                throw e;
+            }
+        }
     }
 
-    void stop() {
-        for (Closeable each : this.mountPoints) {
+    private static boolean isSuccess(ModelNode result) {
+        return result.hasDefined(OUTCOME) && SUCCESS.equals(result.get(OUTCOME).asString());
+    }
+
+    /**
+     * Print the boot timeline if <code>swarm.boot.timeline</code> asks for it.
+     */
+    synchronized void reportTimeline() {
+        BootTimeline.report();
+    }
+
+    private static void close(List<Closeable> closeables) {
+        for (Closeable each : closeables) {
             try {
                 each.close();
             } catch (IOException e) {
             }
         }
+    }
+
+    private static class PreparedDeployment {
+
+        private final String name;
+
+        private final ArchiveIndex index;
+
+        private final byte[] hash;
+
+        PreparedDeployment(String name, ArchiveIndex index, byte[] hash) {
+            this.name = name;
+            this.index = index;
+            this.hash = hash;
+        }
+
+        ModelNode deploymentAdd() {
+            final ModelNode deploymentAdd = new ModelNode();
+
+            deploymentAdd.get(OP).set(ADD);
+            deploymentAdd.get(OP_ADDR).set("deployment", this.name);
+            deploymentAdd.get(RUNTIME_NAME).set(this.name);
+            deploymentAdd.get(ENABLED).set(true);
+
+            ModelNode content = deploymentAdd.get(CONTENT).add();
+            content.get(HASH).set(this.hash);
+
+            return deploymentAdd;
+        }
+    }
+
+    private static class Deployed {
+
+        private final byte[] hash;
+
+        private final ArchiveIndex index;
+
+        Deployed(byte[] hash, ArchiveIndex index) {
+            this.hash = hash;
+            this.index = index;
+        }
+    }
 
+    synchronized void stop() {
+        this.deployments.clear();
+        this.contentProvider.close();
     }
 
 }
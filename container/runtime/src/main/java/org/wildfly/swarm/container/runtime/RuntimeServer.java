@@ -19,22 +19,25 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.LogManager;
+import java.util.stream.Collectors;
 
 import org.jboss.as.controller.ModelController;
 import org.jboss.as.controller.PathAddress;
-import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.server.SelfContainedContainer;
 import org.jboss.as.server.Services;
 import org.jboss.dmr.ModelNode;
@@ -52,14 +55,18 @@ import org.jboss.msc.service.ValueService;
 import org.jboss.msc.value.ImmediateValue;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.vfs.TempFileProvider;
+import org.wildfly.swarm.bootstrap.util.BootTimeline;
 import org.wildfly.swarm.container.Container;
 import org.wildfly.swarm.container.Deployer;
 import org.wildfly.swarm.container.Fraction;
 import org.wildfly.swarm.container.Interface;
 import org.wildfly.swarm.container.RuntimeModuleProvider;
+import org.wildfly.swarm.container.RuntimeProfile;
 import org.wildfly.swarm.container.Server;
 import org.wildfly.swarm.container.SocketBinding;
 import org.wildfly.swarm.container.SocketBindingGroup;
+import org.wildfly.swarm.container.util.ResourceLimits;
+import org.wildfly.swarm.container.util.ThreadPools;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEFAULT_INTERFACE;
@@ -78,13 +85,22 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.POR
  */
 public class RuntimeServer implements Server {
 
+    /** Only load the runtimes of explicitly configured fractions and their dependencies. */
+    public static final String LEAN_PROPERTY = "swarm.boot.lean";
+
+    /** Comma-separated fractions (<code>jaxrs</code> or <code>org.wildfly.swarm.jaxrs</code>) to load in lean boots regardless. */
+    public static final String FRACTIONS_PROPERTY = "swarm.boot.fractions";
+
+    /** Set to <code>false</code> to marshal fraction configurations one at a time. */
+    public static final String PARALLEL_PROPERTY = "swarm.boot.parallel";
+
     private SelfContainedContainer container = new SelfContainedContainer();
 
-    private SimpleContentProvider contentProvider = new SimpleContentProvider();
+    private HashedContentProvider contentProvider = new HashedContentProvider();
 
     private ServiceContainer serviceContainer;
 
-    private ModelControllerClient client;
+    private ManagementClient client;
 
     private RuntimeDeployer deployer;
 
@@ -92,6 +108,8 @@ public class RuntimeServer implements Server {
 
     private List<ServerConfiguration> configList = new ArrayList<>();
 
+    private Map<Class<?>, Fraction> fractionsByType = new HashMap<>();
+
     public RuntimeServer() {
         try {
             Module loggingModule = Module.getBootModuleLoader().loadModule(ModuleIdentifier.create("org.wildfly.swarm.logging", "runtime"));
@@ -116,18 +134,53 @@ public class RuntimeServer implements Server {
         UUID uuid = UUIDFactory.getUUID();
         System.setProperty("jboss.server.management.uuid", uuid.toString());
 
-        loadFractionConfigurations();
+        try (BootTimeline.Phase phase = BootTimeline.begin("runtime: load fraction configurations")) {
+            loadFractionConfigurations(config);
+        }
 
-        applyDefaults(config);
+        try (BootTimeline.Phase phase = BootTimeline.begin("runtime: apply fraction defaults")) {
+            applyDefaults(config);
 
-        for (Fraction fraction : config.fractions() ) {
-            fraction.postInitialize( config.createPostInitContext() );
+            for (Fraction fraction : config.fractions() ) {
+                fraction.postInitialize( config.createPostInitContext() );
+            }
         }
 
-        List<ModelNode> list = getList(config);
+        indexFractions(config);
+
+        RuntimeProfile.report();
+
+        // consulted only now, as a cached model still needs the fraction runtimes loaded and
+        // the fractions initialized for their service activators and implicit deployments
+        BootModelCache modelCache = BootModelCache.forConfiguration(
+                this.configList.stream().map(c -> c.getClass().getName()).collect(Collectors.toList()),
+                config.getArgs());
+
+        List<ModelNode> list = null;
+        if (modelCache != null) {
+            try (BootTimeline.Phase phase = BootTimeline.begin("runtime: load cached model")) {
+                list = modelCache.load();
+            }
+        }
 
-        // float all <extension> up to the head of the list
-        list.sort(new ExtensionOpPriorityComparator());
+        if (list == null) {
+            try (BootTimeline.Phase phase = BootTimeline.begin("runtime: build model")) {
+                list = getList(config);
+
+                // float all <extension> up to the head of the list
+                list.sort(new ExtensionOpPriorityComparator());
+            }
+            if (modelCache != null) {
+                modelCache.store(list);
+            }
+        }
+
+        if (BootTimeline.isReportRequested()) {
+            // readable as /subsystem=swarm:read-attribute(name=boot-timeline); never cached,
+            // as the timeline is only asked for now and then
+            list = new ArrayList<>(list);
+            list.addAll(SwarmExtension.operations());
+        }
 
         //System.err.println( list );
 
@@ -139,7 +192,7 @@ public class RuntimeServer implements Server {
         Path gristedTmp = Paths.get(tmpDir).resolve("wildfly-swarm-" + grist);
         System.setProperty( "jboss.server.temp.dir", gristedTmp.toString() );
 
-        ScheduledExecutorService tempFileExecutor = Executors.newSingleThreadScheduledExecutor();
+        ScheduledExecutorService tempFileExecutor = ThreadPools.getInstance().scheduler("temp-files", 1);
         TempFileProvider tempFileProvider = TempFileProvider.create("wildfly-swarm", tempFileExecutor);
         List<ServiceActivator> activators = new ArrayList<>();
         activators.add(new ServiceActivator() {
@@ -147,30 +200,28 @@ public class RuntimeServer implements Server {
             public void activate(ServiceActivatorContext context) throws ServiceRegistryException {
                 context.getServiceTarget().addService(ServiceName.of("wildfly", "swarm", "temp-provider"), new ValueService<>(new ImmediateValue<Object>(tempFileProvider)))
                         .install();
+                // Share named thread pools rather than each fraction spawning its own
+                context.getServiceTarget().addService(ServiceName.of("wildfly", "swarm", "thread-pools"), new ValueService<>(new ImmediateValue<Object>(ThreadPools.getInstance())))
+                        .install();
                 // Provide the main command line args as a value service
                 context.getServiceTarget().addService(ServiceName.of("wildfly", "swarm", "main-args"), new ValueService<>(new ImmediateValue<Object>(config.getArgs())))
                     .install();
             }
         });
 
-        OUTER:
         for (ServerConfiguration eachConfig : this.configList) {
-            boolean found = false;
-            INNER:
-            for (Fraction eachFraction : config.fractions()) {
-                if (eachConfig.getType().isAssignableFrom(eachFraction.getClass())) {
-                    found = true;
-                    activators.addAll(eachConfig.getServiceActivators(eachFraction));
-                    break INNER;
-                }
-            }
-            if (!found && !eachConfig.isIgnorable()) {
+            Fraction fraction = fractionFor(eachConfig);
+            if (fraction != null) {
+                activators.addAll(eachConfig.getServiceActivators(fraction));
+            } else if (!eachConfig.isIgnorable()) {
                 System.err.println("*** unable to find fraction for: " + eachConfig.getType());
             }
         }
 
 
-        this.serviceContainer = this.container.start(list, this.contentProvider, activators);
+        try (BootTimeline.Phase phase = BootTimeline.begin("runtime: start self-contained container")) {
+            this.serviceContainer = this.container.start(list, this.contentProvider, activators);
+        }
         for (ServiceName serviceName : this.serviceContainer.getServiceNames()) {
             ServiceController<?> serviceController = this.serviceContainer.getService(serviceName);
             if (serviceController.getStartException() != null) {
@@ -178,53 +229,76 @@ public class RuntimeServer implements Server {
             }
         }
         ModelController controller = (ModelController) this.serviceContainer.getService(Services.JBOSS_SERVER_CONTROLLER).getValue();
-        Executor executor = Executors.newSingleThreadExecutor();
-
-        this.client = controller.createClient(executor);
+        this.client = new ManagementClient(controller);
+        this.serviceContainer.addService(ManagementClient.SERVICE_NAME, new ValueService<>(new ImmediateValue<Object>(this.client)))
+                .install();
         this.deployer = new RuntimeDeployer(this.configList, this.client, this.contentProvider, tempFileProvider);
 
         List<Archive> implicitDeployments = new ArrayList<>();
 
-        OUTER:
         for (ServerConfiguration eachConfig : this.configList) {
-            INNER:
-            for (Fraction eachFraction : config.fractions()) {
-                if (eachConfig.getType().isAssignableFrom(eachFraction.getClass())) {
-                    implicitDeployments.addAll(eachConfig.getImplicitDeployments( eachFraction ) );
-                    break INNER;
-                }
+            Fraction fraction = fractionFor(eachConfig);
+            if (fraction != null) {
+                implicitDeployments.addAll(eachConfig.getImplicitDeployments( fraction ) );
             }
         }
 
-        for (Archive each : implicitDeployments) {
-            this.deployer.deploy( each );
+        try (BootTimeline.Phase phase = BootTimeline.begin("runtime: implicit deployments")) {
+            this.deployer.deployAllWithoutReport( implicitDeployments );
         }
 
+        this.deployer.reportTimeline();
+
         return this.deployer;
     }
 
+    /**
+     * Orders extension adds before everything else. Consistent, so with a stable sort every
+     * other op keeps its place relative to the rest.
+     */
     private static class ExtensionOpPriorityComparator implements Comparator<ModelNode> {
         @Override
         public int compare(ModelNode left, ModelNode right) {
+            return Boolean.compare(isExtensionAdd(right), isExtensionAdd(left));
+        }
 
-            PathAddress leftAddr = PathAddress.pathAddress(left.get(OP_ADDR));
-            PathAddress rightAddr = PathAddress.pathAddress(right.get(OP_ADDR));
-
-            String leftOpName = left.require(OP).asString();
-            String rightOpName = left.require(OP).asString();
+        private static boolean isExtensionAdd(ModelNode op) {
+            PathAddress addr = PathAddress.pathAddress(op.get(OP_ADDR));
+            return addr.size() == 1 && addr.getElement(0).getKey().equals(EXTENSION) && op.require(OP).asString().equals(ADD);
+        }
+    }
 
-            if (leftAddr.size() == 1 && leftAddr.getElement(0).getKey().equals(EXTENSION) && leftOpName.equals(ADD)) {
-                return -1;
-            }
+    /**
+     * Index the fractions by each of their types, so each configuration finds its fraction
+     * with one lookup; the first fraction of a type wins, as when searching them in order.
+     */
+    private void indexFractions(Container config) {
+        this.fractionsByType = indexFractions(config.fractions());
+    }
 
-            if (rightAddr.size() == 1 && rightAddr.getElement(0).getKey().equals(EXTENSION) && rightOpName.equals(ADD)) {
-                return 1;
-            }
+    static Map<Class<?>, Fraction> indexFractions(List<Fraction> fractions) {
+        Map<Class<?>, Fraction> index = new HashMap<>();
+        for (Fraction each : fractions) {
+            indexType(index, each.getClass(), each);
+        }
+        return index;
+    }
 
-            return 0;
+    private static void indexType(Map<Class<?>, Fraction> index, Class<?> type, Fraction fraction) {
+        if (type == null || type == Object.class || index.get(type) == fraction) {
+            return;
+        }
+        index.putIfAbsent(type, fraction);
+        indexType(index, type.getSuperclass(), fraction);
+        for (Class<?> each : type.getInterfaces()) {
+            indexType(index, each, fraction);
         }
     }
 
+    private Fraction fractionFor(ServerConfiguration config) {
+        return this.fractionsByType.get(config.getType());
+    }
+
 
     public void stop() throws Exception {
 
@@ -240,6 +314,7 @@ public class RuntimeServer implements Server {
         latch.await();
 
         this.deployer.stop();
+        this.client.close();
         this.serviceContainer = null;
         this.client = null;
         this.deployer = null;
@@ -289,7 +364,7 @@ public class RuntimeServer implements Server {
         }
     }
 
-    private void loadFractionConfigurations() throws Exception {
+    private void loadFractionConfigurations(Container config) throws Exception {
         Module m1 = Module.getBootModuleLoader().loadModule(ModuleIdentifier.create("swarm.application"));
         ServiceLoader<RuntimeModuleProvider> providerLoader = m1.loadService(RuntimeModuleProvider.class);
 
@@ -300,8 +375,15 @@ public class RuntimeServer implements Server {
             providerIter = providerLoader.iterator();
         }
 
+        Set<String> required = requiredFractions(config);
+        List<String> skipped = new ArrayList<>();
+
         while (providerIter.hasNext()) {
             RuntimeModuleProvider provider = providerIter.next();
+            if (required != null && !isRequired(provider, required)) {
+                skipped.add(provider.getModuleName());
+                continue;
+            }
             Module module = Module.getBootModuleLoader().loadModule(ModuleIdentifier.create(provider.getModuleName(), provider.getSlotName()));
             ServiceLoader<ServerConfiguration> configLoaders = module.loadService(ServerConfiguration.class);
 
@@ -310,6 +392,75 @@ public class RuntimeServer implements Server {
                 this.configList.add(serverConfig);
             }
         }
+
+        if (!skipped.isEmpty()) {
+            System.err.println("[INFO] lean boot, not loading: " + skipped);
+        }
+    }
+
+    /**
+     * The packages and module names of the fractions a lean boot needs.
+     *
+     * @return The names, or <code>null</code> to load every fraction's runtime.
+     */
+    private Set<String> requiredFractions(Container config) {
+        if (!"true".equals(System.getProperty(LEAN_PROPERTY))) {
+            return null;
+        }
+        return requiredFractions(config.resolveFractionTypes());
+    }
+
+    /**
+     * @param fractionTypes The fractions configured, whose packages are required.
+     * @return Those packages and the fractions named in <code>swarm.boot.fractions</code>, or
+     * <code>null</code> to load every fraction's runtime when there are none.
+     */
+    static Set<String> requiredFractions(Set<Class<? extends Fraction>> fractionTypes) {
+        Set<String> required = new HashSet<>();
+        for (Class<? extends Fraction> each : fractionTypes) {
+            String name = each.getName();
+            required.add(name.substring(0, Math.max(name.lastIndexOf('.'), 0)));
+        }
+
+        String additional = System.getProperty(FRACTIONS_PROPERTY);
+        if (additional != null) {
+            for (String each : additional.split(",")) {
+                each = each.trim();
+                if (!each.isEmpty()) {
+                    required.add(each.contains(".") ? each : "org.wildfly.swarm." + each);
+                }
+            }
+        }
+
+        if (required.isEmpty()) {
+            System.err.println("[WARN] lean boot requested, but no fractions are configured; loading all fractions");
+            return null;
+        }
+
+        return required;
+    }
+
+    static boolean isRequired(RuntimeModuleProvider provider, Set<String> required) {
+        if (required.contains(provider.getModuleName())) {
+            return true;
+        }
+        // providers live alongside the fraction they bring up
+        String name = provider.getClass().getName();
+        return required.contains(name.substring(0, Math.max(name.lastIndexOf('.'), 0)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ModelNode> marshal(ServerConfiguration config, Fraction fraction, ClassLoader tccl) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(tccl);
+        try {
+            return config.getList(fraction);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
     }
 
     private List<ModelNode> getList(Container config) throws Exception {
@@ -388,24 +539,15 @@ public class RuntimeServer implements Server {
         list.add(node);
     }
 
+    /**
+     * Marshal each fraction's configuration, concurrently unless <code>swarm.boot.parallel</code>
+     * is <code>false</code>. Fractions are independent of one another, and their ops are added
+     * in the order of the configurations, however they complete.
+     */
     private void configureFractions(Container config, List<ModelNode> list) throws Exception {
-
-        OUTER:
-        for (ServerConfiguration eachConfig : this.configList) {
-            boolean found = false;
-            INNER:
-            for (Fraction eachFraction : config.fractions()) {
-                if (eachConfig.getType().isAssignableFrom(eachFraction.getClass())) {
-                    found = true;
-                    list.addAll(eachConfig.getList(eachFraction));
-                    break INNER;
-                }
-            }
-            if (!found && !eachConfig.isIgnorable()) {
-                System.err.println("*** unable to find fraction for: " + eachConfig.getType());
-            }
-
-        }
+        boolean parallel = !"false".equals(System.getProperty(PARALLEL_PROPERTY));
+        ExecutorService executor = parallel ? ThreadPools.getInstance().scheduler("boot-model", ResourceLimits.getInstance().getProcessors()) : null;
+        list.addAll(marshalFractions(this.configList, this.fractionsByType, executor));
         /*
         for (Fraction fraction : config.fractions()) {
             ServerConfiguration serverConfig = this.configByFractionType.get(fraction.getClass());
@@ -423,4 +565,44 @@ public class RuntimeServer implements Server {
         */
     }
 
+    /**
+     * @param executor Marshals the configurations concurrently, or <code>null</code> to marshal
+     *                 them one after another.
+     * @return The ops of each configuration that has a fraction, in the order of the configurations.
+     */
+    static List<ModelNode> marshalFractions(List<ServerConfiguration> configs, Map<Class<?>, Fraction> fractionsByType, ExecutorService executor) throws Exception {
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+
+        List<CompletableFuture<List<ModelNode>>> results = new ArrayList<>();
+        for (ServerConfiguration eachConfig : configs) {
+            Fraction fraction = fractionsByType.get(eachConfig.getType());
+            if (fraction == null) {
+                if (!eachConfig.isIgnorable()) {
+                    System.err.println("*** unable to find fraction for: " + eachConfig.getType());
+                }
+                continue;
+            }
+
+            if (executor == null) {
+                List<ModelNode> ops = eachConfig.getList(fraction);
+                results.add(CompletableFuture.completedFuture(ops));
+            } else {
+                results.add(CompletableFuture.supplyAsync(() -> marshal(eachConfig, fraction, tccl), executor));
+            }
+        }
+
+        List<ModelNode> list = new ArrayList<>();
+        for (CompletableFuture<List<ModelNode>> each : results) {
+            try {
+                list.addAll(each.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return list;
+    }
+
 }
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.Extension;
+import org.jboss.as.controller.ExtensionContext;
+import org.jboss.as.controller.ModelVersion;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.ReloadRequiredRemoveStepHandler;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.SubsystemRegistration;
+import org.jboss.as.controller.descriptions.NonResolvingResourceDescriptionResolver;
+import org.jboss.as.controller.parsing.ExtensionParsingContext;
+import org.jboss.as.controller.persistence.SubsystemMarshallingContext;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+import org.wildfly.swarm.bootstrap.util.BootTimeline;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.EXTENSION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MODULE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
+/**
+ * The <code>swarm</code> subsystem, which exposes what the container knows about itself
+ * through the management model.
+ *
+ * <p>Its read-only <code>boot-timeline</code> runtime attribute holds the boot timeline as
+ * JSON, as recorded when <code>swarm.boot.timeline</code> is set, and is read live each time:</p>
+ *
+ * <pre>
+ * /subsystem=swarm:read-attribute(name=boot-timeline)
+ * </pre>
+ *
+ * @author Bob McWhirter
+ */
+public class SwarmExtension implements Extension {
+
+    public static final String SUBSYSTEM_NAME = "swarm";
+
+    public static final String NAMESPACE = "urn:wildfly-swarm:swarm:1.0";
+
+    static final String MODULE_NAME = "org.wildfly.swarm.container:runtime";
+
+    static final SimpleAttributeDefinition BOOT_TIMELINE = new SimpleAttributeDefinitionBuilder("boot-timeline", ModelType.STRING, true)
+            .setStorageRuntime()
+            .build();
+
+    private static final ModelVersion VERSION = ModelVersion.create(1, 0, 0);
+
+    /**
+     * @return The operations adding the extension and its subsystem.
+     */
+    static List<ModelNode> operations() {
+        List<ModelNode> list = new ArrayList<>();
+
+        ModelNode extension = new ModelNode();
+        extension.get(OP_ADDR).set(EXTENSION, MODULE_NAME);
+        extension.get(OP).set(ADD);
+        extension.get(MODULE).set(MODULE_NAME);
+        list.add(extension);
+
+        ModelNode subsystem = new ModelNode();
+        subsystem.get(OP_ADDR).set(SUBSYSTEM, SUBSYSTEM_NAME);
+        subsystem.get(OP).set(ADD);
+        list.add(subsystem);
+
+        return list;
+    }
+
+    @Override
+    public void initialize(ExtensionContext context) {
+        SubsystemRegistration subsystem = context.registerSubsystem(SUBSYSTEM_NAME, VERSION);
+        subsystem.registerSubsystemModel(new SwarmSubsystemDefinition());
+        subsystem.registerXMLElementWriter(new SwarmSubsystemWriter());
+    }
+
+    @Override
+    public void initializeParsers(ExtensionParsingContext context) {
+        // only ever configured through the API, never from XML
+    }
+
+    private static class SwarmSubsystemDefinition extends SimpleResourceDefinition {
+
+        SwarmSubsystemDefinition() {
+            super(PathElement.pathElement(SUBSYSTEM, SUBSYSTEM_NAME),
+                    new NonResolvingResourceDescriptionResolver(),
+                    new AbstractAddStepHandler(),
+                    ReloadRequiredRemoveStepHandler.INSTANCE);
+        }
+
+        @Override
+        public void registerAttributes(ManagementResourceRegistration registration) {
+            registration.registerReadOnlyAttribute(BOOT_TIMELINE, (context, operation) -> {
+                context.getResult().set(BootTimeline.toJson());
+            });
+        }
+    }
+
+    private static class SwarmSubsystemWriter implements XMLElementWriter<SubsystemMarshallingContext> {
+
+        @Override
+        public void writeContent(XMLExtendedStreamWriter writer, SubsystemMarshallingContext context) throws XMLStreamException {
+            context.startSubsystemElement(NAMESPACE, true);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.wildfly.swarm.container.runtime;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ArchiveIndexTest {
+
+    @Test
+    public void testIdenticalArchivesHaveNoDiff() throws Exception {
+        ArchiveIndex first = ArchiveIndex.of(archive("one"));
+        ArchiveIndex second = ArchiveIndex.of(archive("one"));
+
+        assertThat(first.diff(second).isEmpty()).isTrue();
+        assertThat(first.getSha1()).isEqualTo(second.getSha1());
+    }
+
+    @Test
+    public void testChangedAddedAndRemovedEntries() throws Exception {
+        WebArchive previous = archive("one");
+        previous.addAsWebResource(new StringAsset("gone"), "gone.html");
+
+        WebArchive next = archive("two");
+        next.addAsWebResource(new StringAsset("new"), "new.html");
+
+        ArchiveIndex.Diff diff = ArchiveIndex.of(previous).diff(ArchiveIndex.of(next));
+
+        assertThat(diff.isEmpty()).isFalse();
+        assertThat(diff.getChanged()).containsOnly("/index.html", "/new.html");
+        assertThat(diff.getRemoved()).containsOnly("/gone.html");
+        assertThat(ArchiveIndex.of(previous).getSha1()).isNotEqualTo(ArchiveIndex.of(next).getSha1());
+    }
+
+    @Test
+    public void testNestedArchiveChangesAsAWhole() throws Exception {
+        WebArchive previous = archive("one");
+        previous.addAsLibrary(library("one"));
+
+        WebArchive next = archive("one");
+        next.addAsLibrary(library("two"));
+
+        ArchiveIndex.Diff diff = ArchiveIndex.of(previous).diff(ArchiveIndex.of(next));
+
+        assertThat(diff.getChanged()).containsOnly("/WEB-INF/lib/lib.jar");
+        assertThat(diff.getRemoved()).isEmpty();
+    }
+
+    @Test
+    public void testDirectories() throws Exception {
+        ArchiveIndex index = ArchiveIndex.of(archive("one"));
+
+        assertThat(index.isDirectory("/WEB-INF")).isTrue();
+        assertThat(index.isDirectory("/index.html")).isFalse();
+    }
+
+    private static WebArchive archive(String content) {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "app.war");
+        archive.addAsWebResource(new StringAsset(content), "index.html");
+        archive.addAsWebInfResource(new StringAsset("<web-app/>"), "web.xml");
+        return archive;
+    }
+
+    private static JavaArchive library(String content) {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "lib.jar");
+        archive.addAsResource(new StringAsset(content), "lib.txt");
+        return archive;
+    }
+}
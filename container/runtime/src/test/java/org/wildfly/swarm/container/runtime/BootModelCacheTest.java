@@ -0,0 +1,128 @@
+package org.wildfly.swarm.container.runtime;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BootModelCacheTest {
+
+    private Properties properties;
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        this.properties = (Properties) System.getProperties().clone();
+        this.dir = Files.createTempDirectory("model-cache");
+        System.setProperty(BootModelCache.CACHE_PROPERTY, "true");
+        System.setProperty(BootModelCache.CACHE_DIR_PROPERTY, this.dir.resolve("cache").toString());
+    }
+
+    @After
+    public void tearDown() {
+        System.setProperties(this.properties);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        System.clearProperty(BootModelCache.CACHE_PROPERTY);
+
+        assertThat(BootModelCache.forConfiguration(Collections.emptyList(), null)).isNull();
+    }
+
+    @Test
+    public void testStoreAndLoad() {
+        BootModelCache cache = cache();
+        assertThat(cache.load()).isNull();
+
+        ModelNode first = new ModelNode();
+        first.get("operation").set("add");
+        first.get("address").add("extension", "org.jboss.as.logging");
+        ModelNode second = new ModelNode();
+        second.get("operation").set("write-attribute");
+        second.get("value").set(42);
+
+        cache.store(Arrays.asList(first, second));
+
+        List<ModelNode> loaded = cache().load();
+        assertThat(loaded).containsExactly(first, second);
+    }
+
+    @Test
+    public void testUnreadableEntryIsIgnored() throws Exception {
+        BootModelCache cache = cache();
+        Files.write(cache.getFile(), new byte[]{1, 2, 3});
+
+        assertThat(cache.load()).isNull();
+    }
+
+    @Test
+    public void testSameConfigurationHasSameKey() {
+        assertThat(cache().getFile().toString()).isEqualTo(cache().getFile().toString());
+    }
+
+    @Test
+    public void testPropertyChangesKey() {
+        Path before = cache().getFile();
+        System.setProperty("swarm.http.port", "8181");
+
+        assertThat(cache().getFile().toString()).isNotEqualTo(before.toString());
+    }
+
+    @Test
+    public void testVolatilePropertiesDoNotChangeKey() {
+        Path before = cache().getFile();
+        System.setProperty("wildfly.swarm.current.deployment", "app.war");
+
+        assertThat(cache().getFile().toString()).isEqualTo(before.toString());
+    }
+
+    @Test
+    public void testClasspathChangesKey() throws Exception {
+        Path jar = Files.write(this.dir.resolve("app.jar"), new byte[]{1});
+        System.setProperty("java.class.path", jar.toString());
+        Path before = cache().getFile();
+
+        Files.write(jar, new byte[]{1, 2});
+        assertThat(cache().getFile().toString()).isNotEqualTo(before.toString());
+
+        System.setProperty("java.class.path", jar.toString() + File.pathSeparator + this.dir.resolve("other.jar"));
+        assertThat(cache().getFile().toString()).isNotEqualTo(before.toString());
+    }
+
+    @Test
+    public void testClassesDirectoryChangesKey() throws Exception {
+        Path classes = Files.createDirectories(this.dir.resolve("classes"));
+        Files.write(classes.resolve("App.class"), new byte[]{1});
+        System.setProperty("java.class.path", classes.toString());
+        Path before = cache().getFile();
+
+        Files.write(classes.resolve("Other.class"), new byte[]{1});
+        assertThat(cache().getFile().toString()).isNotEqualTo(before.toString());
+    }
+
+    @Test
+    public void testFractionsAndArgumentsChangeKey() {
+        Path before = cache().getFile();
+
+        assertThat(BootModelCache.forConfiguration(Collections.singletonList("org.wildfly.swarm.jaxrs.runtime.JAXRSConfiguration"), null).getFile().toString())
+                .isNotEqualTo(before.toString());
+        assertThat(BootModelCache.forConfiguration(Collections.emptyList(), new String[]{"-Dfoo=bar"}).getFile().toString())
+                .isNotEqualTo(before.toString());
+    }
+
+    private static BootModelCache cache() {
+        return BootModelCache.forConfiguration(Collections.emptyList(), null);
+    }
+}
@@ -0,0 +1,130 @@
+package org.wildfly.swarm.container.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class HashedContentProviderTest {
+
+    private static final byte[] FISH = sha1(1);
+
+    private static final byte[] CAT = sha1(2);
+
+    private static final byte[] DOG = sha1(3);
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @Test
+    public void testAcquireAndRelease() throws Exception {
+        HashedContentProvider provider = new HashedContentProvider();
+        assertThat(provider.acquire("fish.war", FISH)).isNull();
+
+        byte[] hash = provider.addContent("fish.war", FISH, null, closeables());
+        assertThat(hash[0]).isEqualTo((byte) 0);
+
+        byte[] again = provider.acquire("fish.war", FISH);
+        assertThat(again).isEqualTo(hash);
+
+        provider.release(hash);
+        assertThat(this.closed.get()).isEqualTo(0);
+        provider.release(again);
+        assertThat(this.closed.get()).isEqualTo(1);
+
+        // released content is gone, and releasing it again does nothing
+        assertThat(provider.acquire("fish.war", FISH)).isNull();
+        provider.release(hash);
+        assertThat(this.closed.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testContentIsKeyedByNameAndSha1() throws Exception {
+        HashedContentProvider provider = new HashedContentProvider();
+        byte[] fish = provider.addContent("fish.war", FISH, null, closeables());
+
+        assertThat(provider.acquire("cat.war", FISH)).isNull();
+        assertThat(provider.acquire("fish.war", CAT)).isNull();
+
+        byte[] cat = provider.addContent("fish.war", CAT, null, closeables());
+        assertThat(cat).isNotEqualTo(fish);
+        assertThat(cat[0]).isEqualTo((byte) 1);
+    }
+
+    @Test
+    public void testAddingExistingContentReusesIt() throws Exception {
+        HashedContentProvider provider = new HashedContentProvider();
+        byte[] first = provider.addContent("fish.war", FISH, null, closeables());
+        byte[] second = provider.addContent("fish.war", FISH, null, closeables());
+
+        assertThat(second).isEqualTo(first);
+        // the duplicate mount is closed straight away
+        assertThat(this.closed.get()).isEqualTo(1);
+
+        provider.release(first);
+        provider.release(second);
+        assertThat(this.closed.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testReleasedSlotsAreReused() throws Exception {
+        HashedContentProvider provider = new HashedContentProvider();
+        byte[] fish = provider.addContent("fish.war", FISH, null, closeables());
+        provider.addContent("cat.war", CAT, null, closeables());
+
+        provider.release(fish);
+        byte[] next = provider.addContent("dog.war", DOG, null, closeables());
+
+        assertThat(next[0]).isEqualTo(fish[0]);
+        // the stale hash no longer names the slot's content
+        provider.release(fish);
+        assertThat(provider.acquire("dog.war", DOG)).isEqualTo(next);
+    }
+
+    @Test
+    public void testSlotsRunOut() throws Exception {
+        HashedContentProvider provider = new HashedContentProvider();
+        byte[][] hashes = new byte[256][];
+        for (int i = 0; i < 256; ++i) {
+            hashes[i] = provider.addContent("app" + i + ".war", FISH, null, closeables());
+        }
+
+        try {
+            provider.addContent("one-too-many.war", FISH, null, closeables());
+            fail("added more than 256 contents");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("256");
+        }
+
+        provider.release(hashes[42]);
+        byte[] hash = provider.addContent("one-too-many.war", FISH, null, closeables());
+        assertThat(hash[0]).isEqualTo((byte) 42);
+    }
+
+    @Test
+    public void testCloseClosesEverything() throws Exception {
+        HashedContentProvider provider = new HashedContentProvider();
+        provider.addContent("fish.war", FISH, null, closeables());
+        provider.addContent("cat.war", CAT, null, closeables());
+
+        provider.close();
+
+        assertThat(this.closed.get()).isEqualTo(2);
+        assertThat(provider.acquire("fish.war", FISH)).isNull();
+    }
+
+    private List<Closeable> closeables() {
+        return Collections.singletonList(this.closed::incrementAndGet);
+    }
+
+    private static byte[] sha1(int seed) {
+        byte[] sha1 = new byte[20];
+        sha1[19] = (byte) seed;
+        return sha1;
+    }
+}
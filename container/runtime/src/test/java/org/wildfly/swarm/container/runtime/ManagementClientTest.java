@@ -0,0 +1,131 @@
+package org.wildfly.swarm.container.runtime;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.WRITE_ATTRIBUTE_OPERATION;
+
+public class ManagementClientTest {
+
+    private final List<ModelNode> executed = new ArrayList<>();
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private boolean failComposites;
+
+    @Test
+    public void testReadsAreBatched() throws Exception {
+        ManagementClient client = new ManagementClient(client(), this.tasks::add);
+
+        CompletableFuture<ModelNode> first = client.read(read("first"));
+        CompletableFuture<ModelNode> second = client.read(read("second"));
+        CompletableFuture<ModelNode> third = client.read(read("third"));
+        runTasks();
+
+        assertThat(this.executed).hasSize(1);
+        assertThat(this.executed.get(0).get(OP).asString()).isEqualTo(COMPOSITE);
+        assertThat(this.executed.get(0).get(STEPS).asList()).hasSize(3);
+
+        assertThat(first.get().get(RESULT).asString()).isEqualTo("first");
+        assertThat(second.get().get(RESULT).asString()).isEqualTo("second");
+        assertThat(third.get().get(RESULT).asString()).isEqualTo("third");
+    }
+
+    @Test
+    public void testFailedCompositeFallsBackToSingleReads() throws Exception {
+        this.failComposites = true;
+        ManagementClient client = new ManagementClient(client(), this.tasks::add);
+
+        CompletableFuture<ModelNode> first = client.read(read("first"));
+        CompletableFuture<ModelNode> second = client.read(read("second"));
+        runTasks();
+
+        // the failed composite, then each read on its own
+        assertThat(this.executed).hasSize(3);
+        assertThat(this.executed.get(1).get(OP).asString()).isEqualTo(READ_ATTRIBUTE_OPERATION);
+        assertThat(this.executed.get(2).get(OP).asString()).isEqualTo(READ_ATTRIBUTE_OPERATION);
+
+        assertThat(first.get().get(RESULT).asString()).isEqualTo("first");
+        assertThat(second.get().get(RESULT).asString()).isEqualTo("second");
+    }
+
+    @Test
+    public void testOtherOperationsAreNotBatched() throws Exception {
+        ManagementClient client = new ManagementClient(client(), this.tasks::add);
+
+        ModelNode write = new ModelNode();
+        write.get(OP).set(WRITE_ATTRIBUTE_OPERATION);
+        write.get(NAME).set("written");
+
+        CompletableFuture<ModelNode> read = client.read(read("read"));
+        CompletableFuture<ModelNode> written = client.read(write);
+        runTasks();
+
+        assertThat(this.executed).hasSize(2);
+        assertThat(read.get().get(RESULT).asString()).isEqualTo("read");
+        assertThat(written.get().get(RESULT).asString()).isEqualTo("written");
+    }
+
+    private void runTasks() {
+        while (!this.tasks.isEmpty()) {
+            this.tasks.remove(0).run();
+        }
+    }
+
+    private static ModelNode read(String name) {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(READ_ATTRIBUTE_OPERATION);
+        operation.get(NAME).set(name);
+        return operation;
+    }
+
+    private ModelControllerClient client() {
+        return (ModelControllerClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ModelControllerClient.class}, (proxy, method, args) -> {
+            if (method.getName().equals("execute") && args[0] instanceof ModelNode) {
+                return execute((ModelNode) args[0]);
+            }
+            return null;
+        });
+    }
+
+    private ModelNode execute(ModelNode operation) {
+        this.executed.add(operation);
+
+        ModelNode response = new ModelNode();
+        if (!operation.get(OP).asString().equals(COMPOSITE)) {
+            response.get(OUTCOME).set(SUCCESS);
+            response.get(RESULT).set(operation.get(NAME));
+            return response;
+        }
+
+        if (this.failComposites) {
+            response.get(OUTCOME).set(FAILED);
+            return response;
+        }
+
+        response.get(OUTCOME).set(SUCCESS);
+        List<ModelNode> steps = operation.get(STEPS).asList();
+        for (int i = 0; i < steps.size(); ++i) {
+            ModelNode step = response.get(RESULT, "step-" + (i + 1));
+            step.get(OUTCOME).set(SUCCESS);
+            step.get(RESULT).set(steps.get(i).get(NAME));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,151 @@
+package org.wildfly.swarm.container.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.vfs.TempFileProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CONTENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FULL_REPLACE_DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REMOVE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+public class RuntimeDeployerTest {
+
+    private final List<ModelNode> executed = new ArrayList<>();
+
+    private final HashedContentProvider contents = new HashedContentProvider();
+
+    private ScheduledExecutorService scheduler;
+
+    private TempFileProvider tempFileProvider;
+
+    private RuntimeDeployer deployer;
+
+    @Before
+    public void setUp() throws IOException {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.tempFileProvider = TempFileProvider.create("runtime-deployer-test", this.scheduler);
+        this.deployer = new RuntimeDeployer(Collections.emptyList(), new ManagementClient(client(), Runnable::run), this.contents, this.tempFileProvider);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.deployer.stop();
+        this.tempFileProvider.close();
+        this.scheduler.shutdown();
+    }
+
+    @Test
+    public void testRedeployReplacesChangedDeployment() throws Exception {
+        this.deployer.deploy(archive("one"));
+        this.deployer.redeploy(archive("two"));
+
+        assertThat(this.executed).hasSize(2);
+        assertThat(this.executed.get(0).get(OP).asString()).isEqualTo(ADD);
+        ModelNode replace = this.executed.get(1);
+        assertThat(replace.get(OP).asString()).isEqualTo(FULL_REPLACE_DEPLOYMENT);
+        assertThat(replace.get(NAME).asString()).isEqualTo("app.war");
+
+        byte[] previous = hash(this.executed.get(0));
+        byte[] next = hash(replace);
+        assertThat(next).isNotEqualTo(previous);
+
+        // the previous content is released once replaced
+        assertThat(this.contents.getRoot(previous)).isNull();
+
+        File root = this.contents.getRoot(next);
+        assertThat(read(new File(root, "index.html"))).isEqualTo("two");
+        assertThat(read(new File(root, "WEB-INF/web.xml"))).isEqualTo("<web-app/>");
+    }
+
+    @Test
+    public void testRedeployOfUnchangedArchiveDoesNothing() throws Exception {
+        this.deployer.deploy(archive("one"));
+        this.deployer.redeploy(archive("one"));
+
+        assertThat(this.executed).hasSize(1);
+        assertThat(this.contents.getRoot(hash(this.executed.get(0)))).isNotNull();
+    }
+
+    @Test
+    public void testRedeployOfUndeployedArchiveDeploysIt() throws Exception {
+        this.deployer.redeploy(archive("one"));
+
+        assertThat(this.executed).hasSize(1);
+        assertThat(this.executed.get(0).get(OP).asString()).isEqualTo(ADD);
+    }
+
+    @Test
+    public void testUndeployRemovesAndReleases() throws Exception {
+        this.deployer.deploy(archive("one"));
+        byte[] hash = hash(this.executed.get(0));
+
+        this.deployer.undeploy("app.war");
+
+        assertThat(this.executed).hasSize(2);
+        ModelNode remove = this.executed.get(1);
+        assertThat(remove.get(OP).asString()).isEqualTo(REMOVE);
+        assertThat(remove.get(OP_ADDR).asProperty().getValue().asString()).isEqualTo("app.war");
+        assertThat(this.contents.getRoot(hash)).isNull();
+
+        try {
+            this.deployer.undeploy("app.war");
+            fail("undeployed twice");
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(this.executed).hasSize(2);
+    }
+
+    private static WebArchive archive(String content) {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "app.war");
+        archive.addAsWebResource(new StringAsset(content), "index.html");
+        archive.addAsWebInfResource(new StringAsset("<web-app/>"), "web.xml");
+        return archive;
+    }
+
+    private static byte[] hash(ModelNode operation) {
+        return operation.get(CONTENT).get(0).get(HASH).asBytes();
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private ModelControllerClient client() {
+        return (ModelControllerClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ModelControllerClient.class}, (proxy, method, args) -> {
+            if (method.getName().equals("execute") && args[0] instanceof ModelNode) {
+                this.executed.add((ModelNode) args[0]);
+                ModelNode response = new ModelNode();
+                response.get(OUTCOME).set(SUCCESS);
+                return response;
+            }
+            return null;
+        });
+    }
+}
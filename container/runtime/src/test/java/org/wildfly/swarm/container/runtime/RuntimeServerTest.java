@@ -0,0 +1,223 @@
+package org.wildfly.swarm.container.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.swarm.container.Fraction;
+import org.wildfly.swarm.container.RuntimeModuleProvider;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class RuntimeServerTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(RuntimeServer.FRACTIONS_PROPERTY);
+    }
+
+    @Test
+    public void testFractionPackagesAreRequired() {
+        Set<String> required = RuntimeServer.requiredFractions(types(FishFraction.class));
+
+        assertThat(required).containsOnly("org.wildfly.swarm.container.runtime");
+    }
+
+    @Test
+    public void testNamedFractionsAreRequired() {
+        System.setProperty(RuntimeServer.FRACTIONS_PROPERTY, "jaxrs, org.wildfly.swarm.undertow,, com.example.fish ");
+
+        Set<String> required = RuntimeServer.requiredFractions(Collections.emptySet());
+
+        // short names are under org.wildfly.swarm, anything with a dot is taken as is
+        assertThat(required).containsOnly("org.wildfly.swarm.jaxrs", "org.wildfly.swarm.undertow", "com.example.fish");
+    }
+
+    @Test
+    public void testNothingRequiredLoadsEverything() {
+        assertThat(RuntimeServer.requiredFractions(Collections.emptySet())).isNull();
+
+        System.setProperty(RuntimeServer.FRACTIONS_PROPERTY, " , ");
+        assertThat(RuntimeServer.requiredFractions(Collections.emptySet())).isNull();
+    }
+
+    @Test
+    public void testProviderRequiredByModuleName() {
+        Set<String> required = new HashSet<>(Arrays.asList("org.wildfly.swarm.jaxrs"));
+
+        assertThat(RuntimeServer.isRequired(() -> "org.wildfly.swarm.jaxrs", required)).isTrue();
+        assertThat(RuntimeServer.isRequired(() -> "org.wildfly.swarm.jaxrs.runtime", required)).isFalse();
+        assertThat(RuntimeServer.isRequired(() -> "jaxrs", required)).isFalse();
+    }
+
+    @Test
+    public void testProviderRequiredByPackage() {
+        Set<String> required = RuntimeServer.requiredFractions(types(FishFraction.class));
+
+        // lives alongside the fraction, whatever module it names
+        assertThat(RuntimeServer.isRequired(new FishModuleProvider(), required)).isTrue();
+        assertThat(RuntimeServer.isRequired(new FishModuleProvider(), Collections.singleton("org.wildfly.swarm.jaxrs"))).isFalse();
+    }
+
+    @Test
+    public void testFirstFractionOfATypeWins() {
+        FishFraction fish = new FishFraction();
+        GoldfishFraction goldfish = new GoldfishFraction();
+        CatFraction cat = new CatFraction();
+
+        Map<Class<?>, Fraction> index = RuntimeServer.indexFractions(Arrays.asList(fish, goldfish, cat));
+
+        assertThat(index.get(FishFraction.class)).isSameAs(fish);
+        assertThat(index.get(GoldfishFraction.class)).isSameAs(goldfish);
+        assertThat(index.get(CatFraction.class)).isSameAs(cat);
+        assertThat(index.get(Pet.class)).isSameAs(fish);
+        assertThat(index.get(Fraction.class)).isSameAs(fish);
+        assertThat(index.containsKey(Object.class)).isFalse();
+
+        // as searching the fractions in order for one assignable to the type
+        index = RuntimeServer.indexFractions(Arrays.asList(cat, goldfish, fish));
+        assertThat(index.get(FishFraction.class)).isSameAs(goldfish);
+        assertThat(index.get(Pet.class)).isSameAs(cat);
+    }
+
+    @Test
+    public void testParallelMarshallingKeepsConfigurationOrder() throws Exception {
+        Map<Class<?>, Fraction> index = RuntimeServer.indexFractions(Arrays.asList(new FishFraction(), new CatFraction()));
+        // the first configurations are the slowest, so finish last
+        List<ServerConfiguration> configs = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            configs.add(new Configuration(i % 2 == 0 ? FishFraction.class : CatFraction.class, "op-" + i, (8 - i) * 20));
+        }
+        configs.add(4, new Configuration(GoldfishFraction.class, "no fraction", 0));
+
+        List<ModelNode> serial = RuntimeServer.marshalFractions(configs, index, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<ModelNode> parallel = RuntimeServer.marshalFractions(configs, index, executor);
+
+            assertThat(names(parallel)).isEqualTo(names(serial));
+            assertThat(names(parallel)).containsExactly("op-0", "op-1", "op-2", "op-3", "op-4", "op-5", "op-6", "op-7");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelMarshallingUsesCallersClassLoaderAndRethrows() throws Exception {
+        ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+        };
+        List<ClassLoader> seen = new ArrayList<>();
+        Map<Class<?>, Fraction> index = RuntimeServer.indexFractions(Collections.singletonList(new FishFraction()));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            RuntimeServer.marshalFractions(Collections.singletonList(new Configuration(FishFraction.class, "fish", 0) {
+                @Override
+                public List<ModelNode> getList(Fraction fraction) throws Exception {
+                    seen.add(Thread.currentThread().getContextClassLoader());
+                    return super.getList(fraction);
+                }
+            }), index, executor);
+            assertThat(seen).containsExactly(loader);
+
+            try {
+                RuntimeServer.marshalFractions(Collections.singletonList(new Configuration(FishFraction.class, "fish", 0) {
+                    @Override
+                    public List<ModelNode> getList(Fraction fraction) throws Exception {
+                        throw new IllegalStateException("no fish");
+                    }
+                }), index, executor);
+                fail("marshalled a failing configuration");
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage()).isEqualTo("no fish");
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> names(List<ModelNode> ops) {
+        List<String> names = new ArrayList<>();
+        for (ModelNode each : ops) {
+            names.add(each.get("name").asString());
+        }
+        return names;
+    }
+
+    @SafeVarargs
+    private static Set<Class<? extends Fraction>> types(Class<? extends Fraction>... types) {
+        return new HashSet<>(Arrays.asList(types));
+    }
+
+    private interface Pet {
+    }
+
+    private static class FishFraction implements Fraction, Pet {
+    }
+
+    private static class GoldfishFraction extends FishFraction {
+    }
+
+    private static class CatFraction implements Fraction, Pet {
+    }
+
+    private static class Configuration implements ServerConfiguration<Fraction> {
+
+        private final Class<? extends Fraction> type;
+
+        private final String name;
+
+        private final long delay;
+
+        Configuration(Class<? extends Fraction> type, String name, long delay) {
+            this.type = type;
+            this.name = name;
+            this.delay = delay;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Class<Fraction> getType() {
+            return (Class<Fraction>) this.type;
+        }
+
+        @Override
+        public Fraction defaultFraction() {
+            return null;
+        }
+
+        @Override
+        public boolean isIgnorable() {
+            return true;
+        }
+
+        @Override
+        public List<ModelNode> getList(Fraction fraction) throws Exception {
+            Thread.sleep(this.delay);
+            ModelNode op = new ModelNode();
+            op.get("name").set(this.name);
+            return Collections.singletonList(op);
+        }
+    }
+
+    private static class FishModuleProvider implements RuntimeModuleProvider {
+        @Override
+        public String getModuleName() {
+            return "org.wildfly.swarm.fish";
+        }
+    }
+}
@@ -27,6 +27,8 @@ import org.wildfly.swarm.config.security.security_domain.ClassicAuthorization;
 import org.wildfly.swarm.config.security.security_domain.authorization.PolicyModule;
 import org.wildfly.swarm.container.Container;
 import org.wildfly.swarm.container.Fraction;
+import org.wildfly.swarm.container.RuntimeProfile;
+import org.wildfly.swarm.container.util.ResourceLimits;
 import org.wildfly.swarm.security.SecurityFraction;
 
 import java.util.HashMap;
@@ -92,7 +94,9 @@ public class EJBFraction extends EJB3<EJBFraction> implements Fraction {
                                 .path("timer-service-data")
                                 .relativeTo("jboss.server.data.dir")))
                 .threadPool(new ThreadPool("default")
-                        .maxThreads(10)
+                        .maxThreads(RuntimeProfile.select("ejb", "thread-pool max-threads",
+                                ResourceLimits.getInstance().size(10, 4, 2),
+                                ResourceLimits.getInstance().size(4, 2, 2)))
                         .keepaliveTime(threadPoolSettings));
 
         return fraction;
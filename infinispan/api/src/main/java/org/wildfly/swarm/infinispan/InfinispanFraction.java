@@ -19,6 +19,8 @@ import org.wildfly.swarm.config.Infinispan;
 import org.wildfly.swarm.config.infinispan.CacheContainer;
 import org.wildfly.swarm.container.Container;
 import org.wildfly.swarm.container.Fraction;
+import org.wildfly.swarm.container.RuntimeProfile;
+import org.wildfly.swarm.container.util.ResourceLimits;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -106,12 +108,12 @@ public class InfinispanFraction extends Infinispan<InfinispanFraction> implement
                        cc -> cc.defaultCache("local-query")
                                .jgroupsTransport(t -> t.lockTimeout(60000L))
                                .localCache("local-query",
-                                           c -> c.evictionComponent(ec -> ec.maxEntries(10000L).strategy("LRU"))
+                                           c -> c.evictionComponent(ec -> ec.maxEntries(evictionMaxEntries()).strategy("LRU"))
                                                    .expirationComponent(ec -> ec.maxIdle(100000L)))
                                .invalidationCache("entity",
                                                   c -> c.mode("SYNC")
                                                           .transactionComponent(tc -> tc.mode("NON_XA"))
-                                                          .evictionComponent(ec -> ec.maxEntries(10000L).strategy("LRU"))
+                                                          .evictionComponent(ec -> ec.maxEntries(evictionMaxEntries()).strategy("LRU"))
                                                           .expirationComponent(ec -> ec.maxIdle(100000L)))
                                .replicatedCache("timestamps", c -> c.mode("ASYNC")));
 
@@ -151,15 +153,15 @@ public class InfinispanFraction extends Infinispan<InfinispanFraction> implement
                        cc -> cc.defaultCache("local-query")
                                .localCache("entity",
                                            c -> c.transactionComponent(t -> t.mode("NON_XA"))
-                                                   .evictionComponent(e -> e.strategy("LRU").maxEntries(10000L))
+                                                   .evictionComponent(e -> e.strategy("LRU").maxEntries(evictionMaxEntries()))
                                                    .expirationComponent(e -> e.maxIdle(100000L)))
                                .localCache("immutable-entity",
                                            c -> c.transactionComponent(t -> t.mode("NON_XA"))
-                                                   .evictionComponent(e -> e.strategy("LRU").maxEntries(10000L))
+                                                   .evictionComponent(e -> e.strategy("LRU").maxEntries(evictionMaxEntries()))
                                                    .expirationComponent(e -> e.maxIdle(100000L)))
                                .localCache("local-query",
                                            c -> c.transactionComponent(t -> t.mode("NON_XA"))
-                                                   .evictionComponent(e -> e.strategy("LRU").maxEntries(10000L))
+                                                   .evictionComponent(e -> e.strategy("LRU").maxEntries(evictionMaxEntries()))
                                                    .expirationComponent(e -> e.maxIdle(100000L)))
                                .localCache("timestamps"));
 
@@ -173,10 +175,14 @@ public class InfinispanFraction extends Infinispan<InfinispanFraction> implement
     private static CacheContainer enableResourceDefaults(CacheContainer container) {
         CacheContainer.CacheContainerResources containerResources = container.subresources();
 
+        // scaled down to the CPUs and memory of the cgroup, if it is limited, and further for the lean profile
+        ResourceLimits limits = ResourceLimits.getInstance();
+
         // from https://github.com/wildfly/wildfly/tree/master/clustering/infinispan/extension/src/main/java/org/jboss/as/clustering/infinispan/subsystem/ThreadPoolResourceDefinition.java#L71
         if (containerResources.asyncOperationsThreadPool() == null) {
-            container.asyncOperationsThreadPool(p -> p.minThreads(25)
-                    .maxThreads(25)
+            int threads = threads("async-operations", limits.size(25, 4, 2), 2);
+            container.asyncOperationsThreadPool(p -> p.minThreads(threads)
+                    .maxThreads(threads)
                     .queueLength(1000)
                     .keepaliveTime(60000L));
         }
@@ -188,25 +194,26 @@ public class InfinispanFraction extends Infinispan<InfinispanFraction> implement
         }
         if (containerResources.persistenceThreadPool() == null) {
             container.persistenceThreadPool(p -> p.minThreads(1)
-                    .maxThreads(4)
+                    .maxThreads(threads("persistence", limits.size(4, 1, 1), 1))
                     .queueLength(0)
                     .keepaliveTime(60000L));
         }
         if (containerResources.remoteCommandThreadPool() == null) {
             container.remoteCommandThreadPool(p -> p.minThreads(1)
-                    .maxThreads(200)
+                    .maxThreads(threads("remote-command", limits.size(200, 25, 4), 16))
                     .queueLength(0)
                     .keepaliveTime(60000L));
         }
         if (containerResources.stateTransferThreadPool() == null) {
             container.stateTransferThreadPool(p -> p.minThreads(1)
-                    .maxThreads(60)
+                    .maxThreads(threads("state-transfer", limits.size(60, 8, 2), 4))
                     .queueLength(0)
                     .keepaliveTime(60000L));
         }
         if (containerResources.transportThreadPool() == null) {
-            container.transportThreadPool(p -> p.minThreads(25)
-                    .maxThreads(25)
+            int threads = threads("transport", limits.size(25, 4, 2), 4);
+            container.transportThreadPool(p -> p.minThreads(threads)
+                    .maxThreads(threads)
                     .queueLength(100000)
                     .keepaliveTime(60000L));
         }
@@ -225,5 +232,13 @@ public class InfinispanFraction extends Infinispan<InfinispanFraction> implement
         return container;
     }
 
+    private static int threads(String pool, int sized, int lean) {
+        return RuntimeProfile.select("infinispan", pool + " max-threads", sized, Math.min(sized, lean));
+    }
+
+    private static long evictionMaxEntries() {
+        return RuntimeProfile.select("infinispan", "eviction max-entries", 10000L, 1000L);
+    }
+
     private boolean defaultFraction = false;
 }
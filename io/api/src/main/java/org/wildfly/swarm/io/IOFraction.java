@@ -19,6 +19,8 @@ import org.wildfly.swarm.config.IO;
 import org.wildfly.swarm.config.io.BufferPool;
 import org.wildfly.swarm.config.io.Worker;
 import org.wildfly.swarm.container.Fraction;
+import org.wildfly.swarm.container.RuntimeProfile;
+import org.wildfly.swarm.container.util.ResourceLimits;
 
 /**
  * @author Bob McWhirter
@@ -28,9 +30,36 @@ public class IOFraction extends IO<IOFraction> implements Fraction {
     }
 
     public static IOFraction createDefaultFraction() {
-        return new IOFraction().worker(new Worker("default"))
-                .bufferPool(new BufferPool("default"));
+        return new IOFraction().worker(defaultWorker())
+                .bufferPool(defaultBufferPool());
 
 
     }
+
+    private static Worker defaultWorker() {
+        Worker worker = new Worker("default");
+
+        // XNIO sizes workers from every CPU of the host, 2 I/O and 16 task threads each
+        ResourceLimits limits = ResourceLimits.getInstance();
+        if (limits.isLimited() || RuntimeProfile.isLean()) {
+            int hostProcessors = Runtime.getRuntime().availableProcessors();
+            int ioThreads = limits.size(hostProcessors * 2, 2, 2);
+            int taskThreads = limits.size(hostProcessors * 16, 16, 4);
+            worker.ioThreads(RuntimeProfile.select("io", "worker io-threads", ioThreads, Math.min(ioThreads, limits.getProcessors())))
+                    .taskMaxThreads(RuntimeProfile.select("io", "worker task-max-threads", taskThreads, Math.min(taskThreads, 4 * limits.getProcessors())));
+        }
+
+        return worker;
+    }
+
+    private static BufferPool defaultBufferPool() {
+        BufferPool pool = new BufferPool("default");
+
+        if (RuntimeProfile.isLean()) {
+            pool.bufferSize(RuntimeProfile.budget("io", "buffer-pool buffer-size", 4096))
+                    .buffersPerSlice(RuntimeProfile.budget("io", "buffer-pool buffers-per-slice", 16));
+        }
+
+        return pool;
+    }
 }
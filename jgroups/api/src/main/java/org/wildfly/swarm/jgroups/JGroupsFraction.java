@@ -18,6 +18,7 @@ package org.wildfly.swarm.jgroups;
 import org.wildfly.swarm.config.JGroups;
 import org.wildfly.swarm.container.Container;
 import org.wildfly.swarm.container.Fraction;
+import org.wildfly.swarm.container.RuntimeProfile;
 import org.wildfly.swarm.container.SocketBinding;
 
 import java.util.ArrayList;
@@ -38,6 +39,12 @@ public class JGroupsFraction extends JGroups<JGroupsFraction> implements Fractio
                 .stack( "udp", (s)->{
                     s.transport( "UDP", (t)->{
                         t.socketBinding("jgroups-udp");
+                        if (RuntimeProfile.isLean()) {
+                            t.defaultThreadPool( (p)-> p.maxThreads( RuntimeProfile.budget( "jgroups", "default thread-pool max-threads", 8 ) ) );
+                            t.oobThreadPool( (p)-> p.maxThreads( RuntimeProfile.budget( "jgroups", "oob thread-pool max-threads", 8 ) ) );
+                            t.internalThreadPool( (p)-> p.maxThreads( RuntimeProfile.budget( "jgroups", "internal thread-pool max-threads", 4 ) ) );
+                            t.timerThreadPool( (p)-> p.maxThreads( RuntimeProfile.budget( "jgroups", "timer thread-pool max-threads", 2 ) ) );
+                        }
                     });
                     if (System.getenv("OPENSHIFT_BUILD_NAME") != null ||
                             System.getenv("OPENSHIFT_BUILD_REFERENCE") != null ||
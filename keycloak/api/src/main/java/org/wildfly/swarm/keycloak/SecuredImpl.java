@@ -25,8 +25,8 @@ import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
 import org.jboss.shrinkwrap.impl.base.ArchiveBase;
 import org.jboss.shrinkwrap.impl.base.AssignableBase;
-import org.jboss.shrinkwrap.impl.base.importer.zip.ZipImporterImpl;
 import org.wildfly.swarm.container.JARArchive;
+import org.wildfly.swarm.container.util.ApplicationArtifact;
 
 /**
  * @author Bob McWhirter
@@ -57,24 +57,21 @@ public class SecuredImpl extends AssignableBase<ArchiveBase<?>> implements Secur
         InputStream keycloakJson = Thread.currentThread().getContextClassLoader().getResourceAsStream("keycloak.json");
         if ( keycloakJson == null ) {
 
-            String appArtifact = System.getProperty("wildfly.swarm.app.artifact");
-
-            if (appArtifact != null) {
-                try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream("_bootstrap/" + appArtifact)) {
-                    ZipImporterImpl importer = new ZipImporterImpl(archive);
-                    importer.importFrom(in);
-                    Node jsonNode = archive.get("keycloak.json");
-                    if ( jsonNode == null ) {
-                        jsonNode = archive.get("WEB-INF/keycloak.json");
+            try {
+                ApplicationArtifact app = ApplicationArtifact.getInstance();
+                if (app != null) {
+                    Asset jsonAsset = app.getAsset("keycloak.json");
+                    if ( jsonAsset == null ) {
+                        jsonAsset = app.getAsset("WEB-INF/keycloak.json");
                     }
 
-                    if ( jsonNode != null && jsonNode.getAsset() != null ) {
-                        keycloakJson = jsonNode.getAsset().openStream();
+                    if ( jsonAsset != null ) {
+                        keycloakJson = jsonAsset.openStream();
                     }
-                } catch (IOException e) {
-                    // ignore
-                    // e.printStackTrace();
                 }
+            } catch (IOException e) {
+                // ignore
+                // e.printStackTrace();
             }
         }
 
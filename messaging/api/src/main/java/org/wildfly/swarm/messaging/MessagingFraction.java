@@ -17,6 +17,7 @@ package org.wildfly.swarm.messaging;
 
 import org.wildfly.swarm.config.MessagingActiveMQ;
 import org.wildfly.swarm.container.Fraction;
+import org.wildfly.swarm.container.RuntimeProfile;
 
 /**
  * @author Bob McWhirter
@@ -57,7 +58,15 @@ public class MessagingFraction extends MessagingActiveMQ<MessagingFraction> impl
     private EnhancedServer findOrCreateDefaultServer() {
         EnhancedServer server = (EnhancedServer) subresources().server("default");
         if (server == null) {
-            server("default", EnhancedServer::enableInVm);
+            server("default", (s) -> {
+                s.enableInVm();
+                if (RuntimeProfile.isLean()) {
+                    // by default a 490K buffer, and at least two 10M journal files
+                    s.journalBufferSize(RuntimeProfile.budget("messaging", "journal-buffer-size", 100L * 1024))
+                            .journalFileSize(RuntimeProfile.budget("messaging", "journal-file-size", 1024L * 1024))
+                            .journalMinFiles(RuntimeProfile.budget("messaging", "journal-min-files", 2));
+                }
+            });
         }
 
         return (EnhancedServer) subresources().server("default");
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.plugin.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.wildfly.swarm.tools.exec.SwarmExecutor;
+import org.wildfly.swarm.tools.exec.SwarmProcess;
+
+/**
+ * Builds a class-data-sharing archive for the -swarm.jar.
+ *
+ * <p>The -swarm.jar is started once and the JVM archives every class it loaded when it
+ * exits.  Pass the archive to <code>wildfly-swarm:start</code> as <code>sharedArchive</code>,
+ * or launch with the options logged at the end of the build.</p>
+ *
+ * <p>Nearly all classes of a WildFly Swarm process are defined by JBoss Modules class
+ * loaders, which only dynamic archives (JDK 13 and later) can share; AppCDS on JDK 8
+ * shares nothing beyond the JDK and the bootstrap jar.  On older JDKs the goal is
+ * skipped.</p>
+ *
+ * @author Bob McWhirter
+ */
+@Mojo(name = "cds")
+public class ClassDataSharingMojo extends AbstractMojo {
+
+    private static final int MINIMUM_JAVA_VERSION = 13;
+
+    @Component
+    public MavenProject project;
+
+    @Parameter(defaultValue = "${project.build.directory}")
+    public String projectBuildDir;
+
+    @Parameter(alias = "sharedArchive")
+    public File sharedArchive;
+
+    @Parameter(alias = "jvmArguments")
+    public List<String> jvmArguments;
+
+    @Parameter(alias = "properties")
+    public Properties properties;
+
+    @Parameter(alias = "trainingTimeout", defaultValue = "120")
+    public int trainingTimeout;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (this.properties == null) {
+            this.properties = new Properties();
+        }
+        if (this.jvmArguments == null) {
+            this.jvmArguments = new ArrayList<>();
+        }
+
+        String finalName = this.project.getBuild().getFinalName();
+        if (finalName.endsWith(".war") || finalName.endsWith(".jar")) {
+            finalName = finalName.substring(0, finalName.length() - 4);
+        }
+
+        Path uberJar = Paths.get(this.projectBuildDir, finalName + "-swarm.jar");
+        if (!Files.exists(uberJar)) {
+            throw new MojoFailureException("No -swarm.jar found at " + uberJar + ", run wildfly-swarm:package first");
+        }
+
+        int javaVersion = javaVersion();
+        if (javaVersion < MINIMUM_JAVA_VERSION) {
+            getLog().info("Skipping the shared archive: Java " + javaVersion + " cannot share classes of module class loaders, Java "
+                    + MINIMUM_JAVA_VERSION + " or later is required");
+            return;
+        }
+
+        Path archive = this.sharedArchive != null ? this.sharedArchive.toPath() : Paths.get(this.projectBuildDir, finalName + "-swarm.jsa");
+
+        try {
+            Files.deleteIfExists(archive);
+            train(uberJar, archive);
+        } catch (IOException e) {
+            throw new MojoFailureException("Unable to build shared archive", e);
+        } catch (InterruptedException e) {
+            throw new MojoFailureException("Interrupted while building shared archive", e);
+        }
+
+        if (!Files.exists(archive)) {
+            throw new MojoFailureException("The JVM did not produce a shared archive");
+        }
+
+        getLog().info("Shared archive: " + archive);
+        getLog().info("Launch with: -Xshare:auto -XX:SharedArchiveFile=" + archive);
+    }
+
+    static int javaVersion() {
+        // the -swarm.jar is run by the JVM running Maven
+        String version = System.getProperty("java.specification.version");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    protected void train(Path uberJar, Path archive) throws IOException, InterruptedException, MojoFailureException {
+        getLog().info("Recording loaded classes");
+
+        SwarmProcess process = new SwarmExecutor()
+                .withDefaultSystemProperties()
+                .withProperties(this.properties)
+                .withJVMArguments(this.jvmArguments)
+                .withSharedArchiveOutput(archive)
+                .withWorkingDirectory(this.project.getBasedir().toPath())
+                .withExecutableJar(uberJar)
+                .execute();
+
+        process.awaitDeploy(this.trainingTimeout, TimeUnit.SECONDS);
+
+        if (!process.isAlive()) {
+            throw new MojoFailureException("Training process failed to start");
+        }
+        if (process.getError() != null) {
+            throw new MojoFailureException("Error starting training process", process.getError());
+        }
+
+        // the archive is written as the JVM exits
+        process.stop(this.trainingTimeout, TimeUnit.SECONDS);
+    }
+}
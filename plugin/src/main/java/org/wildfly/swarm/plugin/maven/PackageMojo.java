@@ -97,6 +97,9 @@ public class PackageMojo extends AbstractMojo { //extends AbstractSwarmMojo {
     @Parameter(alias = "propertiesFile")
     private String propertiesFile;
 
+    @Parameter(alias = "preloadList")
+    private String preloadList;
+
     private BuildTool tool;
 
     protected Properties loadProperties(File file) throws MojoFailureException {
@@ -172,6 +175,10 @@ public class PackageMojo extends AbstractMojo { //extends AbstractSwarmMojo {
             }
         }
 
+        if (this.preloadList != null) {
+            this.tool.preloadList(new File(this.preloadList));
+        }
+
         this.tool
                 .properties(this.properties)
                 .mainClass(this.mainClass)
@@ -90,6 +90,10 @@ public class StartMojo extends AbstractMojo {
     @Parameter(alias = "debug")
     public Integer debugPort;
 
+    /** Class-data-sharing archive built by <code>wildfly-swarm:cds</code>, used with the -swarm.jar. */
+    @Parameter(alias = "sharedArchive")
+    public File sharedArchive;
+
     boolean waitForProcess;
 
     @Override
@@ -156,7 +160,7 @@ public class StartMojo extends AbstractMojo {
         Path uberJar = Paths.get(this.projectBuildDir, uberJarName);
 
         try {
-            SwarmProcess process = new SwarmExecutor()
+            SwarmExecutor executor = new SwarmExecutor()
                     .withDefaultSystemProperties()
                     .withDebug(debugPort)
                     .withProperties(this.properties)
@@ -164,8 +168,18 @@ public class StartMojo extends AbstractMojo {
                     .withWorkingDirectory(this.project.getBasedir().toPath())
                     .withStdoutFile(this.stdoutFile != null ? this.stdoutFile.toPath() : null)
                     .withStderrFile(this.stderrFile != null ? this.stderrFile.toPath() : null)
-                    .withExecutableJar(uberJar)
-                    .execute();
+                    .withExecutableJar(uberJar);
+
+            if (this.sharedArchive != null) {
+                if (this.sharedArchive.exists()) {
+                    executor.withSharedArchive(this.sharedArchive.toPath());
+                } else {
+                    // wildfly-swarm:cds skips the archive on JDKs that cannot use it
+                    getLog().info("Starting without a shared archive, " + this.sharedArchive + " does not exist");
+                }
+            }
+
+            SwarmProcess process = executor.execute();
 
             process.awaitDeploy(2, TimeUnit.MINUTES);
 
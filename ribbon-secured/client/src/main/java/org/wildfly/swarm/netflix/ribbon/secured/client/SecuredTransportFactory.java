@@ -30,19 +30,15 @@ import io.reactivex.netty.protocol.http.client.HttpClientResponse;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+
+import org.wildfly.swarm.container.util.ThreadPools;
 
 /**
  * @author Bob McWhirter
  */
 public class SecuredTransportFactory extends RibbonTransportFactory {
 
-    public static final ScheduledExecutorService poolCleanerScheduler;
-
-    static {
-        poolCleanerScheduler = Executors.newScheduledThreadPool(1);
-    }
+    private static final String POOL_CLEANER_POOL = "ribbon-pool-cleaner";
 
     protected SecuredTransportFactory() {
         super(ClientConfigFactory.DEFAULT);
@@ -57,7 +53,7 @@ public class SecuredTransportFactory extends RibbonTransportFactory {
                 .withExecutorListeners(listeners)
                 .withRetryHandler(getDefaultHttpRetryHandlerWithConfig(config))
                 .withPipelineConfigurator(RibbonTransport.DEFAULT_HTTP_PIPELINE_CONFIGURATOR)
-                .withPoolCleanerScheduler(RibbonTransport.poolCleanerScheduler)
+                .withPoolCleanerScheduler(ThreadPools.getInstance().scheduler(POOL_CLEANER_POOL, 1))
                 .build();
 
         return client;
@@ -6,6 +6,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -19,6 +21,8 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.wildfly.swarm.container.util.ResourceLimits;
+import org.wildfly.swarm.container.util.ThreadPools;
 import org.wildfly.swarm.netflix.ribbon.RibbonTopology;
 import org.wildfly.swarm.netflix.ribbon.RibbonTopologyListener;
 
@@ -29,6 +33,8 @@ import org.wildfly.swarm.netflix.ribbon.RibbonTopologyListener;
 @WebServlet(urlPatterns = {"/system/stream"}, asyncSupported = true)
 public class RibbonToTheCurbSSEServlet extends HttpServlet {
 
+    private static final String KEEP_ALIVE_POOL = "ribbon-sse-keep-alive";
+
     private RibbonTopology topology;
 
     @Override
@@ -68,38 +74,32 @@ public class RibbonToTheCurbSSEServlet extends HttpServlet {
             }
         };
 
-        Thread keepAlive = new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(15_000);
-                    synchronized (writeLock) {
-                        writer.write(":\n\n");
-                        writer.flush();
-                    }
-                } catch (InterruptedException e) {
-                    break;
-                }
+        // a write to a slow client blocks its thread, so one client must not hold up the rest
+        ScheduledFuture<?> keepAlive = ThreadPools.getInstance().scheduler(KEEP_ALIVE_POOL, Math.max(2, ResourceLimits.getInstance().getProcessors())).scheduleWithFixedDelay(() -> {
+            synchronized (writeLock) {
+                writer.write(":\n\n");
+                writer.flush();
             }
-        });
+        }, 15, 15, TimeUnit.SECONDS);
 
         asyncContext.setTimeout(0);
         asyncContext.addListener(new AsyncListener() {
             @Override
             public void onComplete(AsyncEvent asyncEvent) throws IOException {
                 RibbonToTheCurbSSEServlet.this.topology.removeListener(topologyListener);
-                keepAlive.interrupt();
+                keepAlive.cancel(false);
             }
 
             @Override
             public void onTimeout(AsyncEvent asyncEvent) throws IOException {
                 RibbonToTheCurbSSEServlet.this.topology.removeListener(topologyListener);
-                keepAlive.interrupt();
+                keepAlive.cancel(false);
             }
 
             @Override
             public void onError(AsyncEvent asyncEvent) throws IOException {
                 RibbonToTheCurbSSEServlet.this.topology.removeListener(topologyListener);
-                keepAlive.interrupt();
+                keepAlive.cancel(false);
             }
 
             @Override
@@ -114,8 +114,6 @@ public class RibbonToTheCurbSSEServlet extends HttpServlet {
         writer.write("data: " + json);
         writer.flush();
 
-        keepAlive.start();
-
     }
 
     protected String topologyToJson() {
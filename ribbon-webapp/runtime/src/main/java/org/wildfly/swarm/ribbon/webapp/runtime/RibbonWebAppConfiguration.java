@@ -37,6 +37,7 @@ public class RibbonWebAppConfiguration extends AbstractServerConfiguration<Ribbo
         WARArchive war = ShrinkWrap.create( WARArchive.class );
         war.addClass( RibbonToTheCurbSSEServlet.class );
         war.addModule("org.wildfly.swarm.netflix.ribbon");
+        war.addModule("org.wildfly.swarm.container");
         war.addAsWebResource(new ClassLoaderAsset("ribbon.js", this.getClass().getClassLoader()), "ribbon.js");
         war.setContextRoot(context);
         war.as(RibbonArchive.class);
@@ -18,21 +18,30 @@ package org.wildfly.swarm.tools;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
 import org.jboss.shrinkwrap.api.asset.StringAsset;
-import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.impl.base.asset.ZipFileEntryAsset;
+import org.wildfly.swarm.bootstrap.util.ApplicationPackageIndex;
+import org.wildfly.swarm.bootstrap.util.CompiledModuleDescriptor;
+import org.wildfly.swarm.bootstrap.util.ModuleIndex;
+import org.wildfly.swarm.bootstrap.util.PreloadList;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmApplicationConf;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmBootstrapConf;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmDependenciesConf;
@@ -63,6 +72,8 @@ public class BuildTool {
 
     private Set<String> additionnalModules = new HashSet<>();
 
+    private File preloadList;
+
     public BuildTool() {
         this.archive = ShrinkWrap.create(JavaArchive.class);
     }
@@ -82,6 +93,14 @@ public class BuildTool {
         return this;
     }
 
+    /**
+     * Embed a list of classes to preload at boot, as recorded with <code>swarm.preload.record</code>.
+     */
+    public BuildTool preloadList(File preloadList) {
+        this.preloadList = preloadList;
+        return this;
+    }
+
     public BuildTool bundleDependencies(boolean bundleDependencies) {
         this.bundleDependencies = bundleDependencies;
         return this;
@@ -135,6 +154,8 @@ public class BuildTool {
         addWildFlySwarmApplicationConf();
         addWildFlySwarmDependenciesConf();
         addAdditionnalModules();
+        addModuleIndex();
+        addPreloadList();
         populateUberJarMavenRepository();
         return this.archive;
     }
@@ -168,7 +189,13 @@ public class BuildTool {
             String eachValue = this.properties.get(eachName).toString();
             props.put(eachName, eachValue);
         }
-        props.setProperty("wildfly.swarm.app.artifact", this.projectAsset.getSimpleName());
+        String simpleName = this.projectAsset.getSimpleName();
+        props.setProperty("wildfly.swarm.app.artifact", simpleName);
+        int dotLoc = simpleName.lastIndexOf('.');
+        if (dotLoc >= 0) {
+            // saves the container working out the default deployment's type at runtime
+            props.setProperty("wildfly.swarm.app.type", simpleName.substring(dotLoc + 1));
+        }
         props.setProperty("wildfly.swarm.context.path", this.contextPath);
 
         ByteArrayOutputStream propsBytes = new ByteArrayOutputStream();
@@ -194,13 +221,19 @@ public class BuildTool {
         WildFlySwarmApplicationConf appConf = this.dependencyManager.getWildFlySwarmApplicationConf(this.projectAsset);
         this.archive.add(new StringAsset(appConf.toString()), WildFlySwarmApplicationConf.CLASSPATH_LOCATION);
         this.archive.add(this.projectAsset);
+
+        ApplicationPackageIndex index = this.dependencyManager.getApplicationPackageIndex(appConf);
+        if (!index.isEmpty()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            index.write(out);
+            this.archive.add(new ByteArrayAsset(out.toByteArray()), ApplicationPackageIndex.CLASSPATH_LOCATION);
+        }
     }
 
 
     private File createJar(String baseName, Path dir) throws IOException {
         File out = new File(dir.toFile(), baseName + "-swarm.jar");
-        ZipExporter exporter = this.archive.as(ZipExporter.class);
-        exporter.exportTo(out, true);
+        new UberJarExporter(this.archive).exportTo(out);
         return out;
     }
 
@@ -243,6 +276,85 @@ public class BuildTool {
         }
     }
 
+    private void addPreloadList() throws BuildException {
+        if (this.preloadList == null) {
+            return;
+        }
+        if (!this.preloadList.isFile()) {
+            throw new BuildException("No such preload list: " + this.preloadList);
+        }
+        this.archive.add(new FileAsset(this.preloadList), PreloadList.CLASSPATH_LOCATION);
+    }
+
+    private void addModuleIndex() throws IOException {
+        ModuleIndex index = new ModuleIndex();
+        Map<String, CompiledModuleDescriptor> descriptors = new LinkedHashMap<>();
+
+        // same precedence as the boot module finders: the uber-jar itself, then bootstrap jars
+        for (Map.Entry<ArchivePath, Node> each : this.archive.getContent().entrySet()) {
+            ModuleIndex.Entry entry = indexModule(index, each.getKey().get().substring(1), ModuleIndex.Source.ROOT);
+            if (entry != null && each.getValue().getAsset() != null) {
+                try (InputStream in = each.getValue().getAsset().openStream()) {
+                    compileModule(descriptors, entry, in);
+                }
+            }
+        }
+
+        for (ArtifactSpec each : this.dependencyManager.getBootstrapDependencies()) {
+            if (this.dependencyManager.isExplodedBootstrap(each) || each.file == null) {
+                continue;
+            }
+            try (JarFile jar = new JarFile(each.file)) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry jarEntry = entries.nextElement();
+                    ModuleIndex.Entry entry = indexModule(index, jarEntry.getName(), ModuleIndex.Source.BOOTSTRAP);
+                    if (entry != null) {
+                        try (InputStream in = jar.getInputStream(jarEntry)) {
+                            compileModule(descriptors, entry, in);
+                        }
+                    }
+                }
+            }
+        }
+
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        index.write(indexBytes);
+        this.archive.add(new ByteArrayAsset(indexBytes.toByteArray()), ModuleIndex.CLASSPATH_LOCATION);
+
+        for (Map.Entry<String, CompiledModuleDescriptor> each : descriptors.entrySet()) {
+            ByteArrayOutputStream descriptorBytes = new ByteArrayOutputStream();
+            each.getValue().write(descriptorBytes);
+            this.archive.add(new ByteArrayAsset(descriptorBytes.toByteArray()), each.getKey());
+        }
+    }
+
+    private static ModuleIndex.Entry indexModule(ModuleIndex index, String path, ModuleIndex.Source source) {
+        if (!path.startsWith("modules/") || !path.endsWith("/module.xml")) {
+            return null;
+        }
+        String modulePath = path.substring("modules/".length(), path.length() - "/module.xml".length());
+        int slotLoc = modulePath.lastIndexOf('/');
+        if (slotLoc <= 0) {
+            return null;
+        }
+        return index.addEntry(modulePath.substring(0, slotLoc).replace('/', '.'), modulePath.substring(slotLoc + 1), source);
+    }
+
+    private static void compileModule(Map<String, CompiledModuleDescriptor> descriptors, ModuleIndex.Entry entry, InputStream in) throws IOException {
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) >= 0) {
+            xml.write(buf, 0, len);
+        }
+
+        CompiledModuleDescriptor descriptor = new ModuleXmlCompiler().compile(xml.toByteArray());
+        if (descriptor != null && descriptor.getName().equals(entry.getName()) && descriptor.getSlot().equals(entry.getSlot())) {
+            descriptors.put(CompiledModuleDescriptor.path(entry.getName(), entry.getSlot()), descriptor);
+        }
+    }
+
     private void populateUberJarMavenRepository() throws Exception {
         if ( this.bundleDependencies ) {
             this.dependencyManager.populateUberJarMavenRepository( this.archive );
@@ -11,14 +11,17 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.wildfly.swarm.bootstrap.util.ApplicationPackageIndex;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmApplicationConf;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmBootstrapConf;
 import org.wildfly.swarm.bootstrap.util.WildFlySwarmDependenciesConf;
@@ -50,6 +53,8 @@ public class DependencyManager {
 
     private final Map<String, String> providedGAVToModuleMappings = new HashMap<>();
 
+    private final Map<String, ModuleAnalyzer> moduleAnalyzers = new HashMap<>();
+
     public DependencyManager() {
     }
 
@@ -203,6 +208,75 @@ public class DependencyManager {
 
     }
 
+    /**
+     * Index the paths each module dependency of the application module can provide: those of
+     * its artifacts, plus those it re-exports from other modules and the system class path.
+     * Modules whose paths cannot all be known at build time, because their module.xml is not
+     * in a bootstrap jar or they have resource roots, are left out, and imported in full.
+     */
+    protected ApplicationPackageIndex getApplicationPackageIndex(WildFlySwarmApplicationConf appConf) {
+        ApplicationPackageIndex index = new ApplicationPackageIndex();
+        Map<String, Optional<Set<String>>> known = new HashMap<>();
+
+        for (WildFlySwarmApplicationConf.Entry each : appConf.getEntries()) {
+            if (each instanceof WildFlySwarmApplicationConf.ModuleEntry) {
+                String identifier = ((WildFlySwarmApplicationConf.ModuleEntry) each).getIdentifier();
+                Set<String> paths = providedPaths(identifier, known, new HashSet<>());
+                if (paths != null && !paths.isEmpty()) {
+                    index.addAll(identifier, paths);
+                }
+            }
+        }
+
+        return index;
+    }
+
+    private Set<String> providedPaths(String identifier, Map<String, Optional<Set<String>>> known, Set<String> visiting) {
+        if (known.containsKey(identifier)) {
+            return known.get(identifier).orElse(null);
+        }
+        if (!visiting.add(identifier)) {
+            // a cycle of re-exports; not worth untangling
+            return null;
+        }
+
+        Set<String> paths = analyzeProvidedPaths(identifier, known, visiting);
+        visiting.remove(identifier);
+        known.put(identifier, Optional.ofNullable(paths));
+        return paths;
+    }
+
+    private Set<String> analyzeProvidedPaths(String identifier, Map<String, Optional<Set<String>>> known, Set<String> visiting) {
+        ModuleAnalyzer analyzer = this.moduleAnalyzers.get(identifier);
+        if (analyzer == null || analyzer.hasResourceRoots()) {
+            return null;
+        }
+
+        List<String> systemPaths = analyzer.getExportedSystemPaths();
+        if (systemPaths == null) {
+            return null;
+        }
+        Set<String> paths = new HashSet<>(systemPaths);
+
+        for (ArtifactSpec each : analyzer.getDependencies()) {
+            try (ZipFile jar = new ZipFile(resolveArtifact(each).file)) {
+                paths.addAll(PackageDetector.detectPaths(jar));
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        for (String each : analyzer.getExportedModules()) {
+            Set<String> exported = providedPaths(each, known, visiting);
+            if (exported == null) {
+                return null;
+            }
+            paths.addAll(exported);
+        }
+
+        return paths;
+    }
+
     protected WildFlySwarmDependenciesConf getWildFlySwarmDependenciesConf() {
         WildFlySwarmDependenciesConf depsConf = new WildFlySwarmDependenciesConf();
 
@@ -282,6 +356,9 @@ public class DependencyManager {
     }
 
     protected void analyzeModuleDependencies(ModuleAnalyzer analyzer) {
+        if (analyzer.isModule()) {
+            this.moduleAnalyzers.put(analyzer.getName() + ":" + analyzer.getSlot(), analyzer);
+        }
         this.moduleDependencies.addAll(analyzer.getDependencies());
         for (ArtifactSpec each : analyzer.getDependencies()) {
             providedGAVToModuleMappings.put(
@@ -21,6 +21,8 @@ public class ModuleAnalyzer {
 
     private ModuleDescriptorImpl module;
 
+    private Node node;
+
     public ModuleAnalyzer(InputStream in) throws IOException {
         NodeImporter importer = new XmlDomNodeImporterImpl();
         Node node = importer.importAsNode(in, true);
@@ -29,6 +31,7 @@ public class ModuleAnalyzer {
 
         if ( rootName.equals( "module" ) ) {
             this.module = new ModuleDescriptorImpl(null, node);
+            this.node = node;
         }
         in.close();
     }
@@ -44,6 +47,60 @@ public class ModuleAnalyzer {
         return this.module.getSlot();
     }
 
+    public boolean isModule() {
+        return this.module != null;
+    }
+
+    /**
+     * @return Whether the module has resources other than artifacts, whose contents are
+     * not known until it is loaded.
+     */
+    public boolean hasResourceRoots() {
+        return this.node != null && !this.node.get( "resources/resource-root" ).isEmpty();
+    }
+
+    /**
+     * @return The <code>name:slot</code> of each module dependency re-exported by this module.
+     */
+    public List<String> getExportedModules() {
+        if ( this.node == null ) {
+            return Collections.emptyList();
+        }
+
+        List<String> exported = new ArrayList<>();
+        for (Node each : this.node.get( "dependencies/module" )) {
+            if ( "true".equals( each.getAttribute( "export" ) ) ) {
+                String slot = each.getAttribute( "slot" );
+                exported.add( each.getAttribute( "name" ) + ":" + ( slot == null ? "main" : slot ) );
+            }
+        }
+        return exported;
+    }
+
+    /**
+     * @return The paths of system dependencies re-exported by this module, or <code>null</code>
+     * if one re-exports the system class path without naming its paths.
+     */
+    public List<String> getExportedSystemPaths() {
+        if ( this.node == null ) {
+            return Collections.emptyList();
+        }
+
+        List<String> paths = new ArrayList<>();
+        for (Node each : this.node.get( "dependencies/system" )) {
+            if ( "true".equals( each.getAttribute( "export" ) ) ) {
+                List<Node> named = each.get( "paths/path" );
+                if ( named.isEmpty() ) {
+                    return null;
+                }
+                for (Node path : named) {
+                    paths.add( path.getAttribute( "name" ) );
+                }
+            }
+        }
+        return paths;
+    }
+
     public List<ArtifactSpec> getDependencies() {
         if ( this.module == null ) {
             return Collections.emptyList();
@@ -0,0 +1,249 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayInputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.wildfly.swarm.bootstrap.util.CompiledModuleDescriptor;
+
+/**
+ * Compiles a <code>module.xml</code> into a {@link CompiledModuleDescriptor}.
+ *
+ * <p>Modules using anything beyond the supported subset (filters, exports,
+ * permissions, aliases, ...) are not compiled and keep being parsed at boot.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class ModuleXmlCompiler {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    /**
+     * @param moduleXml The raw <code>module.xml</code>.
+     * @return The descriptor, or <code>null</code> if the module uses unsupported constructs.
+     */
+    public CompiledModuleDescriptor compile(byte[] moduleXml) {
+        try {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(new ByteArrayInputStream(moduleXml));
+            try {
+                reader.nextTag();
+                return parseModule(reader, CompiledModuleDescriptor.crc(moduleXml));
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | UnsupportedException e) {
+            return null;
+        }
+    }
+
+    private CompiledModuleDescriptor parseModule(XMLStreamReader reader, long crc) throws XMLStreamException {
+        if (!reader.getLocalName().equals("module")) {
+            throw new UnsupportedException();
+        }
+
+        String name = null;
+        String slot = "main";
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            switch (reader.getAttributeLocalName(i)) {
+                case "name":
+                    name = reader.getAttributeValue(i);
+                    break;
+                case "slot":
+                    slot = reader.getAttributeValue(i);
+                    break;
+                default:
+                    throw new UnsupportedException();
+            }
+        }
+        if (name == null) {
+            throw new UnsupportedException();
+        }
+
+        CompiledModuleDescriptor descriptor = new CompiledModuleDescriptor(name, slot, crc);
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "dependencies":
+                    parseDependencies(reader, descriptor);
+                    break;
+                case "resources":
+                    parseResources(reader, descriptor);
+                    break;
+                case "main-class":
+                    descriptor.setMainClass(requiredAttribute(reader, "name"));
+                    requireEmpty(reader);
+                    break;
+                case "properties":
+                    parseProperties(reader, descriptor);
+                    break;
+                default:
+                    throw new UnsupportedException();
+            }
+        }
+
+        return descriptor;
+    }
+
+    private void parseDependencies(XMLStreamReader reader, CompiledModuleDescriptor descriptor) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "module":
+                    parseModuleDependency(reader, descriptor);
+                    break;
+                case "system":
+                    parseSystemDependency(reader, descriptor);
+                    break;
+                default:
+                    throw new UnsupportedException();
+            }
+        }
+    }
+
+    private void parseModuleDependency(XMLStreamReader reader, CompiledModuleDescriptor descriptor) throws XMLStreamException {
+        String name = null;
+        String slot = "main";
+        boolean export = false;
+        boolean optional = false;
+        CompiledModuleDescriptor.Services services = CompiledModuleDescriptor.Services.NONE;
+
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            String value = reader.getAttributeValue(i);
+            switch (reader.getAttributeLocalName(i)) {
+                case "name":
+                    name = value;
+                    break;
+                case "slot":
+                    slot = value;
+                    break;
+                case "export":
+                    export = Boolean.parseBoolean(value);
+                    break;
+                case "optional":
+                    optional = Boolean.parseBoolean(value);
+                    break;
+                case "services":
+                    switch (value) {
+                        case "none":
+                            services = CompiledModuleDescriptor.Services.NONE;
+                            break;
+                        case "import":
+                            services = CompiledModuleDescriptor.Services.IMPORT;
+                            break;
+                        case "export":
+                            services = CompiledModuleDescriptor.Services.EXPORT;
+                            break;
+                        default:
+                            throw new UnsupportedException();
+                    }
+                    break;
+                default:
+                    throw new UnsupportedException();
+            }
+        }
+        if (name == null) {
+            throw new UnsupportedException();
+        }
+
+        // nested imports/exports filters are not supported
+        requireEmpty(reader);
+
+        descriptor.addModuleDependency(name, slot, export, optional, services);
+    }
+
+    private void parseSystemDependency(XMLStreamReader reader, CompiledModuleDescriptor descriptor) throws XMLStreamException {
+        boolean export = false;
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            if (!reader.getAttributeLocalName(i).equals("export")) {
+                throw new UnsupportedException();
+            }
+            export = Boolean.parseBoolean(reader.getAttributeValue(i));
+        }
+
+        Set<String> paths = new LinkedHashSet<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!reader.getLocalName().equals("paths")) {
+                throw new UnsupportedException();
+            }
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if (!reader.getLocalName().equals("path")) {
+                    throw new UnsupportedException();
+                }
+                paths.add(requiredAttribute(reader, "name"));
+                requireEmpty(reader);
+            }
+        }
+
+        descriptor.addSystemDependency(paths, export);
+    }
+
+    private void parseResources(XMLStreamReader reader, CompiledModuleDescriptor descriptor) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "artifact":
+                    descriptor.addArtifact(requiredAttribute(reader, "name"));
+                    requireEmpty(reader);
+                    break;
+                case "resource-root": {
+                    String path = requiredAttribute(reader, "path");
+                    String name = reader.getAttributeValue(null, "name");
+                    descriptor.addResourceRoot(name == null ? path : name, path);
+                    requireEmpty(reader);
+                    break;
+                }
+                default:
+                    throw new UnsupportedException();
+            }
+        }
+    }
+
+    private void parseProperties(XMLStreamReader reader, CompiledModuleDescriptor descriptor) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!reader.getLocalName().equals("property")) {
+                throw new UnsupportedException();
+            }
+            String value = reader.getAttributeValue(null, "value");
+            descriptor.addProperty(requiredAttribute(reader, "name"), value == null ? "true" : value);
+            requireEmpty(reader);
+        }
+    }
+
+    private static String requiredAttribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null) {
+            throw new UnsupportedException();
+        }
+        return value;
+    }
+
+    private static void requireEmpty(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.nextTag() != XMLStreamConstants.END_ELEMENT) {
+            throw new UnsupportedException();
+        }
+    }
+
+    private static class UnsupportedException extends RuntimeException {
+        UnsupportedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -52,6 +52,26 @@ public class PackageDetector {
         return detectPackages(file, visitor);
     }
 
+    /**
+     * The directories of a jar holding classes or resources, such as <code>org/foo/bar</code>,
+     * or <code>""</code> for the root; the paths a module built from it can provide.
+     */
+    public static Set<String> detectPaths(final ZipFile file) {
+        final Set<String> paths = new HashSet<>();
+        final Enumeration<? extends ZipEntry> entries = file.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            String name = entry.getName();
+            int slash = name.lastIndexOf('/');
+            paths.add(slash < 0 ? "" : name.substring(0, slash));
+        }
+
+        return paths;
+    }
+
     protected static Map<String, Set<String>> detectPackages(final ZipFile file,
                                                 final PackageCollector visitor) throws IOException {
         final Enumeration<? extends ZipEntry> entries = file.entries();
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2015 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+/**
+ * Writes the uber-jar, storing nested jars uncompressed.
+ *
+ * <p>Jars under <code>m2repo/</code> (and the application artifact under
+ * <code>_bootstrap/</code>) are already compressed, so deflating them again gains
+ * little.  Storing them lets the bootstrap read them in place from the mapped
+ * uber-jar instead of extracting them to disk.</p>
+ *
+ * @author Bob McWhirter
+ */
+public class UberJarExporter {
+
+    private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
+
+    private final Archive<?> archive;
+
+    public UberJarExporter(Archive<?> archive) {
+        this.archive = archive;
+    }
+
+    public void exportTo(File file) throws IOException {
+        List<Map.Entry<ArchivePath, Node>> entries = new ArrayList<>(this.archive.getContent().entrySet());
+
+        // keep the manifest up front, as JarInputStream expects
+        entries.sort((l, r) -> Integer.compare(rank(l.getKey()), rank(r.getKey())));
+
+        try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (Map.Entry<ArchivePath, Node> each : entries) {
+                String name = each.getKey().get().substring(1);
+                if (name.isEmpty()) {
+                    continue;
+                }
+                Asset asset = each.getValue().getAsset();
+
+                if (asset == null) {
+                    out.putNextEntry(new ZipEntry(name + "/"));
+                    out.closeEntry();
+                } else if (shouldStore(name)) {
+                    writeStored(out, name, asset);
+                } else {
+                    out.putNextEntry(new ZipEntry(name));
+                    try (InputStream in = asset.openStream()) {
+                        copy(in, out);
+                    }
+                    out.closeEntry();
+                }
+            }
+        }
+    }
+
+    protected boolean shouldStore(String name) {
+        return (name.startsWith("m2repo/") || name.startsWith("_bootstrap/"))
+                && (name.endsWith(".jar") || name.endsWith(".war"));
+    }
+
+    private void writeStored(ZipOutputStream out, String name, Asset asset) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+
+        try (InputStream in = asset.openStream()) {
+            byte[] buf = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                crc.update(buf, 0, len);
+                size += len;
+            }
+        }
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+
+        out.putNextEntry(entry);
+        try (InputStream in = asset.openStream()) {
+            copy(in, out);
+        }
+        out.closeEntry();
+    }
+
+    private static int rank(ArchivePath path) {
+        if (path.get().equals("/META-INF")) {
+            return 0;
+        }
+        if (path.get().equals("/" + MANIFEST_PATH)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        int len;
+        while ((len = in.read(buf)) >= 0) {
+            out.write(buf, 0, len);
+        }
+    }
+}
@@ -37,6 +37,8 @@ public class SwarmExecutor {
 
     private List<String> arguments = new ArrayList<>();
 
+    private List<String> jvmArguments = new ArrayList<>();
+
     private Executable executable;
 
     private Path workingDirectory;
@@ -64,6 +66,38 @@ public class SwarmExecutor {
         return this;
     }
 
+    public SwarmExecutor withJVMArgument(String arg) {
+        this.jvmArguments.add(arg);
+        return this;
+    }
+
+    public SwarmExecutor withJVMArguments(List<String> args) {
+        this.jvmArguments.addAll(args);
+        return this;
+    }
+
+    /**
+     * Record every class the process loads into a dynamic class-data-sharing archive, written
+     * when it exits. Requires JDK 13 or later, which also archives classes defined by
+     * module class loaders; the JVM matches them by name and class file checksum, so it
+     * does not matter whether they were read in place from the uber-jar or extracted.
+     *
+     * @param archive The archive to write.
+     */
+    public SwarmExecutor withSharedArchiveOutput(Path archive) {
+        return withJVMArgument("-XX:ArchiveClassesAtExit=" + archive);
+    }
+
+    /**
+     * Launch with a class-data-sharing archive.  The JVM silently ignores the archive if it does not match.
+     *
+     * @param archive The archive.
+     */
+    public SwarmExecutor withSharedArchive(Path archive) {
+        withJVMArgument("-Xshare:auto");
+        return withJVMArgument("-XX:SharedArchiveFile=" + archive);
+    }
+
     public SwarmExecutor withJava(Path java) {
         this.java = java;
         return this;
@@ -191,6 +225,17 @@ public class SwarmExecutor {
     }
 
     public SwarmProcess execute() throws IOException {
+        List<String> cli = toCommandLine();
+
+        Process process = Runtime.getRuntime().exec(cli.toArray(new String[0]), toStringArray(environment), this.workingDirectory.toFile());
+
+        return new SwarmProcess(
+                process,
+                this.stdout, this.stdoutFile,
+                this.stderr, this.stderrFile);
+    }
+
+    List<String> toCommandLine() {
         if (this.executable == null) {
             throw new RuntimeException("An executable jar or a main-class must be specified");
         }
@@ -204,6 +249,8 @@ public class SwarmExecutor {
             cli.add("-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=" + debugPort);
         }
 
+        cli.addAll(this.jvmArguments);
+
         for (String name : this.properties.keySet()) {
             cli.add("-D" + name + "=" + this.properties.get(name));
         }
@@ -217,12 +264,7 @@ public class SwarmExecutor {
         cli.addAll(this.executable.toArguments());
         cli.addAll(this.arguments);
 
-        Process process = Runtime.getRuntime().exec(cli.toArray(new String[0]), toStringArray(environment), this.workingDirectory.toFile());
-
-        return new SwarmProcess(
-                process,
-                this.stdout, this.stdoutFile,
-                this.stderr, this.stderrFile);
+        return cli;
     }
 
     private static String[] toStringArray(Map<String, String> env) {
@@ -31,5 +31,16 @@ public class ModuleAnalyzerTest {
         InputStream moduleXml = getClass().getClassLoader().getResourceAsStream( "alias-module.xml" );
         ModuleAnalyzer analyzer = new ModuleAnalyzer( moduleXml );
         assertThat( analyzer.getDependencies() ).hasSize(0);
+        assertThat( analyzer.isModule() ).isFalse();
+    }
+
+    @Test
+    public void testExports() throws IOException {
+        InputStream moduleXml = getClass().getClassLoader().getResourceAsStream( "exporting-module.xml" );
+        ModuleAnalyzer analyzer = new ModuleAnalyzer( moduleXml );
+        assertThat( analyzer.isModule() ).isTrue();
+        assertThat( analyzer.hasResourceRoots() ).isFalse();
+        assertThat( analyzer.getExportedModules() ).containsExactly( "org.wildfly.swarm.undertow:api", "org.jboss.logging:main" );
+        assertThat( analyzer.getExportedSystemPaths() ).containsExactly( "org/wildfly/swarm/undertow" );
     }
 }
@@ -0,0 +1,90 @@
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.util.CompiledModuleDescriptor;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class ModuleXmlCompilerTest {
+
+    private static final String SIMPLE_MODULE =
+            "<module xmlns=\"urn:jboss:module:1.3\" name=\"org.wildfly.swarm.fish\" slot=\"runtime\">\n" +
+            "  <resources>\n" +
+            "    <artifact name=\"org.wildfly.swarm:fish-runtime:1.0\"/>\n" +
+            "    <resource-root path=\"fish.jar\"/>\n" +
+            "  </resources>\n" +
+            "  <dependencies>\n" +
+            "    <module name=\"org.wildfly.swarm.fish\" slot=\"api\" export=\"true\" services=\"export\"/>\n" +
+            "    <module name=\"org.jboss.msc\" optional=\"true\"/>\n" +
+            "    <system export=\"true\">\n" +
+            "      <paths>\n" +
+            "        <path name=\"sun/misc\"/>\n" +
+            "      </paths>\n" +
+            "    </system>\n" +
+            "  </dependencies>\n" +
+            "</module>\n";
+
+    @Test
+    public void testCompileSimpleModule() throws Exception {
+        byte[] xml = SIMPLE_MODULE.getBytes("UTF-8");
+        CompiledModuleDescriptor descriptor = new ModuleXmlCompiler().compile(xml);
+
+        assertThat(descriptor).isNotNull();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        descriptor.write(out);
+        descriptor = new CompiledModuleDescriptor(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(descriptor.getName()).isEqualTo("org.wildfly.swarm.fish");
+        assertThat(descriptor.getSlot()).isEqualTo("runtime");
+        assertThat(descriptor.getCrc()).isEqualTo(CompiledModuleDescriptor.crc(xml));
+
+        assertThat(descriptor.getResources()).hasSize(2);
+        assertThat(descriptor.getResources().get(0).getArtifact()).isEqualTo("org.wildfly.swarm:fish-runtime:1.0");
+        assertThat(descriptor.getResources().get(1).isArtifact()).isFalse();
+        assertThat(descriptor.getResources().get(1).getName()).isEqualTo("fish.jar");
+
+        assertThat(descriptor.getDependencies()).hasSize(3);
+
+        CompiledModuleDescriptor.Dependency api = descriptor.getDependencies().get(0);
+        assertThat(api.getName()).isEqualTo("org.wildfly.swarm.fish");
+        assertThat(api.getSlot()).isEqualTo("api");
+        assertThat(api.isExport()).isTrue();
+        assertThat(api.getServices()).isEqualTo(CompiledModuleDescriptor.Services.EXPORT);
+
+        CompiledModuleDescriptor.Dependency msc = descriptor.getDependencies().get(1);
+        assertThat(msc.getSlot()).isEqualTo("main");
+        assertThat(msc.isOptional()).isTrue();
+        assertThat(msc.isExport()).isFalse();
+
+        CompiledModuleDescriptor.Dependency system = descriptor.getDependencies().get(2);
+        assertThat(system.isSystem()).isTrue();
+        assertThat(system.getPaths()).containsOnly("sun/misc");
+    }
+
+    @Test
+    public void testUnsupportedModulesAreNotCompiled() throws Exception {
+        // <exports> filters are left to the XML parser
+        assertThat(new ModuleXmlCompiler().compile(read("module.xml"))).isNull();
+        assertThat(new ModuleXmlCompiler().compile(read("alias-module.xml"))).isNull();
+    }
+
+    private byte[] read(String name) throws Exception {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                out.write(buf, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+}
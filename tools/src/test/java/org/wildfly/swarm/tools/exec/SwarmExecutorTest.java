@@ -0,0 +1,56 @@
+package org.wildfly.swarm.tools.exec;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * @author Bob McWhirter
+ */
+public class SwarmExecutorTest {
+
+    private static final Path JAVA = Paths.get("jdk", "bin", "java");
+
+    private static final Path JAR = Paths.get("target", "app-swarm.jar");
+
+    private static final Path ARCHIVE = Paths.get("target", "app-swarm.jsa");
+
+    @Test
+    public void testSharedArchive() {
+        List<String> cli = new SwarmExecutor()
+                .withJava(JAVA)
+                .withSharedArchive(ARCHIVE)
+                .withExecutableJar(JAR)
+                .toCommandLine();
+
+        assertThat(cli).containsExactly(JAVA.toString(), "-Xshare:auto", "-XX:SharedArchiveFile=" + ARCHIVE, "-jar", JAR.toString());
+    }
+
+    @Test
+    public void testSharedArchiveOutput() {
+        List<String> cli = new SwarmExecutor()
+                .withJava(JAVA)
+                .withJVMArgument("-Xmx512m")
+                .withSharedArchiveOutput(ARCHIVE)
+                .withExecutableJar(JAR)
+                .withArgument("-Dfoo=bar")
+                .toCommandLine();
+
+        // JVM options before the jar, application arguments after it
+        assertThat(cli).containsExactly(JAVA.toString(), "-Xmx512m", "-XX:ArchiveClassesAtExit=" + ARCHIVE, "-jar", JAR.toString(), "-Dfoo=bar");
+    }
+
+    @Test
+    public void testNoSharedArchiveByDefault() {
+        List<String> cli = new SwarmExecutor()
+                .withJava(JAVA)
+                .withExecutableJar(JAR)
+                .toCommandLine();
+
+        assertThat(cli).containsExactly(JAVA.toString(), "-jar", JAR.toString());
+    }
+}
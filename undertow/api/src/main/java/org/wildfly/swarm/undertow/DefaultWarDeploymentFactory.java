@@ -18,14 +18,13 @@ package org.wildfly.swarm.undertow;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
-import org.jboss.shrinkwrap.impl.base.importer.zip.ZipImporterImpl;
 import org.wildfly.swarm.container.Container;
 import org.wildfly.swarm.container.DefaultDeploymentFactory;
 import org.wildfly.swarm.container.DependenciesContainer;
+import org.wildfly.swarm.container.util.ApplicationArtifact;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.UUID;
@@ -95,8 +94,11 @@ public class DefaultWarDeploymentFactory implements DefaultDeploymentFactory {
                     }
                 });
             } else {
-                ZipImporterImpl importer = new ZipImporterImpl(archive);
-                importer.importFrom(new File(System.getProperty("wildfly.swarm.app.path")));
+                ApplicationArtifact app = ApplicationArtifact.getInstance();
+                if (app == null) {
+                    throw new IOException("Unable to locate application: " + path);
+                }
+                app.addTo(archive);
             }
             return true;
         }
@@ -105,13 +107,10 @@ public class DefaultWarDeploymentFactory implements DefaultDeploymentFactory {
     }
 
     protected static boolean setupUsingAppArtifact(DependenciesContainer<?> archive) throws IOException {
-        String appArtifact = System.getProperty("wildfly.swarm.app.artifact");
+        ApplicationArtifact app = ApplicationArtifact.getInstance();
 
-        if (appArtifact != null) {
-            try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream("_bootstrap/" + appArtifact)) {
-                ZipImporterImpl importer = new ZipImporterImpl(archive);
-                importer.importFrom(in);
-            }
+        if (app != null) {
+            app.addTo(archive);
             return true;
         }
 
@@ -26,6 +26,7 @@ import org.wildfly.swarm.config.undertow.servlet_container.JSPSetting;
 import org.wildfly.swarm.config.undertow.servlet_container.WebsocketsSetting;
 import org.wildfly.swarm.container.Container;
 import org.wildfly.swarm.container.Fraction;
+import org.wildfly.swarm.container.RuntimeProfile;
 import org.wildfly.swarm.container.SocketBinding;
 
 /**
@@ -44,7 +45,7 @@ public class UndertowFraction extends Undertow<UndertowFraction> implements Frac
                         .httpListener(new HTTPListener("default")
                                 .socketBinding("http"))
                         .host(new Host("default-host")))
-                .bufferCache(new BufferCache("default"))
+                .bufferCache(defaultBufferCache())
                 .servletContainer(new ServletContainer("default")
                         .websocketsSetting(new WebsocketsSetting())
                         .jspSetting(new JSPSetting()))
@@ -53,6 +54,19 @@ public class UndertowFraction extends Undertow<UndertowFraction> implements Frac
         return fraction;
     }
 
+    private static BufferCache defaultBufferCache() {
+        BufferCache cache = new BufferCache("default");
+
+        // by default 10 regions of 1024 1K buffers
+        if (RuntimeProfile.isLean()) {
+            cache.bufferSize(RuntimeProfile.budget("undertow", "buffer-cache buffer-size", 1024))
+                    .buffersPerRegion(RuntimeProfile.budget("undertow", "buffer-cache buffers-per-region", 256))
+                    .maxRegions(RuntimeProfile.budget("undertow", "buffer-cache max-regions", 2));
+        }
+
+        return cache;
+    }
+
     @Override
     public void initialize(Container.InitContext initContext) {
         initContext.socketBinding(